@@ -0,0 +1,44 @@
+package trufflesom.bench;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Context.Builder;
+import org.graalvm.polyglot.Value;
+
+import trufflesom.interpreter.SomLanguage;
+
+
+/**
+ * Creates the contexts for the JMH benchmarks, which run one of the class-side
+ * methods of {@code bench/JmhHarness.som}, i.e.,
+ * {@code Universe.interpret("JmhHarness", selector)}.
+ */
+final class BenchmarkContext {
+
+  static final String CLASS_PATH = "Smalltalk:Examples/Benchmarks"
+      + ":Examples/Benchmarks/Richards:Examples/Benchmarks/DeltaBlue"
+      + ":Examples/Benchmarks/Json:Examples/Benchmarks/NBody:bench";
+
+  static final String HARNESS = "JmhHarness";
+
+  private BenchmarkContext() {}
+
+  /** @return the selector in JmhHarness for a benchmark, e.g., deltaBlue for DeltaBlue */
+  static String selectorFor(final String benchmark) {
+    return Character.toLowerCase(benchmark.charAt(0)) + benchmark.substring(1);
+  }
+
+  static Context create(final String benchmark) {
+    Builder builder = Context.newBuilder();
+    builder.option("som.CLASS_PATH", CLASS_PATH);
+    builder.option("som.TEST_CLASS", HARNESS);
+    builder.option("som.TEST_SELECTOR", selectorFor(benchmark));
+    return builder.build();
+  }
+
+  static void run(final Context context, final String benchmark) {
+    Value result = context.eval(SomLanguage.START);
+    if (!result.isBoolean() || !result.asBoolean()) {
+      throw new IllegalStateException(benchmark + " did not produce the expected result");
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package trufflesom.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.polyglot.Context;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Micro benchmarks for tight loops that invoke a block, i.e., value:,
+ * value:with:, do:, and inject:into:. After warmup, the block invocations
+ * should not allocate, which shows in the {@code gc.alloc.rate.norm} results
+ * of the GC profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 30, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BlockAllocation {
+
+  @Param({"BlockValue", "BlockValueWith", "ArrayDo", "ArrayInjectInto"})
+  public String benchmark;
+
+  private Context context;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = BenchmarkContext.create(benchmark);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public void run() {
+    BenchmarkContext.run(context, benchmark);
+  }
+}
@@ -0,0 +1,54 @@
+package trufflesom.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.polyglot.Context;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures the first run of a benchmark in a fresh context, which includes
+ * loading and parsing the class library and the benchmark, and executing
+ * it with uninitialized ASTs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 20)
+@Fork(3)
+public class Startup {
+
+  @Param({"Bounce", "DeltaBlue", "Json", "List", "Mandelbrot", "NBody", "Permute",
+      "Queens", "Richards", "Sieve", "Storage", "Towers"})
+  public String benchmark;
+
+  private Context context;
+
+  @Setup(Level.Invocation)
+  public void setUp() {
+    context = BenchmarkContext.create(benchmark);
+  }
+
+  @TearDown(Level.Invocation)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public void run() {
+    BenchmarkContext.run(context, benchmark);
+  }
+}
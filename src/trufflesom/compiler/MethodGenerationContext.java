@@ -48,6 +48,7 @@ import trufflesom.compiler.Variable.Internal;
 import trufflesom.compiler.Variable.Local;
 import trufflesom.interpreter.LexicalScope;
 import trufflesom.interpreter.Method;
+import trufflesom.interpreter.TrivialMethod;
 import trufflesom.interpreter.nodes.ExpressionNode;
 import trufflesom.interpreter.nodes.FieldNode.FieldReadNode;
 import trufflesom.interpreter.nodes.FieldNode.FieldWriteNode;
@@ -74,6 +75,7 @@ public final class MethodGenerationContext implements ScopeBuilder<MethodGenerat
   private boolean throwsNonLocalReturn;      // does directly or indirectly a non-local return
 
   private boolean accessesVariablesOfOuterScope;
+  private boolean accessesLocalsOfOuterScope;
 
   private final LinkedHashMap<SSymbol, Argument> arguments;
   private final LinkedHashMap<SSymbol, Local>    locals;
@@ -109,6 +111,7 @@ public final class MethodGenerationContext implements ScopeBuilder<MethodGenerat
     this.currentScope = new LexicalScope(new FrameDescriptor(Nil.nilObject), outer);
 
     accessesVariablesOfOuterScope = false;
+    accessesLocalsOfOuterScope = false;
     throwsNonLocalReturn = false;
     needsToCatchNonLocalReturn = false;
     embeddedBlockMethods = new ArrayList<SMethod>();
@@ -156,6 +159,18 @@ public final class MethodGenerationContext implements ScopeBuilder<MethodGenerat
     return throwsNonLocalReturn || accessesVariablesOfOuterScope;
   }
 
+  /**
+   * Blocks that only read arguments of outer scopes, including self, and do
+   * not return non-locally, do not need the outer frame. Since arguments
+   * cannot be assigned, a frame with only the arguments is sufficient as
+   * context, and the outer frame does not need to be materialized.
+   *
+   * @return true, if the context of the block can be an argument-only frame
+   */
+  public boolean requiresOnlyArgumentsOfContext() {
+    return !throwsNonLocalReturn && !accessesLocalsOfOuterScope;
+  }
+
   private MethodGenerationContext markOuterContextsToRequireContextAndGetRootContext() {
     MethodGenerationContext ctx = outerGenc;
     while (ctx.outerGenc != null) {
@@ -184,13 +199,18 @@ public final class MethodGenerationContext implements ScopeBuilder<MethodGenerat
           sourceSection);
     }
 
+    // methods that only access a field, or return a literal, can be inlined
+    // by the dispatch chain of a send
+    TrivialMethod trivialMethod = blockMethod ? null : TrivialMethod.create(body);
+
     if (needsToCatchNonLocalReturn()) {
       body = createCatchNonLocalReturn(body, getFrameOnStackMarker());
     }
 
     Method truffleMethod =
         new Method(getMethodIdentifier(), getSourceSectionForMethod(sourceSection),
-            body, currentScope, (ExpressionNode) body.deepCopy(), holderGenc.getLanguage());
+            body, currentScope, (ExpressionNode) body.deepCopy(), holderGenc.getLanguage(),
+            trivialMethod);
 
     SInvokable meth = Universe.newMethod(signature, truffleMethod, false,
         embeddedBlockMethods.toArray(new SMethod[0]));
@@ -316,6 +336,9 @@ public final class MethodGenerationContext implements ScopeBuilder<MethodGenerat
       Variable outerVar = outerGenc.getVariable(varName);
       if (outerVar != null) {
         accessesVariablesOfOuterScope = true;
+        if (!(outerVar instanceof Argument)) {
+          accessesLocalsOfOuterScope = true;
+        }
       }
       return outerVar;
     }
@@ -349,6 +372,7 @@ public final class MethodGenerationContext implements ScopeBuilder<MethodGenerat
       Local outerLocal = outerGenc.getLocal(varName);
       if (outerLocal != null) {
         accessesVariablesOfOuterScope = true;
+        accessesLocalsOfOuterScope = true;
       }
       return outerLocal;
     }
@@ -430,13 +454,14 @@ public final class MethodGenerationContext implements ScopeBuilder<MethodGenerat
       final Inlinable<MethodGenerationContext> blockOrVal, final SourceSection source)
       throws ProgramDefinitionError {
     Local loopIdx;
-    if (blockOrVal instanceof BlockNode) {
+    if (blockOrVal instanceof BlockNode
+        && ((BlockNode) blockOrVal).getArguments().length > 1) {
       Argument[] args = ((BlockNode) blockOrVal).getArguments();
       assert args.length == 2;
       loopIdx = getLocal(args[1].getQualifiedName(universe));
     } else {
-      // if it is a literal, we still need a memory location for counting, so,
-      // add a synthetic local
+      // if it is a literal, or a block without parameter, e.g., for
+      // ifNotNil:, we still need a memory location, so, add a synthetic local
       loopIdx = addLocalAndUpdateScope(
           universe.symbolFor("!i" + Universe.getLocationQualifier(source)), source);
     }
@@ -80,6 +80,7 @@ import trufflesom.interpreter.nodes.FieldNode.FieldWriteNode;
 import trufflesom.interpreter.nodes.literals.ArrayLiteralNode;
 import trufflesom.interpreter.nodes.literals.BigIntegerLiteralNode;
 import trufflesom.interpreter.nodes.literals.BlockNode;
+import trufflesom.interpreter.nodes.literals.BlockNode.BlockNodeWithArgumentsContext;
 import trufflesom.interpreter.nodes.literals.BlockNode.BlockNodeWithContext;
 import trufflesom.interpreter.nodes.literals.DoubleLiteralNode;
 import trufflesom.interpreter.nodes.literals.IntegerLiteralNode;
@@ -600,7 +601,10 @@ public final class Parser {
         SMethod blockMethod = (SMethod) bgenc.assemble(blockBody, lastMethodsSourceSection);
         mgenc.addEmbeddedBlockMethod(blockMethod);
 
-        if (bgenc.requiresContext()) {
+        if (bgenc.requiresContext() && bgenc.requiresOnlyArgumentsOfContext()) {
+          return new BlockNodeWithArgumentsContext(blockMethod, universe).initialize(
+              getSource(coord));
+        } else if (bgenc.requiresContext()) {
           return new BlockNodeWithContext(blockMethod, universe).initialize(getSource(coord));
         } else {
           return new BlockNode(blockMethod, universe).initialize(getSource(coord));
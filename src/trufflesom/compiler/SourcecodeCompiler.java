@@ -25,7 +25,7 @@
 package trufflesom.compiler;
 
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.StringReader;
 
@@ -45,18 +45,21 @@ public final class SourcecodeCompiler {
       final SClass systemClass, final Universe universe)
       throws IOException {
     String fname = path + File.separator + file + ".som";
-    FileReader stream = new FileReader(fname);
-
     File f = new File(fname);
+    if (!f.isFile()) {
+      throw new FileNotFoundException(fname);
+    }
+
     Source source = Source.newBuilder(f).build();
-    Parser parser = new Parser(stream, f.length(), source, universe);
+    String code = source.getCharacters().toString();
+    Parser parser = new Parser(new StringReader(code), code.length(), source, universe);
 
     SClass result = compile(parser, systemClass, universe);
 
     SSymbol cname = result.getName();
     String cnameC = cname.getString();
 
-    if (file != cnameC) {
+    if (!file.equals(cnameC)) {
       throw new IllegalStateException("File name " + file
           + " does not match class name " + cnameC);
     }
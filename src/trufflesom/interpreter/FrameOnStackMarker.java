@@ -29,11 +29,22 @@ package trufflesom.interpreter;
  * Currently it is used to implement non-local returns by marking
  * stack frames with it, and checking for the marker during unwinding.
  *
+ * <p>
+ * A marker is only allocated when a non-local return to a frame happens.
+ * Until then, the frame's marker slot is nil. When the frame is left, the
+ * slot is set to {@link #NO_LONGER_ON_STACK}.
+ *
  * @author Stefan Marr
  */
 public final class FrameOnStackMarker {
+  public static final FrameOnStackMarker NO_LONGER_ON_STACK = new FrameOnStackMarker(false);
+
   private boolean isOnStack;
 
+  private FrameOnStackMarker(final boolean isOnStack) {
+    this.isOnStack = isOnStack;
+  }
+
   public FrameOnStackMarker() {
     isOnStack = true;
   }
@@ -1,9 +1,11 @@
 package trufflesom.interpreter;
 
+import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.RootCallTarget;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.frame.FrameDescriptor;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.RootNode;
 import com.oracle.truffle.api.source.SourceSection;
 
@@ -59,4 +61,20 @@ public abstract class Invokable extends RootNode {
   }
 
   public abstract void propagateLoopCountThroughoutLexicalScope(long count);
+
+  /**
+   * Report the number of iterations of a loop in {@code node} to the method
+   * containing it, to guide the compilation heuristics.
+   */
+  public static void reportLoopCount(final Node node, final long count) {
+    if (count < 1) {
+      return;
+    }
+
+    CompilerAsserts.neverPartOfCompilation("reportLoopCount");
+    RootNode root = node.getRootNode();
+    if (root != null) {
+      ((Invokable) root).propagateLoopCountThroughoutLexicalScope(count);
+    }
+  }
 }
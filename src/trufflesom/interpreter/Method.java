@@ -34,14 +34,17 @@ import trufflesom.vmobjects.SInvokable.SMethod;
 
 public final class Method extends Invokable {
 
-  private final LexicalScope currentLexicalScope;
+  private final LexicalScope  currentLexicalScope;
+  private final TrivialMethod trivialMethod;
 
   public Method(final String name, final SourceSection sourceSection,
       final ExpressionNode expressions, final LexicalScope currentLexicalScope,
-      final ExpressionNode uninitialized, final SomLanguage lang) {
+      final ExpressionNode uninitialized, final SomLanguage lang,
+      final TrivialMethod trivialMethod) {
     super(name, sourceSection, currentLexicalScope.getFrameDescriptor(), expressions,
         uninitialized, lang);
     this.currentLexicalScope = currentLexicalScope;
+    this.trivialMethod = trivialMethod;
     currentLexicalScope.setMethod(this);
   }
 
@@ -49,6 +52,11 @@ public final class Method extends Invokable {
     return currentLexicalScope;
   }
 
+  /** @return the trivial method, which can be inlined by a send, or null */
+  public TrivialMethod getTrivialMethod() {
+    return trivialMethod;
+  }
+
   @Override
   public boolean equals(final Object o) {
     if (o == this) {
@@ -86,7 +94,7 @@ public final class Method extends Invokable {
     }
 
     Method clone = new Method(name, sourceSection, adaptedBody, adaptedScope, uninit,
-        getLanguage(SomLanguage.class));
+        getLanguage(SomLanguage.class), trivialMethod);
     adaptedScope.setMethod(clone);
     return clone;
   }
@@ -24,6 +24,17 @@ package trufflesom.interpreter;
 import com.oracle.truffle.api.nodes.ControlFlowException;
 
 
+/**
+ * Unwinds the stack for a non-local return.
+ *
+ * <p>
+ * The exception is allocated for each return, and not preallocated per node
+ * or per {@link FrameOnStackMarker}. Blocks may run on other threads, e.g.,
+ * with the parallel array primitives or {@code Thread}, so, a shared instance
+ * could pass the result of one return to another. When the throwing and the
+ * catching node are compiled together, partial evaluation removes the
+ * allocation anyway.
+ */
 public final class ReturnException extends ControlFlowException {
 
   private final Object             result;
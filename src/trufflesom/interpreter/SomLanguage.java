@@ -16,6 +16,7 @@ import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.RootNode;
 import com.oracle.truffle.api.source.Source;
 
+import trufflesom.interpreter.nodes.dispatch.AbstractDispatchNode;
 import trufflesom.vm.NotYetImplementedException;
 import trufflesom.vm.Universe;
 import trufflesom.vm.Universe.SomExit;
@@ -37,7 +38,30 @@ public class SomLanguage extends TruffleLanguage<Universe> {
   @Option(help = "Test Selector", category = OptionCategory.USER) //
   protected static final OptionKey<String> TEST_SELECTOR = new OptionKey<>("");
 
+  @Option(help = "Number of receiver classes cached at a send site before it is "
+      + "considered megamorphic", category = OptionCategory.EXPERT) //
+  protected static final OptionKey<Integer> INLINE_CACHE_SIZE =
+      new OptionKey<>(AbstractDispatchNode.INLINE_CACHE_SIZE);
+
+  @Option(help = "Number of receiver classes up to which the inline cache of hot send "
+      + "sites with a stable set of receivers may grow", category = OptionCategory.EXPERT) //
+  protected static final OptionKey<Integer> MAX_INLINE_CACHE_SIZE =
+      new OptionKey<>(2 * AbstractDispatchNode.INLINE_CACHE_SIZE);
+
+  @Option(help = "Profile the dispatch chains of send sites and report them at exit, "
+      + "in the given format: text or json", category = OptionCategory.EXPERT) //
+  protected static final OptionKey<String> DISPATCH_PROFILE = new OptionKey<>("");
+
+  @Option(help = "File to write the dispatch profile to, default is stderr",
+      category = OptionCategory.EXPERT) //
+  protected static final OptionKey<String> DISPATCH_PROFILE_OUTPUT = new OptionKey<>("");
+
+  @Option(help = "Number of worker threads for the parallel primitives, "
+      + "default is the number of cores", category = OptionCategory.USER) //
+  protected static final OptionKey<Integer> NUM_THREADS = new OptionKey<>(0);
+
   @CompilationFinal private Universe universe;
+  @CompilationFinal private Env      env;
 
   @CompilationFinal(dimensions = 1) private String[] args;
 
@@ -45,22 +69,68 @@ public class SomLanguage extends TruffleLanguage<Universe> {
   private String testClass;
   private String testSelector;
 
+  @CompilationFinal private int inlineCacheSize;
+  @CompilationFinal private int maxInlineCacheSize;
+
+  private String dispatchProfile;
+  private String dispatchProfileOutput;
+
+  private int numThreads;
+
   public Universe getUniverse() {
     return universe;
   }
 
+  public int getInlineCacheSize() {
+    return inlineCacheSize;
+  }
+
+  public int getMaxInlineCacheSize() {
+    return maxInlineCacheSize;
+  }
+
+  public String getDispatchProfile() {
+    return dispatchProfile;
+  }
+
+  public String getDispatchProfileOutput() {
+    return dispatchProfileOutput;
+  }
+
+  /** @return the number of worker threads, or 0 to use the number of cores */
+  public int getNumberOfThreads() {
+    return numThreads;
+  }
+
   @Override
   protected Universe createContext(final Env env) {
+    this.env = env;
     OptionValues config = env.getOptions();
     args = env.getApplicationArguments();
     classPath = config.get(CLASS_PATH);
     testClass = config.get(TEST_CLASS);
     testSelector = config.get(TEST_SELECTOR);
+    inlineCacheSize = config.get(INLINE_CACHE_SIZE);
+    maxInlineCacheSize = Math.max(inlineCacheSize, config.get(MAX_INLINE_CACHE_SIZE));
+    dispatchProfile = config.get(DISPATCH_PROFILE);
+    dispatchProfileOutput = config.get(DISPATCH_PROFILE_OUTPUT);
+    numThreads = config.get(NUM_THREADS);
 
     universe = new Universe(this);
     return universe;
   }
 
+  /** Create a thread that is able to execute SOM code. */
+  public Thread createThread(final Runnable runnable) {
+    return env.createThread(runnable);
+  }
+
+  @Override
+  protected boolean isThreadAccessAllowed(final Thread thread,
+      final boolean singleThreaded) {
+    return true;
+  }
+
   public static Source getSyntheticSource(final String text, final String name) {
     return Source.newBuilder(text).internal().name(name).mimeType(SomLanguage.MIME_TYPE)
                  .build();
@@ -81,6 +151,15 @@ public class SomLanguage extends TruffleLanguage<Universe> {
 
     @Override
     public Object execute(final VirtualFrame frame) {
+      try {
+        return interpret();
+      } finally {
+        universe.reportDispatchProfile();
+        universe.getParallelWorkers().shutdown();
+      }
+    }
+
+    private Object interpret() {
       if (testSelector != null && !testSelector.equals("")) {
         assert classPath != null;
         assert testClass != null;
@@ -0,0 +1,125 @@
+package trufflesom.interpreter;
+
+import trufflesom.interpreter.nodes.ArgumentReadNode.LocalArgumentReadNode;
+import trufflesom.interpreter.nodes.ArgumentReadNode.LocalSuperReadNode;
+import trufflesom.interpreter.nodes.ExpressionNode;
+import trufflesom.interpreter.nodes.FieldNode.FieldReadNode;
+import trufflesom.interpreter.nodes.FieldNode.FieldWriteNode;
+import trufflesom.interpreter.nodes.SequenceNode;
+import trufflesom.interpreter.nodes.dispatch.AbstractDispatchNode;
+import trufflesom.interpreter.nodes.dispatch.AbstractDispatchNode.AbstractCachedDispatchNode;
+import trufflesom.interpreter.nodes.dispatch.CachedTrivialDispatchNode.CachedConstantNode;
+import trufflesom.interpreter.nodes.dispatch.CachedTrivialDispatchNode.CachedFieldReadNode;
+import trufflesom.interpreter.nodes.dispatch.CachedTrivialDispatchNode.CachedFieldWriteNode;
+import trufflesom.interpreter.nodes.dispatch.DispatchGuard;
+import trufflesom.interpreter.nodes.literals.BigIntegerLiteralNode;
+import trufflesom.interpreter.nodes.literals.DoubleLiteralNode;
+import trufflesom.interpreter.nodes.literals.IntegerLiteralNode;
+import trufflesom.interpreter.nodes.literals.StringLiteralNode;
+import trufflesom.interpreter.nodes.literals.SymbolLiteralNode;
+
+
+/**
+ * A method with a trivial body, i.e., {@code ^field}, {@code field := arg},
+ * or {@code ^literal}. Such methods are detected when they are assembled,
+ * and the dispatch chain inlines them as field access or constant, instead
+ * of calling them.
+ */
+public abstract class TrivialMethod {
+
+  public abstract AbstractCachedDispatchNode createDispatchNode(DispatchGuard guard,
+      AbstractDispatchNode nextInCache);
+
+  /** @return the trivial method for a method body, or null, if it is not trivial */
+  public static TrivialMethod create(final ExpressionNode body) {
+    if (body instanceof FieldReadNode) {
+      FieldReadNode read = (FieldReadNode) body;
+      if (read.isFieldOfSelf()) {
+        return new FieldGetter(read.getFieldIndex());
+      }
+    } else if (body instanceof FieldWriteNode) {
+      // ^ field := arg
+      return createSetter((FieldWriteNode) body, false);
+    } else if (body instanceof SequenceNode) {
+      // field := arg. ^ self
+      ExpressionNode[] exps = ((SequenceNode) body).getExpressions();
+      if (exps.length == 2 && exps[0] instanceof FieldWriteNode
+          && getArgumentIndex(exps[1]) == 0) {
+        return createSetter((FieldWriteNode) exps[0], true);
+      }
+    } else if (isConstant(body)) {
+      return new Constant(body.executeGeneric(null));
+    }
+    return null;
+  }
+
+  private static TrivialMethod createSetter(final FieldWriteNode write,
+      final boolean returnsSelf) {
+    int argIdx = getArgumentIndex(write.getValue());
+    if (write.isFieldOfSelf() && argIdx > 0) {
+      return new FieldSetter(write.getFieldIndex(), argIdx, returnsSelf);
+    }
+    return null;
+  }
+
+  private static int getArgumentIndex(final ExpressionNode node) {
+    if (node instanceof LocalArgumentReadNode && !(node instanceof LocalSuperReadNode)) {
+      return ((LocalArgumentReadNode) node).getArgumentIndex();
+    }
+    return -1;
+  }
+
+  /** Blocks and array literals evaluate to a new object, and are not constant. */
+  private static boolean isConstant(final ExpressionNode node) {
+    return node instanceof IntegerLiteralNode || node instanceof BigIntegerLiteralNode
+        || node instanceof DoubleLiteralNode || node instanceof StringLiteralNode
+        || node instanceof SymbolLiteralNode;
+  }
+
+  private static final class FieldGetter extends TrivialMethod {
+    private final int fieldIndex;
+
+    FieldGetter(final int fieldIndex) {
+      this.fieldIndex = fieldIndex;
+    }
+
+    @Override
+    public AbstractCachedDispatchNode createDispatchNode(final DispatchGuard guard,
+        final AbstractDispatchNode nextInCache) {
+      return new CachedFieldReadNode(fieldIndex, guard, nextInCache);
+    }
+  }
+
+  private static final class FieldSetter extends TrivialMethod {
+    private final int     fieldIndex;
+    private final int     argumentIndex;
+    private final boolean returnsSelf;
+
+    FieldSetter(final int fieldIndex, final int argumentIndex, final boolean returnsSelf) {
+      this.fieldIndex = fieldIndex;
+      this.argumentIndex = argumentIndex;
+      this.returnsSelf = returnsSelf;
+    }
+
+    @Override
+    public AbstractCachedDispatchNode createDispatchNode(final DispatchGuard guard,
+        final AbstractDispatchNode nextInCache) {
+      return new CachedFieldWriteNode(fieldIndex, argumentIndex, returnsSelf, guard,
+          nextInCache);
+    }
+  }
+
+  private static final class Constant extends TrivialMethod {
+    private final Object value;
+
+    Constant(final Object value) {
+      this.value = value;
+    }
+
+    @Override
+    public AbstractCachedDispatchNode createDispatchNode(final DispatchGuard guard,
+        final AbstractDispatchNode nextInCache) {
+      return new CachedConstantNode(value, guard, nextInCache);
+    }
+  }
+}
@@ -24,8 +24,10 @@ package trufflesom.interpreter;
 import java.math.BigInteger;
 
 import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.dsl.ImplicitCast;
 import com.oracle.truffle.api.dsl.TypeSystem;
 
+import trufflesom.primitives.arithmetic.Int128;
 import trufflesom.vm.Universe;
 import trufflesom.vmobjects.SAbstractObject;
 import trufflesom.vmobjects.SArray;
@@ -33,11 +35,13 @@ import trufflesom.vmobjects.SBlock;
 import trufflesom.vmobjects.SClass;
 import trufflesom.vmobjects.SInvokable;
 import trufflesom.vmobjects.SObject;
+import trufflesom.vmobjects.SRope;
 import trufflesom.vmobjects.SSymbol;
 
 
 @TypeSystem({boolean.class,
     long.class,
+    Int128.class,
     BigInteger.class,
     String.class,
     double.class,
@@ -47,10 +51,23 @@ import trufflesom.vmobjects.SSymbol;
     SSymbol.class,
     SInvokable.class,
     SArray.class,
+    SRope.class,
     SAbstractObject.class,
     Object[].class}) // Object[] is only for argument passing
 public class Types {
 
+  /** Ropes are flattened when a primitive needs the actual string. */
+  @ImplicitCast
+  public static String castRope(final SRope rope) {
+    return rope.flatten();
+  }
+
+  /** Primitives without a specialization for {@link Int128} handle it as BigInteger. */
+  @ImplicitCast
+  public static BigInteger castInt128(final Int128 value) {
+    return value.toBigInteger();
+  }
+
   public static SClass getClassOf(final Object obj, final Universe universe) {
     CompilerAsserts.neverPartOfCompilation();
     assert obj != null;
@@ -63,7 +80,7 @@ public class Types {
       } else {
         return universe.getFalseClass();
       }
-    } else if (obj instanceof Long || obj instanceof BigInteger) {
+    } else if (obj instanceof Long || obj instanceof Int128 || obj instanceof BigInteger) {
       return universe.integerClass;
     } else if (obj instanceof String) {
       return universe.stringClass;
@@ -29,6 +29,10 @@ public abstract class ArgumentReadNode {
       assert useInPrim;
     }
 
+    public final int getArgumentIndex() {
+      return argumentIndex;
+    }
+
     @Override
     public final Object executeGeneric(final VirtualFrame frame) {
       return SArguments.arg(frame, argumentIndex);
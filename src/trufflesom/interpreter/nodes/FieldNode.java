@@ -27,6 +27,8 @@ import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.UnexpectedResultException;
 
+import trufflesom.interpreter.nodes.ArgumentReadNode.LocalArgumentReadNode;
+import trufflesom.interpreter.nodes.ArgumentReadNode.LocalSuperReadNode;
 import trufflesom.interpreter.objectstorage.FieldAccessorNode;
 import trufflesom.interpreter.objectstorage.FieldAccessorNode.AbstractReadFieldNode;
 import trufflesom.interpreter.objectstorage.FieldAccessorNode.AbstractWriteFieldNode;
@@ -37,6 +39,15 @@ public abstract class FieldNode extends ExpressionNode {
 
   protected abstract ExpressionNode getSelf();
 
+  public abstract int getFieldIndex();
+
+  /** @return true, if the field belongs to the receiver of the method */
+  public final boolean isFieldOfSelf() {
+    ExpressionNode self = getSelf();
+    return self instanceof LocalArgumentReadNode && !(self instanceof LocalSuperReadNode)
+        && ((LocalArgumentReadNode) self).getArgumentIndex() == 0;
+  }
+
   public static final class FieldReadNode extends FieldNode
       implements PreevaluatedExpression {
     @Child private ExpressionNode        self;
@@ -52,6 +63,11 @@ public abstract class FieldNode extends ExpressionNode {
       return self;
     }
 
+    @Override
+    public int getFieldIndex() {
+      return read.getFieldIndex();
+    }
+
     public Object executeEvaluated(final SObject obj) {
       return read.read(obj);
     }
@@ -97,6 +113,13 @@ public abstract class FieldNode extends ExpressionNode {
       write = FieldAccessorNode.createWrite(fieldIndex);
     }
 
+    public abstract ExpressionNode getValue();
+
+    @Override
+    public final int getFieldIndex() {
+      return write.getFieldIndex();
+    }
+
     public final Object executeEvaluated(final VirtualFrame frame,
         final SObject self, final Object value) {
       return write.write(self, value);
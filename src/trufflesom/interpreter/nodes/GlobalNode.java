@@ -45,6 +45,12 @@ public abstract class GlobalNode extends ExpressionNode {
   public abstract static class AbstractUninitializedGlobalReadNode extends GlobalNode {
     protected final Universe universe;
 
+    /**
+     * Set once this node was replaced. Threads that raced on specializing it
+     * continue with the replacement instead of specializing it again.
+     */
+    private GlobalNode replacement;
+
     public AbstractUninitializedGlobalReadNode(final SSymbol globalName,
         final SourceSection source, final Universe universe) {
       super(globalName);
@@ -58,26 +64,41 @@ public abstract class GlobalNode extends ExpressionNode {
     public Object executeGeneric(final VirtualFrame frame) {
       TruffleCompiler.transferToInterpreterAndInvalidate("Uninitialized Global Node");
 
+      GlobalNode next = atomic(() -> {
+        if (replacement == null) {
+          replacement = specialize();
+        }
+        return replacement;
+      });
+
+      if (next == null) {
+        return executeUnknownGlobal(frame);
+      }
+      return next.executeGeneric(frame);
+    }
+
+    /** @return the replacement, or null if the global is not yet defined */
+    private GlobalNode specialize() {
       // first let's check whether it is one of the well known globals
       switch (globalName.getString()) {
         case "true":
           return replace((GlobalNode) new TrueGlobalNode(
-              globalName).initialize(sourceSection)).executeGeneric(frame);
+              globalName).initialize(sourceSection));
         case "false":
           return replace((GlobalNode) new FalseGlobalNode(
-              globalName).initialize(sourceSection)).executeGeneric(frame);
+              globalName).initialize(sourceSection));
         case "nil":
           return replace((GlobalNode) new NilGlobalNode(
-              globalName).initialize(sourceSection)).executeGeneric(frame);
+              globalName).initialize(sourceSection));
       }
 
       // Get the global from the universe
       Association assoc = universe.getGlobalsAssociation(globalName);
       if (assoc != null) {
         return replace((GlobalNode) new CachedGlobalReadNode(
-            globalName, assoc, sourceSection)).executeGeneric(frame);
+            globalName, assoc, sourceSection));
       } else {
-        return executeUnknownGlobal(frame);
+        return null;
       }
     }
   }
@@ -90,6 +90,12 @@ public final class MessageSendNode {
     protected final SSymbol  selector;
     protected final Universe universe;
 
+    /**
+     * Set once this node was replaced. Threads that raced on specializing it
+     * continue with the replacement instead of specializing it again.
+     */
+    private PreevaluatedExpression replacement;
+
     protected AbstractUninitializedMessageSendNode(final SSymbol selector,
         final ExpressionNode[] arguments, final Universe universe) {
       super(arguments);
@@ -100,12 +106,17 @@ public final class MessageSendNode {
     @Override
     public final Object doPreEvaluated(final VirtualFrame frame,
         final Object[] arguments) {
-      return specialize(arguments).doPreEvaluated(frame, arguments);
+      TruffleCompiler.transferToInterpreterAndInvalidate("Specialize Message Node");
+      PreevaluatedExpression next = atomic(() -> {
+        if (replacement == null) {
+          replacement = specialize(arguments);
+        }
+        return replacement;
+      });
+      return next.doPreEvaluated(frame, arguments);
     }
 
     private PreevaluatedExpression specialize(final Object[] arguments) {
-      TruffleCompiler.transferToInterpreterAndInvalidate("Specialize Message Node");
-
       // first option is a super send, super sends are treated specially because
       // the receiver class is lexically determined
       if (isSuperSend()) {
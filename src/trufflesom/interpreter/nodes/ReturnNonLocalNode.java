@@ -21,6 +21,7 @@
  */
 package trufflesom.interpreter.nodes;
 
+import com.oracle.truffle.api.frame.Frame;
 import com.oracle.truffle.api.frame.FrameSlot;
 import com.oracle.truffle.api.frame.FrameSlotKind;
 import com.oracle.truffle.api.frame.FrameUtil;
@@ -63,8 +64,22 @@ public final class ReturnNonLocalNode extends ContextualNode {
     this(node.expression, node.onStackMarkerVar, node.contextLevel, node.universe);
   }
 
-  private FrameOnStackMarker getMarkerFromContext(final MaterializedFrame ctx) {
-    return (FrameOnStackMarker) FrameUtil.getObjectSafe(ctx, frameOnStackMarker);
+  /**
+   * The marker is only allocated on the first non-local return to a frame.
+   * Before that, the slot is nil, as all slots of a new frame, and the frame
+   * is still on the stack, because the slot is set to
+   * {@link FrameOnStackMarker#NO_LONGER_ON_STACK} when the frame is left.
+   */
+  private static FrameOnStackMarker getOrCreateMarker(final Frame frame,
+      final FrameSlot slot) {
+    Object value = FrameUtil.getObjectSafe(frame, slot);
+    if (value instanceof FrameOnStackMarker) {
+      return (FrameOnStackMarker) value;
+    }
+
+    FrameOnStackMarker marker = new FrameOnStackMarker();
+    frame.setObject(slot, marker);
+    return marker;
   }
 
   @Override
@@ -72,7 +87,7 @@ public final class ReturnNonLocalNode extends ContextualNode {
     Object result = expression.executeGeneric(frame);
 
     MaterializedFrame ctx = determineContext(frame);
-    FrameOnStackMarker marker = getMarkerFromContext(ctx);
+    FrameOnStackMarker marker = getOrCreateMarker(ctx, frameOnStackMarker);
 
     if (marker.isOnStack()) {
       throw new ReturnException(result, marker);
@@ -125,8 +140,7 @@ public final class ReturnNonLocalNode extends ContextualNode {
     public Object executeGeneric(final VirtualFrame frame) {
       Object result = expression.executeGeneric(frame);
 
-      FrameOnStackMarker marker = (FrameOnStackMarker) FrameUtil.getObjectSafe(
-          frame, frameOnStackMarker);
+      FrameOnStackMarker marker = getOrCreateMarker(frame, frameOnStackMarker);
 
       // this ReturnLocalNode should only become part of an AST because of
       // inlining a literal block, and that block, should never be
@@ -181,26 +195,32 @@ public final class ReturnNonLocalNode extends ContextualNode {
       return methodBody;
     }
 
+    /**
+     * The marker is not allocated here, but only by a non-local return, see
+     * {@link ReturnNonLocalNode#getOrCreateMarker}. Thus, an exception may
+     * pass a frame whose slot is still nil. On exit, the slot is set to
+     * {@link FrameOnStackMarker#NO_LONGER_ON_STACK}, so that blocks that
+     * escaped can still detect that the frame is gone.
+     */
     @Override
     public Object executeGeneric(final VirtualFrame frame) {
-      FrameOnStackMarker marker = new FrameOnStackMarker();
       frameOnStackMarker.setKind(FrameSlotKind.Object);
-      frame.setObject(frameOnStackMarker, marker);
 
       try {
         return methodBody.executeGeneric(frame);
       } catch (ReturnException e) {
         nonLocalReturnHandler.enter();
-        if (!e.reachedTarget(marker)) {
+        Object marker = FrameUtil.getObjectSafe(frame, frameOnStackMarker);
+        if (!(marker instanceof FrameOnStackMarker)
+            || !e.reachedTarget((FrameOnStackMarker) marker)) {
           doPropagate.enter();
-          marker.frameNoLongerOnStack();
           throw e;
         } else {
           doCatch.enter();
           return e.result();
         }
       } finally {
-        marker.frameNoLongerOnStack();
+        frame.setObject(frameOnStackMarker, FrameOnStackMarker.NO_LONGER_ON_STACK);
       }
     }
 
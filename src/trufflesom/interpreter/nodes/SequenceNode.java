@@ -35,6 +35,10 @@ public final class SequenceNode extends ExpressionNode {
     this.expressions = expressions;
   }
 
+  public ExpressionNode[] getExpressions() {
+    return expressions;
+  }
+
   @Override
   public Object executeGeneric(final VirtualFrame frame) {
     executeAllButLast(frame);
@@ -19,30 +19,48 @@ import trufflesom.interpreter.nodes.NonLocalVariableNodeFactory.NonLocalVariable
 public abstract class UninitializedVariableNode extends ContextualNode {
   protected final Local variable;
 
+  /**
+   * Set once this node was replaced. Threads that raced on specializing it
+   * continue with the replacement instead of specializing it again.
+   */
+  private ExpressionNode replacement;
+
   public UninitializedVariableNode(final Local variable, final int contextLevel) {
     super(contextLevel);
     this.variable = variable;
   }
 
+  protected abstract ExpressionNode specialize();
+
+  @Override
+  public final Object executeGeneric(final VirtualFrame frame) {
+    transferToInterpreterAndInvalidate("UninitializedVariableNode");
+    ExpressionNode next = atomic(() -> {
+      if (replacement == null) {
+        replacement = specialize();
+      }
+      return replacement;
+    });
+    return next.executeGeneric(frame);
+  }
+
   public static final class UninitializedVariableReadNode extends UninitializedVariableNode {
     public UninitializedVariableReadNode(final Local variable, final int contextLevel) {
       super(variable, contextLevel);
     }
 
     @Override
-    public Object executeGeneric(final VirtualFrame frame) {
-      transferToInterpreterAndInvalidate("UninitializedVariableReadNode");
-
+    protected ExpressionNode specialize() {
       if (contextLevel > 0) {
         NonLocalVariableReadNode node = NonLocalVariableReadNodeGen.create(
             contextLevel, variable).initialize(sourceSection);
-        return replace(node).executeGeneric(frame);
+        return replace(node);
       } else {
         // assert frame.getFrameDescriptor().findFrameSlot(variable.getSlotIdentifier()) ==
         // variable.getSlot();
         LocalVariableReadNode node =
             LocalVariableReadNodeGen.create(variable).initialize(sourceSection);
-        return replace(node).executeGeneric(frame);
+        return replace(node);
       }
     }
 
@@ -62,20 +80,18 @@ public abstract class UninitializedVariableNode extends ContextualNode {
     }
 
     @Override
-    public Object executeGeneric(final VirtualFrame frame) {
-      transferToInterpreterAndInvalidate("UninitializedVariableWriteNode");
-
+    protected ExpressionNode specialize() {
       if (accessesOuterContext()) {
         NonLocalVariableWriteNode node = NonLocalVariableWriteNodeGen.create(
             contextLevel, variable, exp).initialize(sourceSection);
-        return replace(node).executeGeneric(frame);
+        return replace(node);
       } else {
         // not sure about removing this assertion :(((
         // assert frame.getFrameDescriptor().findFrameSlot(variable.getSlotIdentifier()) ==
         // variable.getSlot();
         LocalVariableWriteNode node =
             LocalVariableWriteNodeGen.create(variable, exp).initialize(sourceSection);
-        return replace(node).executeGeneric(frame);
+        return replace(node);
       }
     }
 
@@ -1,6 +1,7 @@
 package trufflesom.interpreter.nodes.dispatch;
 
 import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.DirectCallNode;
@@ -8,8 +9,15 @@ import com.oracle.truffle.api.nodes.Node;
 
 
 public abstract class AbstractDispatchNode extends Node implements DispatchChain {
+  /**
+   * Default size of inline caches. For message sends, it can be changed with
+   * the {@code som.INLINE_CACHE_SIZE} option.
+   */
   public static final int INLINE_CACHE_SIZE = 6;
 
+  /** Length reported by megamorphic dispatch nodes. */
+  public static final int MEGAMORPHIC_CHAIN_LENGTH = 1000;
+
   public abstract Object executeDispatch(VirtualFrame frame, Object[] arguments);
 
   public abstract static class AbstractCachedDispatchNode
@@ -18,6 +26,15 @@ public abstract class AbstractDispatchNode extends Node implements DispatchChain
     @Child protected DirectCallNode       cachedMethod;
     @Child protected AbstractDispatchNode nextInCache;
 
+    /** Number of times this entry matched, only counted in the interpreter. */
+    protected int hits;
+
+    /**
+     * Set once this entry was dropped from the chain. Threads that raced on
+     * dropping it continue with the replacement instead of dropping it again.
+     */
+    private AbstractDispatchNode replacement;
+
     public AbstractCachedDispatchNode(final CallTarget methodCallTarget,
         final AbstractDispatchNode nextInCache) {
       DirectCallNode cachedMethod =
@@ -27,6 +44,37 @@ public abstract class AbstractDispatchNode extends Node implements DispatchChain
       this.nextInCache = nextInCache;
     }
 
+    /** For entries that do not call a method, e.g., inlined trivial methods. */
+    public AbstractCachedDispatchNode(final AbstractDispatchNode nextInCache) {
+      this.cachedMethod = null;
+      this.nextInCache = nextInCache;
+    }
+
+    protected final void countHit() {
+      if (CompilerDirectives.inInterpreter()) {
+        hits += 1;
+      }
+    }
+
+    /** Drop this entry from the chain, after its guard became invalid. */
+    protected final AbstractDispatchNode dropInvalidEntry() {
+      CompilerDirectives.transferToInterpreter();
+      return atomic(() -> {
+        if (replacement == null) {
+          replacement = replace(nextInCache);
+        }
+        return replacement;
+      });
+    }
+
+    public final int getHits() {
+      return hits;
+    }
+
+    public final AbstractDispatchNode getNext() {
+      return nextInCache;
+    }
+
     @Override
     public final int lengthOfDispatchChain() {
       return 1 + nextInCache.lengthOfDispatchChain();
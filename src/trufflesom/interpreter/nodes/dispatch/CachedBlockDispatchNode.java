@@ -0,0 +1,53 @@
+package trufflesom.interpreter.nodes.dispatch;
+
+import com.oracle.truffle.api.RootCallTarget;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.NodeUtil;
+
+import trufflesom.interpreter.nodes.dispatch.AbstractDispatchNode.AbstractCachedDispatchNode;
+import trufflesom.vmobjects.SBlock;
+import trufflesom.vmobjects.SInvokable;
+
+
+/**
+ * Cache entry for a block method at a value primitive, e.g., value: or do:.
+ *
+ * <p>
+ * The call target of a small block is cloned for the call site and always
+ * inlined. Thus, after partial evaluation, the argument array and, if the
+ * block does not escape otherwise, the block and its materialized context
+ * are virtual, and a tight {@code do:} loop does not allocate for the block
+ * invocations. Larger blocks are left to Truffle's inlining heuristics, so
+ * that they do not bypass the inlining budget.
+ */
+public final class CachedBlockDispatchNode extends AbstractCachedDispatchNode {
+
+  /** The maximal number of AST nodes of a block that is always inlined. */
+  private static final int MAX_FORCED_INLINING_SIZE = 100;
+
+  private final SInvokable method;
+
+  public CachedBlockDispatchNode(final SInvokable method,
+      final AbstractDispatchNode nextInCache) {
+    super(method.getCallTarget(), nextInCache);
+    this.method = method;
+
+    RootCallTarget target = (RootCallTarget) cachedMethod.getCallTarget();
+    if (NodeUtil.countNodes(target.getRootNode()) <= MAX_FORCED_INLINING_SIZE) {
+      if (cachedMethod.isCallTargetCloningAllowed()) {
+        cachedMethod.cloneCallTarget();
+      }
+      cachedMethod.forceInlining();
+    }
+  }
+
+  @Override
+  public Object executeDispatch(final VirtualFrame frame, final Object[] arguments) {
+    if (((SBlock) arguments[0]).getMethod() == method) {
+      countHit();
+      return cachedMethod.call(arguments);
+    } else {
+      return nextInCache.executeDispatch(frame, arguments);
+    }
+  }
+}
@@ -1,7 +1,6 @@
 package trufflesom.interpreter.nodes.dispatch;
 
 import com.oracle.truffle.api.CallTarget;
-import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.InvalidAssumptionException;
 
@@ -24,13 +23,13 @@ public final class CachedDispatchNode extends AbstractCachedDispatchNode {
     Object rcvr = arguments[0];
     try {
       if (guard.entryMatches(rcvr)) {
+        countHit();
         return cachedMethod.call(arguments);
       } else {
         return nextInCache.executeDispatch(frame, arguments);
       }
     } catch (InvalidAssumptionException e) {
-      CompilerDirectives.transferToInterpreter();
-      return replace(nextInCache).executeDispatch(frame, arguments);
+      return dropInvalidEntry().executeDispatch(frame, arguments);
     }
   }
 }
@@ -1,20 +1,21 @@
 package trufflesom.interpreter.nodes.dispatch;
 
 import com.oracle.truffle.api.CallTarget;
-import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.InvalidAssumptionException;
 
 import trufflesom.interpreter.SArguments;
 import trufflesom.interpreter.nodes.dispatch.AbstractDispatchNode.AbstractCachedDispatchNode;
+import trufflesom.vm.DispatchProfiler;
 import trufflesom.vm.Universe;
 import trufflesom.vmobjects.SClass;
 import trufflesom.vmobjects.SSymbol;
 
 
 public final class CachedDnuNode extends AbstractCachedDispatchNode {
-  private final SSymbol       selector;
-  private final DispatchGuard guard;
+  private final SSymbol          selector;
+  private final DispatchGuard    guard;
+  private final DispatchProfiler profiler;
 
   public CachedDnuNode(final SClass rcvrClass, final DispatchGuard guard,
       final SSymbol selector, final AbstractDispatchNode nextInCache,
@@ -22,6 +23,7 @@ public final class CachedDnuNode extends AbstractCachedDispatchNode {
     super(getDnuCallTarget(rcvrClass, universe), nextInCache);
     this.selector = selector;
     this.guard = guard;
+    this.profiler = universe.getDispatchProfiler();
   }
 
   @Override
@@ -29,13 +31,13 @@ public final class CachedDnuNode extends AbstractCachedDispatchNode {
     Object rcvr = arguments[0];
     try {
       if (guard.entryMatches(rcvr)) {
+        countHit();
         return performDnu(arguments, rcvr);
       } else {
         return nextInCache.executeDispatch(frame, arguments);
       }
     } catch (InvalidAssumptionException e) {
-      CompilerDirectives.transferToInterpreter();
-      return replace(nextInCache).executeDispatch(frame, arguments);
+      return dropInvalidEntry().executeDispatch(frame, arguments);
     }
   }
 
@@ -45,6 +47,9 @@ public final class CachedDnuNode extends AbstractCachedDispatchNode {
   }
 
   protected Object performDnu(final Object[] arguments, final Object rcvr) {
+    if (profiler != null) {
+      profiler.recordDnu(this, selector);
+    }
     Object[] argsArr = new Object[] {
         rcvr, selector, SArguments.getArgumentsWithoutReceiver(arguments)};
     return cachedMethod.call(argsArr);
@@ -0,0 +1,96 @@
+package trufflesom.interpreter.nodes.dispatch;
+
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.InvalidAssumptionException;
+
+import trufflesom.interpreter.nodes.dispatch.AbstractDispatchNode.AbstractCachedDispatchNode;
+import trufflesom.interpreter.objectstorage.FieldAccessorNode;
+import trufflesom.interpreter.objectstorage.FieldAccessorNode.AbstractReadFieldNode;
+import trufflesom.interpreter.objectstorage.FieldAccessorNode.AbstractWriteFieldNode;
+import trufflesom.vmobjects.SObject;
+
+
+/**
+ * Cache entry for a trivial method, see {@link trufflesom.interpreter.TrivialMethod}.
+ * Instead of calling the method, the entry reads or writes the field of the
+ * receiver directly, or returns the constant.
+ */
+public abstract class CachedTrivialDispatchNode extends AbstractCachedDispatchNode {
+
+  private final DispatchGuard guard;
+
+  protected CachedTrivialDispatchNode(final DispatchGuard guard,
+      final AbstractDispatchNode nextInCache) {
+    super(nextInCache);
+    this.guard = guard;
+  }
+
+  protected abstract Object executeTrivial(Object[] arguments);
+
+  @Override
+  public final Object executeDispatch(final VirtualFrame frame, final Object[] arguments) {
+    Object rcvr = arguments[0];
+    try {
+      if (guard.entryMatches(rcvr)) {
+        countHit();
+        return executeTrivial(arguments);
+      } else {
+        return nextInCache.executeDispatch(frame, arguments);
+      }
+    } catch (InvalidAssumptionException e) {
+      return dropInvalidEntry().executeDispatch(frame, arguments);
+    }
+  }
+
+  public static final class CachedFieldReadNode extends CachedTrivialDispatchNode {
+    @Child private AbstractReadFieldNode read;
+
+    public CachedFieldReadNode(final int fieldIndex, final DispatchGuard guard,
+        final AbstractDispatchNode nextInCache) {
+      super(guard, nextInCache);
+      this.read = FieldAccessorNode.createRead(fieldIndex);
+    }
+
+    @Override
+    protected Object executeTrivial(final Object[] arguments) {
+      return read.read((SObject) arguments[0]);
+    }
+  }
+
+  public static final class CachedFieldWriteNode extends CachedTrivialDispatchNode {
+    @Child private AbstractWriteFieldNode write;
+
+    private final int     argumentIndex;
+    private final boolean returnsSelf;
+
+    public CachedFieldWriteNode(final int fieldIndex, final int argumentIndex,
+        final boolean returnsSelf, final DispatchGuard guard,
+        final AbstractDispatchNode nextInCache) {
+      super(guard, nextInCache);
+      this.write = FieldAccessorNode.createWrite(fieldIndex);
+      this.argumentIndex = argumentIndex;
+      this.returnsSelf = returnsSelf;
+    }
+
+    @Override
+    protected Object executeTrivial(final Object[] arguments) {
+      Object value = write.write((SObject) arguments[0], arguments[argumentIndex]);
+      return returnsSelf ? arguments[0] : value;
+    }
+  }
+
+  public static final class CachedConstantNode extends CachedTrivialDispatchNode {
+    private final Object value;
+
+    public CachedConstantNode(final Object value, final DispatchGuard guard,
+        final AbstractDispatchNode nextInCache) {
+      super(guard, nextInCache);
+      this.value = value;
+    }
+
+    @Override
+    protected Object executeTrivial(final Object[] arguments) {
+      return value;
+    }
+  }
+}
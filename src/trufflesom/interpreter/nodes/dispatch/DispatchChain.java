@@ -13,7 +13,7 @@ public interface DispatchChain {
         return NodeCost.UNINITIALIZED;
       } else if (dispatchChain == 1) {
         return NodeCost.MONOMORPHIC;
-      } else if (dispatchChain <= AbstractDispatchNode.INLINE_CACHE_SIZE) {
+      } else if (dispatchChain < AbstractDispatchNode.MEGAMORPHIC_CHAIN_LENGTH) {
         return NodeCost.POLYMORPHIC;
       } else {
         return NodeCost.MEGAMORPHIC;
@@ -1,11 +1,18 @@
 package trufflesom.interpreter.nodes.dispatch;
 
+import static trufflesom.interpreter.TruffleCompiler.transferToInterpreterAndInvalidate;
+
+import java.util.Arrays;
+
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.nodes.InvalidAssumptionException;
 
-import trufflesom.interpreter.objectstorage.ObjectLayout;
-import trufflesom.vmobjects.SBlock;
+import trufflesom.interpreter.Types;
+import trufflesom.vm.Universe;
 import trufflesom.vmobjects.SClass;
-import trufflesom.vmobjects.SInvokable;
 import trufflesom.vmobjects.SObject;
 
 
@@ -21,32 +28,25 @@ public abstract class DispatchGuard {
       return new CheckFalse();
     }
 
-    if (obj instanceof SClass) {
-      return new CheckSClass(((SClass) obj).getObjectLayout());
-    }
-
     if (obj instanceof SObject) {
-      return new CheckSObject(((SObject) obj).getObjectLayout());
+      return new CheckSObject(((SObject) obj).getSOMClass());
     }
 
     return new CheckClass(obj.getClass());
   }
 
-  public static DispatchGuard createForBlock(final SBlock block) {
-    return new BlockMethod(block.getMethod());
-  }
-
-  private static final class BlockMethod extends DispatchGuard {
-    private final SInvokable expected;
-
-    BlockMethod(final SInvokable method) {
-      this.expected = method;
-    }
-
-    @Override
-    public boolean entryMatches(final Object obj) throws InvalidAssumptionException {
-      return ((SBlock) obj).getMethod() == expected;
+  /**
+   * Guard for a method that is the only implementation of its selector, which
+   * matches all instances of the method's holder and its subclasses. If the
+   * holder is the root of the class hierarchy, i.e., Object, it matches every
+   * receiver, and only the assumption needs to be checked.
+   */
+  public static DispatchGuard createForSingleImplementation(final SClass holder,
+      final Assumption singleImplementation, final Universe universe) {
+    if (!holder.hasSuperClass()) {
+      return new CheckSingleImplementation(singleImplementation);
     }
+    return new CheckSingleImplementationInSubclass(holder, singleImplementation, universe);
   }
 
   private static final class CheckClass extends DispatchGuard {
@@ -77,35 +77,104 @@ public abstract class DispatchGuard {
     }
   }
 
-  private static final class CheckSClass extends DispatchGuard {
+  /**
+   * Objects are checked for their class and not for their layout, because
+   * the method lookup only depends on the class. Thus, layout changes do not
+   * invalidate dispatch chains.
+   */
+  private static final class CheckSObject extends DispatchGuard {
 
-    private final ObjectLayout expected;
+    private final SClass expected;
 
-    CheckSClass(final ObjectLayout expected) {
+    CheckSObject(final SClass expected) {
       this.expected = expected;
     }
 
     @Override
     public boolean entryMatches(final Object obj) throws InvalidAssumptionException {
-      expected.checkIsLatest();
-      return obj instanceof SClass &&
-          ((SClass) obj).getObjectLayout() == expected;
+      return obj instanceof SObject &&
+          ((SObject) obj).getSOMClass() == expected;
     }
   }
 
-  private static final class CheckSObject extends DispatchGuard {
+  private static final class CheckSingleImplementation extends DispatchGuard {
 
-    private final ObjectLayout expected;
+    private final Assumption singleImplementation;
 
-    CheckSObject(final ObjectLayout expected) {
-      this.expected = expected;
+    CheckSingleImplementation(final Assumption singleImplementation) {
+      this.singleImplementation = singleImplementation;
     }
 
     @Override
     public boolean entryMatches(final Object obj) throws InvalidAssumptionException {
-      expected.checkIsLatest();
-      return obj instanceof SObject &&
-          ((SObject) obj).getObjectLayout() == expected;
+      singleImplementation.check();
+      return true;
+    }
+  }
+
+  /**
+   * The superclass chain is only walked for a receiver class that the guard
+   * has not seen before. Afterwards, the guard checks the receiver with the
+   * class guard of {@link DispatchGuard#create(Object)} and returns the cached
+   * result. When more classes are seen than fit into the cache, the chain is
+   * walked for the others on every call.
+   */
+  private static final class CheckSingleImplementationInSubclass extends DispatchGuard {
+
+    private static final int MAX_SEEN_CLASSES = AbstractDispatchNode.INLINE_CACHE_SIZE;
+
+    private final SClass     holder;
+    private final Assumption singleImplementation;
+    private final Universe   universe;
+
+    @CompilationFinal(dimensions = 1) private SeenClass[] seenClasses;
+
+    CheckSingleImplementationInSubclass(final SClass holder,
+        final Assumption singleImplementation, final Universe universe) {
+      this.holder = holder;
+      this.singleImplementation = singleImplementation;
+      this.universe = universe;
+      this.seenClasses = new SeenClass[0];
+    }
+
+    @TruffleBoundary
+    private boolean inheritsFromHolder(final Object obj) {
+      return Types.getClassOf(obj, universe).isSubclassOf(holder);
+    }
+
+    @Override
+    @ExplodeLoop
+    public boolean entryMatches(final Object obj) throws InvalidAssumptionException {
+      singleImplementation.check();
+
+      SeenClass[] seen = seenClasses;
+      for (SeenClass s : seen) {
+        if (s.guard.entryMatches(obj)) {
+          return s.inheritsFromHolder;
+        }
+      }
+
+      if (seen.length >= MAX_SEEN_CLASSES) {
+        return inheritsFromHolder(obj);
+      }
+
+      transferToInterpreterAndInvalidate("New receiver class for a single implementation.");
+      boolean inherits = inheritsFromHolder(obj);
+
+      SeenClass[] extended = Arrays.copyOf(seen, seen.length + 1);
+      extended[seen.length] = new SeenClass(DispatchGuard.create(obj), inherits);
+      seenClasses = extended;
+      return inherits;
+    }
+  }
+
+  private static final class SeenClass {
+    private final DispatchGuard guard;
+    private final boolean       inheritsFromHolder;
+
+    SeenClass(final DispatchGuard guard, final boolean inheritsFromHolder) {
+      this.guard = guard;
+      this.inheritsFromHolder = inheritsFromHolder;
     }
   }
 }
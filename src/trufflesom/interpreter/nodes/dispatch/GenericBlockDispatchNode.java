@@ -19,6 +19,6 @@ public final class GenericBlockDispatchNode extends AbstractDispatchNode {
 
   @Override
   public int lengthOfDispatchChain() {
-    return 1000;
+    return MEGAMORPHIC_CHAIN_LENGTH;
   }
 }
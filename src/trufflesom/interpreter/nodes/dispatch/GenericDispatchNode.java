@@ -7,6 +7,8 @@ import com.oracle.truffle.api.nodes.IndirectCallNode;
 
 import trufflesom.interpreter.SArguments;
 import trufflesom.interpreter.Types;
+import trufflesom.vm.DispatchProfiler;
+import trufflesom.vm.MethodLookupCache;
 import trufflesom.vm.Universe;
 import trufflesom.vmobjects.SArray;
 import trufflesom.vmobjects.SClass;
@@ -18,10 +20,14 @@ public final class GenericDispatchNode extends AbstractDispatchNode {
   @Child private IndirectCallNode call;
   protected final SSymbol         selector;
   private final Universe          universe;
+  private final DispatchProfiler  profiler;
+  private final MethodLookupCache lookupCache;
 
   public GenericDispatchNode(final SSymbol selector, final Universe universe) {
     this.selector = selector;
     this.universe = universe;
+    this.profiler = universe.getDispatchProfiler();
+    this.lookupCache = universe.getMethodLookupCache();
     call = Truffle.getRuntime().createIndirectCallNode();
   }
 
@@ -30,7 +36,11 @@ public final class GenericDispatchNode extends AbstractDispatchNode {
       final VirtualFrame frame, final Object[] arguments) {
     Object rcvr = arguments[0];
     SClass rcvrClass = Types.getClassOf(rcvr, universe);
-    SInvokable method = rcvrClass.lookupInvokable(selector);
+    SInvokable method = lookupCache.lookup(rcvrClass, selector);
+
+    if (profiler != null) {
+      profiler.recordReceiver(this, selector, rcvrClass);
+    }
 
     CallTarget target;
     Object[] args;
@@ -40,6 +50,9 @@ public final class GenericDispatchNode extends AbstractDispatchNode {
       args = arguments;
     } else {
       // Won't use DNU caching here, because it is already a megamorphic node
+      if (profiler != null) {
+        profiler.recordDnu(this, selector);
+      }
       SArray argumentsArray = SArguments.getArgumentsWithoutReceiver(arguments);
       args = new Object[] {arguments[0], selector, argumentsArray};
       target = CachedDnuNode.getDnuCallTarget(rcvrClass, universe);
@@ -49,6 +62,6 @@ public final class GenericDispatchNode extends AbstractDispatchNode {
 
   @Override
   public int lengthOfDispatchChain() {
-    return 1000;
+    return MEGAMORPHIC_CHAIN_LENGTH;
   }
 }
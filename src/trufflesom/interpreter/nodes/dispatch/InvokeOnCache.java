@@ -29,13 +29,17 @@ public abstract class InvokeOnCache extends Node implements DispatchChain {
 
   private static final class UninitializedDispatchNode extends InvokeOnCache {
 
+    /**
+     * Set once this node was replaced. Threads that raced on specializing it
+     * continue with the replacement instead of specializing it again.
+     */
+    private InvokeOnCache replacement;
+
     UninitializedDispatchNode(final int depth) {
       super(depth);
     }
 
     private InvokeOnCache specialize(final SInvokable invokable) {
-      transferToInterpreterAndInvalidate("Initialize a dispatch node.");
-
       if (depth < INLINE_CACHE_SIZE) {
         CachedDispatchNode specialized = new CachedDispatchNode(invokable,
             new UninitializedDispatchNode(depth + 1),
@@ -51,7 +55,14 @@ public abstract class InvokeOnCache extends Node implements DispatchChain {
     @Override
     public Object executeDispatch(final VirtualFrame frame,
         final SInvokable invokable, final Object[] arguments) {
-      return specialize(invokable).executeDispatch(frame, invokable, arguments);
+      transferToInterpreterAndInvalidate("Initialize a dispatch node.");
+      InvokeOnCache next = atomic(() -> {
+        if (replacement == null) {
+          replacement = specialize(invokable);
+        }
+        return replacement;
+      });
+      return next.executeDispatch(frame, invokable, arguments);
     }
 
     private InvokeOnCache determineChainHead() {
@@ -31,6 +31,12 @@ public abstract class SuperDispatchNode extends AbstractDispatchNode {
     private final boolean  classSide;
     private final Universe universe;
 
+    /**
+     * Set once this node was replaced. Threads that raced on specializing it
+     * continue with the replacement instead of specializing it again.
+     */
+    private SuperDispatchNode replacement;
+
     private UninitializedDispatchNode(final SSymbol selector,
         final SSymbol holderClass, final boolean classSide, final Universe universe) {
       this.selector = selector;
@@ -62,7 +68,13 @@ public abstract class SuperDispatchNode extends AbstractDispatchNode {
     @Override
     public Object executeDispatch(
         final VirtualFrame frame, final Object[] arguments) {
-      return specialize().executeDispatch(frame, arguments);
+      SuperDispatchNode next = atomic(() -> {
+        if (replacement == null) {
+          replacement = specialize();
+        }
+        return replacement;
+      });
+      return next.executeDispatch(frame, arguments);
     }
   }
 
@@ -2,30 +2,61 @@ package trufflesom.interpreter.nodes.dispatch;
 
 import static trufflesom.interpreter.TruffleCompiler.transferToInterpreterAndInvalidate;
 
-import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.Node;
 
+import trufflesom.interpreter.Invokable;
+import trufflesom.interpreter.Method;
+import trufflesom.interpreter.SomLanguage;
+import trufflesom.interpreter.TrivialMethod;
 import trufflesom.interpreter.Types;
 import trufflesom.interpreter.nodes.MessageSendNode.GenericMessageSendNode;
+import trufflesom.vm.DispatchProfiler;
 import trufflesom.vm.Universe;
 import trufflesom.vmobjects.SClass;
 import trufflesom.vmobjects.SInvokable;
-import trufflesom.vmobjects.SObject;
 import trufflesom.vmobjects.SSymbol;
 
 
 public final class UninitializedDispatchNode extends AbstractDispatchNode {
+  /**
+   * Number of hits per miss above which a full inline cache may still grow,
+   * up to the maximum size.
+   */
+  private static final int MIN_HITS_PER_MISS_TO_GROW = 4;
+
   private final SSymbol  selector;
   private final Universe universe;
 
+  /**
+   * Number of times a receiver reached the end of the chain so far, including
+   * the misses of earlier ends of the chain. Unlike the chain depth, this also
+   * counts entries that were removed again, e.g., after an invalidation.
+   */
+  private final int misses;
+
+  /**
+   * Set once this node was replaced. Threads that raced on specializing it
+   * continue with the replacement instead of specializing it again.
+   */
+  private AbstractDispatchNode replacement;
+
   public UninitializedDispatchNode(final SSymbol selector, final Universe universe) {
+    this(selector, universe, 0);
+  }
+
+  private UninitializedDispatchNode(final SSymbol selector, final Universe universe,
+      final int misses) {
     this.selector = selector;
     this.universe = universe;
+    this.misses = misses;
   }
 
   private AbstractDispatchNode specialize(final Object[] arguments) {
-    transferToInterpreterAndInvalidate("Initialize a dispatch node.");
+    if (replacement != null) {
+      return replacement;
+    }
 
     // Determine position in dispatch node chain, i.e., size of inline cache
     Node i = this;
@@ -39,48 +70,111 @@ public final class UninitializedDispatchNode extends AbstractDispatchNode {
     Object rcvr = arguments[0];
     assert rcvr != null;
 
-    if (rcvr instanceof SObject) {
-      SObject r = (SObject) rcvr;
-      if (r.updateLayoutToMatchClass() && first != this) { // if first is this, short cut and
-                                                           // directly continue...
-        return first;
-      }
-    }
-
-    if (chainDepth < INLINE_CACHE_SIZE) {
+    if (canExtendChain(first, chainDepth)) {
       SClass rcvrClass = Types.getClassOf(rcvr, universe);
       SInvokable method = rcvrClass.lookupInvokable(selector);
-      CallTarget callTarget;
-      if (method != null) {
-        callTarget = method.getCallTarget();
-      } else {
-        callTarget = null;
-      }
 
       UninitializedDispatchNode newChainEnd =
-          new UninitializedDispatchNode(selector, universe);
-      DispatchGuard guard = DispatchGuard.create(rcvr);
+          new UninitializedDispatchNode(selector, universe, misses + 1);
       AbstractCachedDispatchNode node;
       if (method != null) {
-        node = new CachedDispatchNode(guard, callTarget, newChainEnd);
+        DispatchGuard guard = createGuard(rcvr, method, chainDepth);
+        TrivialMethod trivial = getTrivialMethod(method);
+        if (trivial != null) {
+          node = trivial.createDispatchNode(guard, newChainEnd);
+        } else {
+          node = new CachedDispatchNode(guard, method.getCallTarget(), newChainEnd);
+        }
       } else {
+        DispatchGuard guard = DispatchGuard.create(rcvr);
         node = new CachedDnuNode(rcvrClass, guard, selector, newChainEnd, universe);
       }
-      return replace(node);
+
+      DispatchProfiler profiler = universe.getDispatchProfiler();
+      if (profiler != null) {
+        profiler.recordCacheEntry(first, selector, rcvrClass, chainDepth + 1);
+      }
+      replacement = replace(node);
+      return replacement;
     }
 
-    // the chain is longer than the maximum defined by INLINE_CACHE_SIZE and
+    // the chain is longer than the inline cache size, and the receivers
+    // seen so far did not recur often enough to grow the cache further,
     // thus, this callsite is considered to be megaprophic, and we generalize
     // it.
+    DispatchProfiler profiler = universe.getDispatchProfiler();
+    if (profiler != null) {
+      profiler.recordMegamorphic(first, selector, Types.getClassOf(rcvr, universe));
+    }
+
     GenericDispatchNode genericReplacement = new GenericDispatchNode(selector, universe);
     GenericMessageSendNode sendNode = (GenericMessageSendNode) first.getParent();
     sendNode.replaceDispatchListHead(genericReplacement);
+    replacement = genericReplacement;
     return genericReplacement;
   }
 
+  private static TrivialMethod getTrivialMethod(final SInvokable method) {
+    Invokable invokable = method.getInvokable();
+    if (invokable instanceof Method) {
+      return ((Method) invokable).getTrivialMethod();
+    }
+    return null;
+  }
+
+  /**
+   * If the method is the only implementation of the selector, we bind it
+   * directly, under the assumption that no other class defines the selector.
+   * If it is implemented in Object, the send does not need to check the
+   * receiver at all. Otherwise, we only do it for a polymorphic send site,
+   * where it matches all receivers that inherit the method, because for a
+   * single receiver class, checking the class is cheaper than checking the
+   * assumption and the classes the shared entry has seen.
+   */
+  private DispatchGuard createGuard(final Object rcvr, final SInvokable method,
+      final int chainDepth) {
+    SClass holder = method.getHolder();
+    if (holder != null && (chainDepth > 0 || !holder.hasSuperClass())) {
+      Assumption singleImplementation =
+          selector.getImplementers().assumeSingleImplementation(method);
+      if (singleImplementation != null) {
+        return DispatchGuard.createForSingleImplementation(
+            holder, singleImplementation, universe);
+      }
+    }
+    return DispatchGuard.create(rcvr);
+  }
+
+  /**
+   * A send site may cache up to the configured inline cache size. Beyond
+   * that, we only grow the chain, up to the maximum size, if the site is hot
+   * and the receivers recur, i.e., the existing entries have been hit often
+   * compared to the number of misses at the end of the chain so far.
+   */
+  private boolean canExtendChain(final AbstractDispatchNode first, final int chainDepth) {
+    SomLanguage lang = universe.getLanguage();
+    if (chainDepth < lang.getInlineCacheSize()) {
+      return true;
+    }
+    if (chainDepth >= lang.getMaxInlineCacheSize()) {
+      return false;
+    }
+
+    long hits = 0;
+    AbstractDispatchNode n = first;
+    while (n instanceof AbstractCachedDispatchNode) {
+      AbstractCachedDispatchNode cached = (AbstractCachedDispatchNode) n;
+      hits += cached.getHits();
+      n = cached.getNext();
+    }
+    return hits >= (long) misses * MIN_HITS_PER_MISS_TO_GROW;
+  }
+
   @Override
   public Object executeDispatch(final VirtualFrame frame, final Object[] arguments) {
-    return specialize(arguments).executeDispatch(frame, arguments);
+    transferToInterpreterAndInvalidate("Initialize a dispatch node.");
+    AbstractDispatchNode next = atomic(() -> specialize(arguments));
+    return next.executeDispatch(frame, arguments);
   }
 
   @Override
@@ -13,8 +13,13 @@ import com.oracle.truffle.api.nodes.Node;
 public final class UninitializedValuePrimDispatchNode
     extends AbstractDispatchNode {
 
+  /** Set once this node was replaced, see {@link UninitializedDispatchNode}. */
+  private AbstractDispatchNode replacement;
+
   private AbstractDispatchNode specialize(final SBlock rcvr) {
-    transferToInterpreterAndInvalidate("Initialize a dispatch node.");
+    if (replacement != null) {
+      return replacement;
+    }
 
     // Determine position in dispatch node chain, i.e., size of inline cache
     Node i = this;
@@ -32,19 +37,20 @@ public final class UninitializedValuePrimDispatchNode
 
       UninitializedValuePrimDispatchNode uninitialized =
           new UninitializedValuePrimDispatchNode();
-      CachedDispatchNode node = new CachedDispatchNode(
-          DispatchGuard.createForBlock(rcvr), method.getCallTarget(), uninitialized);
-      return replace(node);
+      replacement = replace(new CachedBlockDispatchNode(method, uninitialized));
     } else {
       GenericBlockDispatchNode generic = new GenericBlockDispatchNode();
       primitiveNode.adoptNewDispatchListHead(generic);
-      return generic;
+      replacement = generic;
     }
+    return replacement;
   }
 
   @Override
   public Object executeDispatch(final VirtualFrame frame, final Object[] arguments) {
-    return specialize((SBlock) arguments[0]).executeDispatch(frame, arguments);
+    transferToInterpreterAndInvalidate("Initialize a dispatch node.");
+    AbstractDispatchNode next = atomic(() -> specialize((SBlock) arguments[0]));
+    return next.executeDispatch(frame, arguments);
   }
 
   @Override
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.frame.VirtualFrame;
 
 import bd.inlining.ScopeAdaptationVisitor;
@@ -108,4 +109,37 @@ public class BlockNode extends LiteralNode {
       return new BlockNodeWithContext(adapted, universe).initialize(sourceSection);
     }
   }
+
+  /**
+   * Block that only reads arguments of its outer scopes. Its context is a new
+   * frame with only the arguments, so that the outer frame does not need to
+   * be materialized.
+   */
+  public static final class BlockNodeWithArgumentsContext extends BlockNode {
+
+    public BlockNodeWithArgumentsContext(final SMethod blockMethod,
+        final Universe universe) {
+      super(blockMethod, universe);
+    }
+
+    @Override
+    public SBlock executeSBlock(final VirtualFrame frame) {
+      if (blockClass == null) {
+        CompilerDirectives.transferToInterpreter();
+        setBlockClass();
+      }
+      return Universe.newBlock(blockMethod, blockClass,
+          Truffle.getRuntime().createMaterializedFrame(frame.getArguments()));
+    }
+
+    /**
+     * When blocks are inlined, their arguments become locals of the outer
+     * scope. Thus, after a scope change, we conservatively use the full
+     * context.
+     */
+    @Override
+    protected BlockNode createNode(final SMethod adapted) {
+      return new BlockNodeWithContext(adapted, universe).initialize(sourceSection);
+    }
+  }
 }
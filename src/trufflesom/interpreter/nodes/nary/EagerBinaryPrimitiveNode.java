@@ -5,7 +5,6 @@ import com.oracle.truffle.api.frame.VirtualFrame;
 
 import trufflesom.interpreter.TruffleCompiler;
 import trufflesom.interpreter.nodes.ExpressionNode;
-import trufflesom.interpreter.nodes.MessageSendNode;
 import trufflesom.interpreter.nodes.MessageSendNode.GenericMessageSendNode;
 import trufflesom.vm.Universe;
 import trufflesom.vmobjects.SSymbol;
@@ -57,8 +56,6 @@ public final class EagerBinaryPrimitiveNode extends EagerPrimitive {
   }
 
   private GenericMessageSendNode makeGenericSend() {
-    GenericMessageSendNode node = MessageSendNode.createGeneric(selector,
-        new ExpressionNode[] {receiver, argument}, sourceSection, universe);
-    return replace(node);
+    return makeGenericSend(selector, new ExpressionNode[] {receiver, argument}, universe);
   }
 }
@@ -1,8 +1,30 @@
 package trufflesom.interpreter.nodes.nary;
 
 import trufflesom.interpreter.nodes.ExpressionNode;
+import trufflesom.interpreter.nodes.MessageSendNode;
+import trufflesom.interpreter.nodes.MessageSendNode.GenericMessageSendNode;
 import trufflesom.interpreter.nodes.PreevaluatedExpression;
+import trufflesom.vm.Universe;
+import trufflesom.vmobjects.SSymbol;
 
 
 public abstract class EagerPrimitive extends ExpressionNode
-    implements PreevaluatedExpression {}
+    implements PreevaluatedExpression {
+
+  /**
+   * Set once this node was replaced by a generic send. Threads that raced on
+   * the replacement continue with the send instead of replacing it again.
+   */
+  private GenericMessageSendNode replacement;
+
+  protected final GenericMessageSendNode makeGenericSend(final SSymbol selector,
+      final ExpressionNode[] arguments, final Universe universe) {
+    return atomic(() -> {
+      if (replacement == null) {
+        replacement = replace(
+            MessageSendNode.createGeneric(selector, arguments, sourceSection, universe));
+      }
+      return replacement;
+    });
+  }
+}
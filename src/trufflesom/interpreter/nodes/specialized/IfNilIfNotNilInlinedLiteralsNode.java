@@ -0,0 +1,75 @@
+package trufflesom.interpreter.nodes.specialized;
+
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeChild;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.frame.FrameSlotKind;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.profiles.ConditionProfile;
+
+import bd.inlining.Inline;
+import bd.inlining.ScopeAdaptationVisitor;
+import bd.inlining.ScopeAdaptationVisitor.ScopeElement;
+import trufflesom.compiler.Variable;
+import trufflesom.compiler.Variable.Local;
+import trufflesom.interpreter.nodes.ExpressionNode;
+import trufflesom.vm.constants.Nil;
+
+
+/**
+ * Inlined version of ifNil:ifNotNil:. The receiver is stored in the variable
+ * of the inlined ifNotNil: block, before its body is executed.
+ */
+@NodeChild(value = "receiver", type = ExpressionNode.class)
+@Inline(selector = "ifNil:ifNotNil:", inlineableArgIdx = {1, 2}, introduceTemps = 2)
+@GenerateNodeFactory
+public abstract class IfNilIfNotNilInlinedLiteralsNode extends ExpressionNode {
+  private final ConditionProfile condProf = ConditionProfile.createCountingProfile();
+
+  @Child private ExpressionNode nilNode;
+  @Child private ExpressionNode notNilNode;
+
+  // In case we need to revert from this optimistic optimization, keep the
+  // original nodes around
+  private final ExpressionNode nilActualNode;
+  private final ExpressionNode notNilActualNode;
+
+  private final Variable  notNilVar;
+  private final FrameSlot notNilSlot;
+
+  public abstract ExpressionNode getReceiver();
+
+  public IfNilIfNotNilInlinedLiteralsNode(final ExpressionNode originalNilNode,
+      final ExpressionNode originalNotNilNode, final ExpressionNode inlinedNilNode,
+      final ExpressionNode inlinedNotNilNode, final Local notNilVar) {
+    this.nilActualNode = originalNilNode;
+    this.notNilActualNode = originalNotNilNode;
+    this.nilNode = inlinedNilNode;
+    this.notNilNode = inlinedNotNilNode;
+    this.notNilVar = notNilVar;
+    this.notNilSlot = notNilVar.getSlot();
+
+    // the receiver can be any object
+    notNilSlot.setKind(FrameSlotKind.Object);
+  }
+
+  @Specialization
+  public final Object doIfNilIfNotNil(final VirtualFrame frame, final Object receiver) {
+    if (condProf.profile(receiver == Nil.nilObject)) {
+      return nilNode.executeGeneric(frame);
+    } else {
+      frame.setObject(notNilSlot, receiver);
+      return notNilNode.executeGeneric(frame);
+    }
+  }
+
+  @Override
+  public void replaceAfterScopeChange(final ScopeAdaptationVisitor inliner) {
+    ScopeElement<ExpressionNode> se = inliner.getAdaptedVar(notNilVar);
+    IfNilIfNotNilInlinedLiteralsNode node = IfNilIfNotNilInlinedLiteralsNodeFactory.create(
+        nilActualNode, notNilActualNode, nilNode, notNilNode, (Local) se.var, getReceiver());
+    node.initialize(sourceSection);
+    replace(node);
+  }
+}
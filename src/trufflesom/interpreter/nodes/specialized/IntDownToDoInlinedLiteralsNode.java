@@ -0,0 +1,73 @@
+package trufflesom.interpreter.nodes.specialized;
+
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeChild;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.LoopNode;
+
+import bd.inlining.Inline;
+import bd.inlining.ScopeAdaptationVisitor;
+import bd.inlining.ScopeAdaptationVisitor.ScopeElement;
+import trufflesom.compiler.Variable;
+import trufflesom.compiler.Variable.Local;
+import trufflesom.interpreter.nodes.ExpressionNode;
+
+
+@NodeChild(value = "from", type = ExpressionNode.class)
+@NodeChild(value = "to", type = ExpressionNode.class)
+@Inline(selector = "downTo:do:", inlineableArgIdx = 2, introduceTemps = 2)
+@GenerateNodeFactory
+public abstract class IntDownToDoInlinedLiteralsNode extends ExpressionNode {
+
+  @Child protected LoopNode loop;
+
+  // In case we need to revert from this optimistic optimization, keep the
+  // original node around
+  @Child private ExpressionNode bodyActualNode;
+
+  private final Variable loopIdxVar;
+
+  public abstract ExpressionNode getFrom();
+
+  public abstract ExpressionNode getTo();
+
+  public IntDownToDoInlinedLiteralsNode(final ExpressionNode originalBody,
+      final ExpressionNode body, final Local loopIdxVar) {
+    this.loopIdxVar = loopIdxVar;
+    this.bodyActualNode = originalBody;
+    this.loop = ToDoInlinedRepeatingNode.createLoop(body, loopIdxVar.getSlot());
+  }
+
+  @Specialization
+  public final long doIntDownToDo(final VirtualFrame frame, final long from,
+      final long to) {
+    ToDoInlinedRepeatingNode.executeLoop(loop, frame, from, to, -1);
+    return from;
+  }
+
+  @Specialization
+  public final long doIntDownToDo(final VirtualFrame frame, final long from,
+      final double to) {
+    ToDoInlinedRepeatingNode.executeLoop(loop, frame, from, (long) Math.ceil(to), -1);
+    return from;
+  }
+
+  @Fallback
+  public final Object makeGenericSend(final VirtualFrame frame, final Object from,
+      final Object to) {
+    return ToDoInlinedRepeatingNode.replaceWithSend(this, frame, "downTo:do:",
+        new ExpressionNode[] {getFrom(), getTo(), bodyActualNode}, from, to);
+  }
+
+  @Override
+  public void replaceAfterScopeChange(final ScopeAdaptationVisitor inliner) {
+    ScopeElement<ExpressionNode> se = inliner.getAdaptedVar(loopIdxVar);
+    IntDownToDoInlinedLiteralsNode node = IntDownToDoInlinedLiteralsNodeFactory.create(
+        bodyActualNode, ToDoInlinedRepeatingNode.getBody(loop), (Local) se.var, getFrom(),
+        getTo());
+    node.initialize(sourceSection);
+    replace(node);
+  }
+}
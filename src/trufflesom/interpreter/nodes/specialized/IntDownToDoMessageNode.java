@@ -1,13 +1,9 @@
 package trufflesom.interpreter.nodes.specialized;
 
-import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
-import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
-import com.oracle.truffle.api.nodes.DirectCallNode;
-import com.oracle.truffle.api.nodes.Node;
-import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.nodes.LoopNode;
 
 import bd.primitives.Primitive;
 import trufflesom.interpreter.Invokable;
@@ -22,13 +18,12 @@ import trufflesom.vmobjects.SInvokable;
     specializer = ToDoSplzr.class, inParser = false, requiresArguments = true)
 public abstract class IntDownToDoMessageNode extends TernaryExpressionNode {
 
-  private final SInvokable      blockMethod;
-  @Child private DirectCallNode valueSend;
+  private final SInvokable blockMethod;
+  @Child private LoopNode  loop;
 
   public IntDownToDoMessageNode(final Object[] args) {
     blockMethod = ((SBlock) args[2]).getMethod();
-    valueSend = Truffle.getRuntime().createDirectCallNode(
-        blockMethod.getCallTarget());
+    loop = ToDoRepeatingNode.createLoop(blockMethod.getCallTarget(), -1);
   }
 
   protected final boolean isSameBlockLong(final SBlock block) {
@@ -38,15 +33,10 @@ public abstract class IntDownToDoMessageNode extends TernaryExpressionNode {
   @Specialization(guards = "isSameBlockLong(block)")
   public final long doIntDownToDo(final long receiver, final long limit, final SBlock block) {
     try {
-      if (receiver >= limit) {
-        valueSend.call(new Object[] {block, receiver});
-      }
-      for (long i = receiver - 1; i >= limit; i--) {
-        valueSend.call(new Object[] {block, i});
-      }
+      ToDoRepeatingNode.executeLoop(loop, block, receiver, limit);
     } finally {
       if (CompilerDirectives.inInterpreter() && (receiver - limit) > 0) {
-        reportLoopCount(receiver - limit);
+        Invokable.reportLoopCount(this, receiver - limit);
       }
     }
     return receiver;
@@ -60,28 +50,13 @@ public abstract class IntDownToDoMessageNode extends TernaryExpressionNode {
   public final long doIntDownToDo(final long receiver, final double limit,
       final SBlock block) {
     try {
-      if (receiver >= limit) {
-        valueSend.call(new Object[] {block, receiver});
-      }
-      for (long i = receiver - 1; i >= limit; i--) {
-        valueSend.call(new Object[] {block, i});
-      }
+      // the loop ends with the smallest integer that is >= limit
+      ToDoRepeatingNode.executeLoop(loop, block, receiver, (long) Math.ceil(limit));
     } finally {
       if (CompilerDirectives.inInterpreter() && (receiver - (int) limit) > 0) {
-        reportLoopCount(receiver - (int) limit);
+        Invokable.reportLoopCount(this, receiver - (int) limit);
       }
     }
     return receiver;
   }
-
-  private void reportLoopCount(final long count) {
-    CompilerAsserts.neverPartOfCompilation("reportLoopCount");
-    Node current = getParent();
-    while (current != null && !(current instanceof RootNode)) {
-      current = current.getParent();
-    }
-    if (current != null) {
-      ((Invokable) current).propagateLoopCountThroughoutLexicalScope(count);
-    }
-  }
 }
@@ -0,0 +1,44 @@
+package trufflesom.interpreter.nodes.specialized;
+
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeChild;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.LoopNode;
+
+import bd.inlining.Inline;
+import trufflesom.interpreter.nodes.ExpressionNode;
+
+
+@NodeChild(value = "count", type = ExpressionNode.class)
+@Inline(selector = "timesRepeat:", inlineableArgIdx = 1)
+@GenerateNodeFactory
+public abstract class IntTimesRepeatInlinedLiteralNode extends ExpressionNode {
+
+  @Child protected LoopNode loop;
+
+  // In case we need to revert from this optimistic optimization, keep the
+  // original node around
+  @Child private ExpressionNode bodyActualNode;
+
+  public abstract ExpressionNode getCount();
+
+  public IntTimesRepeatInlinedLiteralNode(final ExpressionNode originalBody,
+      final ExpressionNode body) {
+    this.bodyActualNode = originalBody;
+    this.loop = ToDoInlinedRepeatingNode.createLoop(body, null);
+  }
+
+  @Specialization
+  public final long doTimesRepeat(final VirtualFrame frame, final long count) {
+    ToDoInlinedRepeatingNode.executeLoop(loop, frame, 1, count, 1);
+    return count;
+  }
+
+  @Fallback
+  public final Object makeGenericSend(final VirtualFrame frame, final Object count) {
+    return ToDoInlinedRepeatingNode.replaceWithSend(this, frame, "timesRepeat:",
+        new ExpressionNode[] {getCount(), bodyActualNode}, count);
+  }
+}
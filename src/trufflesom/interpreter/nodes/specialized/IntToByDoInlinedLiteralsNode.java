@@ -0,0 +1,78 @@
+package trufflesom.interpreter.nodes.specialized;
+
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeChild;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.LoopNode;
+
+import bd.inlining.Inline;
+import bd.inlining.ScopeAdaptationVisitor;
+import bd.inlining.ScopeAdaptationVisitor.ScopeElement;
+import trufflesom.compiler.Variable;
+import trufflesom.compiler.Variable.Local;
+import trufflesom.interpreter.nodes.ExpressionNode;
+
+
+@NodeChild(value = "from", type = ExpressionNode.class)
+@NodeChild(value = "to", type = ExpressionNode.class)
+@NodeChild(value = "step", type = ExpressionNode.class)
+@Inline(selector = "to:by:do:", inlineableArgIdx = 3, introduceTemps = 3)
+@GenerateNodeFactory
+public abstract class IntToByDoInlinedLiteralsNode extends ExpressionNode {
+
+  @Child protected LoopNode loop;
+
+  // In case we need to revert from this optimistic optimization, keep the
+  // original node around
+  @Child private ExpressionNode bodyActualNode;
+
+  private final Variable loopIdxVar;
+
+  public abstract ExpressionNode getFrom();
+
+  public abstract ExpressionNode getTo();
+
+  public abstract ExpressionNode getStep();
+
+  public IntToByDoInlinedLiteralsNode(final ExpressionNode originalBody,
+      final ExpressionNode body, final Local loopIdxVar) {
+    this.loopIdxVar = loopIdxVar;
+    this.bodyActualNode = originalBody;
+    this.loop = ToDoInlinedRepeatingNode.createLoop(body, loopIdxVar.getSlot());
+  }
+
+  @Specialization
+  public final long doIntToByDo(final VirtualFrame frame, final long from, final long to,
+      final long step) {
+    ToDoInlinedRepeatingNode.executeLoop(loop, frame, from, to, step);
+    return from;
+  }
+
+  @Specialization
+  public final long doIntToByDo(final VirtualFrame frame, final long from, final double to,
+      final long step) {
+    long limit = step > 0 ? (long) Math.floor(to) : (long) Math.ceil(to);
+    ToDoInlinedRepeatingNode.executeLoop(loop, frame, from, limit, step);
+    return from;
+  }
+
+  @Fallback
+  public final Object makeGenericSend(final VirtualFrame frame, final Object from,
+      final Object to, final Object step) {
+    return ToDoInlinedRepeatingNode.replaceWithSend(this, frame, "to:by:do:",
+        new ExpressionNode[] {getFrom(), getTo(), getStep(), bodyActualNode}, from, to,
+        step);
+  }
+
+  @Override
+  public void replaceAfterScopeChange(final ScopeAdaptationVisitor inliner) {
+    ScopeElement<ExpressionNode> se = inliner.getAdaptedVar(loopIdxVar);
+    IntToByDoInlinedLiteralsNode node = IntToByDoInlinedLiteralsNodeFactory.create(
+        bodyActualNode, ToDoInlinedRepeatingNode.getBody(loop), (Local) se.var, getFrom(),
+        getTo(), getStep());
+    node.initialize(sourceSection);
+    replace(node);
+  }
+}
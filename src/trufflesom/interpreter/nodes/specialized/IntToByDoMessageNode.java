@@ -1,12 +1,10 @@
 package trufflesom.interpreter.nodes.specialized;
 
-import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.DirectCallNode;
-import com.oracle.truffle.api.nodes.Node;
 
 import bd.primitives.Primitive;
 import trufflesom.interpreter.Invokable;
@@ -48,7 +46,7 @@ public abstract class IntToByDoMessageNode extends QuaternaryExpressionNode {
       }
     } finally {
       if (CompilerDirectives.inInterpreter()) {
-        reportLoopCount(limit - receiver);
+        Invokable.reportLoopCount(this, limit - receiver);
       }
     }
     return receiver;
@@ -66,20 +64,9 @@ public abstract class IntToByDoMessageNode extends QuaternaryExpressionNode {
       }
     } finally {
       if (CompilerDirectives.inInterpreter()) {
-        reportLoopCount((long) limit - receiver);
+        Invokable.reportLoopCount(this, (long) limit - receiver);
       }
     }
     return receiver;
   }
-
-  protected final void reportLoopCount(final long count) {
-    CompilerAsserts.neverPartOfCompilation("reportLoopCount");
-    Node current = getParent();
-    while (current != null && !(current instanceof Invokable)) {
-      current = current.getParent();
-    }
-    if (current != null) {
-      ((Invokable) current).propagateLoopCountThroughoutLexicalScope(count);
-    }
-  }
 }
@@ -1,14 +1,10 @@
 package trufflesom.interpreter.nodes.specialized;
 
-import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
-import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
 import com.oracle.truffle.api.dsl.NodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
-import com.oracle.truffle.api.nodes.DirectCallNode;
-import com.oracle.truffle.api.nodes.Node;
-import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.nodes.LoopNode;
 
 import bd.primitives.Primitive;
 import bd.primitives.Specializer;
@@ -42,12 +38,12 @@ public abstract class IntToDoMessageNode extends TernaryExpressionNode {
     }
   }
 
-  private final SInvokable      blockMethod;
-  @Child private DirectCallNode valueSend;
+  private final SInvokable blockMethod;
+  @Child private LoopNode  loop;
 
   public IntToDoMessageNode(final ExpressionNode orignialNode, final SBlock block) {
     blockMethod = block.getMethod();
-    valueSend = Truffle.getRuntime().createDirectCallNode(blockMethod.getCallTarget());
+    loop = ToDoRepeatingNode.createLoop(blockMethod.getCallTarget(), 1);
   }
 
   protected final boolean isSameBlockLong(final SBlock block) {
@@ -60,7 +56,7 @@ public abstract class IntToDoMessageNode extends TernaryExpressionNode {
       doLooping(receiver, limit, block);
     } finally {
       if (CompilerDirectives.inInterpreter() && (limit - receiver) > 0) {
-        reportLoopCount(limit - receiver);
+        Invokable.reportLoopCount(this, limit - receiver);
       }
     }
     return receiver;
@@ -77,29 +73,13 @@ public abstract class IntToDoMessageNode extends TernaryExpressionNode {
       doLooping(receiver, limit, block);
     } finally {
       if (CompilerDirectives.inInterpreter()) {
-        reportLoopCount((int) limit - receiver);
+        Invokable.reportLoopCount(this, (int) limit - receiver);
       }
     }
     return receiver;
   }
 
   protected void doLooping(final long receiver, final long limit, final SBlock block) {
-    if (receiver <= limit) {
-      valueSend.call(new Object[] {block, receiver});
-    }
-    for (long i = receiver + 1; i <= limit; i++) {
-      valueSend.call(new Object[] {block, i});
-    }
-  }
-
-  private void reportLoopCount(final long count) {
-    CompilerAsserts.neverPartOfCompilation("reportLoopCount");
-    Node current = getParent();
-    while (current != null && !(current instanceof RootNode)) {
-      current = current.getParent();
-    }
-    if (current != null) {
-      ((Invokable) current).propagateLoopCountThroughoutLexicalScope(count);
-    }
+    ToDoRepeatingNode.executeLoop(loop, block, receiver, limit);
   }
 }
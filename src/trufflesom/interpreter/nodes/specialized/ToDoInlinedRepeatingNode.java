@@ -0,0 +1,144 @@
+package trufflesom.interpreter.nodes.specialized;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.frame.FrameSlotKind;
+import com.oracle.truffle.api.frame.FrameUtil;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.LoopNode;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.RepeatingNode;
+
+import trufflesom.interpreter.Invokable;
+import trufflesom.interpreter.SomLanguage;
+import trufflesom.interpreter.nodes.ExpressionNode;
+import trufflesom.interpreter.nodes.MessageSendNode;
+import trufflesom.interpreter.nodes.MessageSendNode.GenericMessageSendNode;
+import trufflesom.vm.Universe;
+
+
+/**
+ * One iteration of an inlined counting loop, i.e., to:do:, to:by:do:,
+ * downTo:do:, or timesRepeat:.
+ *
+ * <p>
+ * The counter, the limit, and the step of the loop are kept in slots of the
+ * method's frame, so that a long running loop can be compiled with on-stack
+ * replacement. The slots are added on the first execution, since the frame
+ * descriptor is only known then.
+ *
+ * <p>
+ * The loops are optimistic, and only support integer receivers and limits.
+ * For other values, for instance, big integers or objects that implement
+ * the selector themselves, the loop is replaced by the original message send.
+ */
+final class ToDoInlinedRepeatingNode extends Node implements RepeatingNode {
+  @Child private ExpressionNode body;
+
+  /** The slot of the loop variable, or null if the body does not have one. */
+  private final FrameSlot loopIndex;
+
+  @CompilationFinal private FrameSlot counter;
+  @CompilationFinal private FrameSlot limit;
+  @CompilationFinal private FrameSlot step;
+
+  private ToDoInlinedRepeatingNode(final ExpressionNode body, final FrameSlot loopIndex) {
+    this.body = body;
+    this.loopIndex = loopIndex;
+  }
+
+  static LoopNode createLoop(final ExpressionNode body, final FrameSlot loopIndex) {
+    if (loopIndex != null) {
+      // and, we can already tell the loop index that it is going to be long
+      loopIndex.setKind(FrameSlotKind.Long);
+    }
+    return Truffle.getRuntime().createLoopNode(new ToDoInlinedRepeatingNode(body, loopIndex));
+  }
+
+  static ExpressionNode getBody(final LoopNode loop) {
+    return ((ToDoInlinedRepeatingNode) loop.getRepeatingNode()).body;
+  }
+
+  /**
+   * Execute the loop from {@code from} to {@code to}, inclusively. A negative
+   * step counts down. In the interpreter, the number of iterations is reported
+   * to the enclosing method.
+   */
+  static void executeLoop(final LoopNode loop, final VirtualFrame frame, final long from,
+      final long to, final long step) {
+    ToDoInlinedRepeatingNode node = (ToDoInlinedRepeatingNode) loop.getRepeatingNode();
+    if (node.counter == null) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      FrameDescriptor descriptor = frame.getFrameDescriptor();
+      node.atomic(() -> node.addStateSlots(descriptor));
+    }
+
+    frame.setLong(node.counter, from);
+    frame.setLong(node.limit, to);
+    frame.setLong(node.step, step);
+
+    if (CompilerDirectives.inInterpreter()) {
+      try {
+        loop.executeLoop(frame);
+      } finally {
+        if (step != 0) {
+          Invokable.reportLoopCount(loop, (to - from) / step + 1);
+        }
+      }
+    } else {
+      loop.executeLoop(frame);
+    }
+  }
+
+  /**
+   * Replace the inlined {@code loop} with a send of the original message,
+   * which is used for receivers and arguments the loop does not support.
+   * The last argument node is the original block, which is evaluated here.
+   *
+   * @return the result of the send
+   */
+  static Object replaceWithSend(final ExpressionNode loop, final VirtualFrame frame,
+      final String selector, final ExpressionNode[] argumentNodes,
+      final Object... evaluatedArgs) {
+    CompilerDirectives.transferToInterpreterAndInvalidate();
+    Universe universe = SomLanguage.getCurrentContext();
+    GenericMessageSendNode send = MessageSendNode.createGeneric(
+        universe.symbolFor(selector), argumentNodes, loop.getSourceSection(), universe);
+    loop.replace(send);
+
+    Object[] arguments = new Object[argumentNodes.length];
+    System.arraycopy(evaluatedArgs, 0, arguments, 0, evaluatedArgs.length);
+    arguments[arguments.length - 1] =
+        argumentNodes[argumentNodes.length - 1].executeGeneric(frame);
+    return send.doPreEvaluated(frame, arguments);
+  }
+
+  private void addStateSlots(final FrameDescriptor descriptor) {
+    if (counter == null) {
+      limit = descriptor.addFrameSlot(new Object(), FrameSlotKind.Long);
+      step = descriptor.addFrameSlot(new Object(), FrameSlotKind.Long);
+      counter = descriptor.addFrameSlot(new Object(), FrameSlotKind.Long);
+    }
+  }
+
+  @Override
+  public boolean executeRepeating(final VirtualFrame frame) {
+    long i = FrameUtil.getLongSafe(frame, counter);
+    long end = FrameUtil.getLongSafe(frame, limit);
+    long by = FrameUtil.getLongSafe(frame, step);
+
+    if (by > 0 ? i > end : i < end) {
+      return false;
+    }
+
+    if (loopIndex != null) {
+      frame.setLong(loopIndex, i);
+    }
+    body.executeGeneric(frame);
+    frame.setLong(counter, i + by);
+    return true;
+  }
+}
@@ -0,0 +1,70 @@
+package trufflesom.interpreter.nodes.specialized;
+
+import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.frame.FrameSlotKind;
+import com.oracle.truffle.api.frame.FrameUtil;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.DirectCallNode;
+import com.oracle.truffle.api.nodes.LoopNode;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.RepeatingNode;
+
+import trufflesom.vmobjects.SBlock;
+
+
+/**
+ * One iteration of a to:do: or downTo:do: loop over a block.
+ *
+ * <p>
+ * The loop runs in its own frame, which has the block and the limit as
+ * arguments, and the index in a slot. Thus, the loop can be compiled with
+ * on-stack replacement while it runs, without adding slots to the caller's
+ * frame.
+ */
+final class ToDoRepeatingNode extends Node implements RepeatingNode {
+  @Child private DirectCallNode valueSend;
+
+  private final FrameDescriptor loopFrameDescriptor;
+  private final FrameSlot       loopIndex;
+  private final long            step;
+
+  private ToDoRepeatingNode(final CallTarget blockMethod, final long step) {
+    this.valueSend = Truffle.getRuntime().createDirectCallNode(blockMethod);
+    this.loopFrameDescriptor = new FrameDescriptor();
+    this.loopIndex = loopFrameDescriptor.addFrameSlot("i", FrameSlotKind.Long);
+    this.step = step;
+  }
+
+  static LoopNode createLoop(final CallTarget blockMethod, final long step) {
+    assert step == 1 || step == -1;
+    return Truffle.getRuntime().createLoopNode(new ToDoRepeatingNode(blockMethod, step));
+  }
+
+  /** Execute the loop from {@code from} to {@code limit}, inclusively. */
+  static void executeLoop(final LoopNode loop, final SBlock block, final long from,
+      final long limit) {
+    ToDoRepeatingNode node = (ToDoRepeatingNode) loop.getRepeatingNode();
+    VirtualFrame loopFrame = Truffle.getRuntime().createVirtualFrame(
+        new Object[] {block, limit}, node.loopFrameDescriptor);
+    loopFrame.setLong(node.loopIndex, from);
+    loop.executeLoop(loopFrame);
+  }
+
+  @Override
+  public boolean executeRepeating(final VirtualFrame frame) {
+    Object[] args = frame.getArguments();
+    long limit = (long) args[1];
+    long i = FrameUtil.getLongSafe(frame, loopIndex);
+
+    if (step > 0 ? i > limit : i < limit) {
+      return false;
+    }
+
+    valueSend.call(new Object[] {args[0], i});
+    frame.setLong(loopIndex, i + step);
+    return true;
+  }
+}
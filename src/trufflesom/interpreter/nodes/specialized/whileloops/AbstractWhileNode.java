@@ -1,13 +1,14 @@
 package trufflesom.interpreter.nodes.specialized.whileloops;
 
 import com.oracle.truffle.api.CallTarget;
-import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.DirectCallNode;
+import com.oracle.truffle.api.nodes.LoopNode;
 import com.oracle.truffle.api.nodes.Node;
-import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.nodes.RepeatingNode;
 
 import trufflesom.interpreter.Invokable;
 import trufflesom.interpreter.nodes.nary.BinaryExpressionNode;
@@ -17,21 +18,22 @@ import trufflesom.vmobjects.SObject;
 
 
 public abstract class AbstractWhileNode extends BinaryExpressionNode {
-  @Child protected DirectCallNode conditionValueSend;
-  @Child protected DirectCallNode bodyValueSend;
+  @Child private LoopNode loop;
 
-  protected final boolean predicateBool;
+  /**
+   * The loop runs in its own frame, which has the condition and the body
+   * block as arguments. Thus, the loop can be compiled with on-stack
+   * replacement while it runs, without adding slots to the caller's frame.
+   */
+  private final FrameDescriptor loopFrameDescriptor;
 
   public AbstractWhileNode(final SBlock rcvr, final SBlock arg, final boolean predicateBool) {
     CallTarget callTargetCondition = rcvr.getMethod().getCallTarget();
-    conditionValueSend = Truffle.getRuntime().createDirectCallNode(
-        callTargetCondition);
-
     CallTarget callTargetBody = arg.getMethod().getCallTarget();
-    bodyValueSend = Truffle.getRuntime().createDirectCallNode(
-        callTargetBody);
 
-    this.predicateBool = predicateBool;
+    loopFrameDescriptor = new FrameDescriptor();
+    loop = Truffle.getRuntime().createLoopNode(
+        new WhileRepeatingNode(callTargetCondition, callTargetBody, predicateBool));
   }
 
   @Override
@@ -42,24 +44,14 @@ public abstract class AbstractWhileNode extends BinaryExpressionNode {
 
   protected final SObject doWhileUnconditionally(final SBlock loopCondition,
       final SBlock loopBody) {
-    long iterationCount = 0;
-
-    boolean loopConditionResult =
-        (boolean) conditionValueSend.call(new Object[] {loopCondition});
-
+    VirtualFrame loopFrame = Truffle.getRuntime().createVirtualFrame(
+        new Object[] {loopCondition, loopBody}, loopFrameDescriptor);
     try {
-      // TODO: this is a simplification, we don't cover the case receiver isn't a boolean
-      while (loopConditionResult == predicateBool) {
-        bodyValueSend.call(new Object[] {loopBody});
-        loopConditionResult = (boolean) conditionValueSend.call(new Object[] {loopCondition});
-
-        if (CompilerDirectives.inInterpreter()) {
-          iterationCount++;
-        }
-      }
+      loop.executeLoop(loopFrame);
     } finally {
       if (CompilerDirectives.inInterpreter()) {
-        reportLoopCount(iterationCount);
+        Invokable.reportLoopCount(this,
+            ((WhileRepeatingNode) loop.getRepeatingNode()).takeIterationCount());
       }
     }
     return Nil.nilObject;
@@ -67,14 +59,45 @@ public abstract class AbstractWhileNode extends BinaryExpressionNode {
 
   protected abstract SObject doWhileConditionally(SBlock loopCondition, SBlock loopBody);
 
-  protected final void reportLoopCount(final long count) {
-    CompilerAsserts.neverPartOfCompilation("reportLoopCount");
-    Node current = getParent();
-    while (current != null && !(current instanceof RootNode)) {
-      current = current.getParent();
+  private static final class WhileRepeatingNode extends Node implements RepeatingNode {
+    @Child private DirectCallNode conditionValueSend;
+    @Child private DirectCallNode bodyValueSend;
+
+    private final boolean predicateBool;
+
+    /** Number of iterations, only counted in the interpreter. */
+    private long iterationCount;
+
+    WhileRepeatingNode(final CallTarget condition, final CallTarget body,
+        final boolean predicateBool) {
+      this.conditionValueSend = Truffle.getRuntime().createDirectCallNode(condition);
+      this.bodyValueSend = Truffle.getRuntime().createDirectCallNode(body);
+      this.predicateBool = predicateBool;
     }
-    if (current != null) {
-      ((Invokable) current).propagateLoopCountThroughoutLexicalScope(count);
+
+    @Override
+    public boolean executeRepeating(final VirtualFrame frame) {
+      Object[] blocks = frame.getArguments();
+
+      // TODO: this is a simplification, we don't cover the case receiver isn't a boolean
+      boolean loopConditionResult =
+          (boolean) conditionValueSend.call(new Object[] {blocks[0]});
+      if (loopConditionResult != predicateBool) {
+        return false;
+      }
+
+      bodyValueSend.call(new Object[] {blocks[1]});
+
+      if (CompilerDirectives.inInterpreter()) {
+        iterationCount++;
+      }
+      return true;
+    }
+
+    long takeIterationCount() {
+      long count = iterationCount;
+      iterationCount = 0;
+      return count;
     }
   }
 }
@@ -1,11 +1,12 @@
 package trufflesom.interpreter.nodes.specialized.whileloops;
 
-import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.dsl.UnsupportedSpecializationException;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.LoopNode;
 import com.oracle.truffle.api.nodes.Node;
-import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.nodes.RepeatingNode;
 import com.oracle.truffle.api.nodes.UnexpectedResultException;
 
 import bd.inlining.Inline;
@@ -20,10 +21,7 @@ import trufflesom.vm.constants.Nil;
 @Inline(selector = "whileFalse:", inlineableArgIdx = {0, 1}, additionalArgs = False.class)
 public final class WhileInlinedLiteralsNode extends ExpressionNode {
 
-  @Child private ExpressionNode conditionNode;
-  @Child private ExpressionNode bodyNode;
-
-  private final boolean expectedBool;
+  @Child private LoopNode loop;
 
   @SuppressWarnings("unused") private final ExpressionNode conditionActualNode;
   @SuppressWarnings("unused") private final ExpressionNode bodyActualNode;
@@ -31,55 +29,74 @@ public final class WhileInlinedLiteralsNode extends ExpressionNode {
   public WhileInlinedLiteralsNode(final ExpressionNode originalConditionNode,
       final ExpressionNode originalBodyNode, final ExpressionNode inlinedConditionNode,
       final ExpressionNode inlinedBodyNode, final boolean expectedBool) {
-    this.conditionNode = inlinedConditionNode;
-    this.bodyNode = inlinedBodyNode;
-    this.expectedBool = expectedBool;
+    this.loop = Truffle.getRuntime().createLoopNode(
+        new WhileRepeatingNode(inlinedConditionNode, inlinedBodyNode, expectedBool));
     this.conditionActualNode = originalConditionNode;
     this.bodyActualNode = originalBodyNode;
   }
 
-  private boolean evaluateCondition(final VirtualFrame frame) {
+  @Override
+  public Object executeGeneric(final VirtualFrame frame) {
     try {
-      return conditionNode.executeBoolean(frame);
-    } catch (UnexpectedResultException e) {
-      // TODO: should rewrite to a node that does a proper message send...
-      throw new UnsupportedSpecializationException(this,
-          new Node[] {conditionNode}, e.getResult());
+      loop.executeLoop(frame);
+    } finally {
+      if (CompilerDirectives.inInterpreter()) {
+        Invokable.reportLoopCount(this,
+            ((WhileRepeatingNode) loop.getRepeatingNode()).takeIterationCount());
+      }
     }
+    return Nil.nilObject;
   }
 
-  @Override
-  public Object executeGeneric(final VirtualFrame frame) {
-    long iterationCount = 0;
+  /**
+   * One iteration of the loop. Since the state of the loop is the frame of
+   * the method, a long running loop can be compiled with on-stack replacement.
+   */
+  private static final class WhileRepeatingNode extends Node implements RepeatingNode {
+    @Child private ExpressionNode conditionNode;
+    @Child private ExpressionNode bodyNode;
 
-    // TODO: this is a simplification, we don't cover the case receiver isn't a boolean
-    boolean loopConditionResult = evaluateCondition(frame);
+    private final boolean expectedBool;
 
-    try {
-      while (loopConditionResult == expectedBool) {
-        bodyNode.executeGeneric(frame);
-        loopConditionResult = evaluateCondition(frame);
+    /** Number of iterations, only counted in the interpreter. */
+    private long iterationCount;
 
-        if (CompilerDirectives.inInterpreter()) {
-          iterationCount++;
-        }
+    WhileRepeatingNode(final ExpressionNode conditionNode, final ExpressionNode bodyNode,
+        final boolean expectedBool) {
+      this.conditionNode = conditionNode;
+      this.bodyNode = bodyNode;
+      this.expectedBool = expectedBool;
+    }
+
+    private boolean evaluateCondition(final VirtualFrame frame) {
+      try {
+        return conditionNode.executeBoolean(frame);
+      } catch (UnexpectedResultException e) {
+        // TODO: should rewrite to a node that does a proper message send...
+        throw new UnsupportedSpecializationException(this,
+            new Node[] {conditionNode}, e.getResult());
       }
-    } finally {
+    }
+
+    @Override
+    public boolean executeRepeating(final VirtualFrame frame) {
+      // TODO: this is a simplification, we don't cover the case receiver isn't a boolean
+      if (evaluateCondition(frame) != expectedBool) {
+        return false;
+      }
+
+      bodyNode.executeGeneric(frame);
+
       if (CompilerDirectives.inInterpreter()) {
-        reportLoopCount(iterationCount);
+        iterationCount++;
       }
+      return true;
     }
-    return Nil.nilObject;
-  }
 
-  protected void reportLoopCount(final long count) {
-    CompilerAsserts.neverPartOfCompilation("reportLoopCount");
-    Node current = getParent();
-    while (current != null && !(current instanceof RootNode)) {
-      current = current.getParent();
-    }
-    if (current != null) {
-      ((Invokable) current).propagateLoopCountThroughoutLexicalScope(count);
+    long takeIterationCount() {
+      long count = iterationCount;
+      iterationCount = 0;
+      return count;
     }
   }
 }
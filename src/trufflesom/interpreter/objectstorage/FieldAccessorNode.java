@@ -1,7 +1,7 @@
 package trufflesom.interpreter.objectstorage;
 
 import com.oracle.truffle.api.CompilerDirectives;
-import com.oracle.truffle.api.nodes.InvalidAssumptionException;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.UnexpectedResultException;
 
@@ -33,7 +33,46 @@ public abstract class FieldAccessorNode extends Node {
     return fieldIndex;
   }
 
+  /**
+   * Migrate an object with an outdated layout to the latest layout of its
+   * class. This does not need to invalidate compiled code, because the
+   * object's old layout remains valid for other objects. Since an object
+   * only moves forward along the chain of layouts, see {@link ObjectLayout},
+   * it takes this slow path at most once per layout change of its class.
+   *
+   * @return true, if the object has the expected layout after migration
+   */
+  @TruffleBoundary
+  protected static boolean migrateTo(final SObject obj, final ObjectLayout expected) {
+    obj.updateLayoutToMatchClass();
+    return obj.getObjectLayout() == expected;
+  }
+
+  /**
+   * Redo a read that raced with another thread transferring the fields of the
+   * object to a new layout, see {@link SObject#hasLayoutAfterRead(ObjectLayout)}.
+   */
+  @TruffleBoundary
+  protected final Object readAfterLayoutChange(final SObject obj) {
+    return obj.getField(fieldIndex);
+  }
+
+  /**
+   * Redo a write that raced with another thread transferring the fields of the
+   * object to a new layout, see {@link SObject#hasLayoutAfterWrite(ObjectLayout)}.
+   */
+  @TruffleBoundary
+  protected final void writeAfterLayoutChange(final SObject obj, final Object value) {
+    obj.setField(fieldIndex, value);
+  }
+
   public abstract static class AbstractReadFieldNode extends FieldAccessorNode {
+    /**
+     * Set once this node was replaced. Threads that raced on specializing it
+     * continue with the replacement instead of specializing it again.
+     */
+    private AbstractReadFieldNode replacement;
+
     public AbstractReadFieldNode(final int fieldIndex) {
       super(fieldIndex);
     }
@@ -56,13 +95,19 @@ public abstract class FieldAccessorNode extends Node {
     protected final AbstractReadFieldNode specialize(final SObject obj,
         final String reason, final AbstractReadFieldNode next) {
       TruffleCompiler.transferToInterpreterAndInvalidate(reason);
-      obj.updateLayoutToMatchClass();
+      return atomic(() -> {
+        if (replacement != null) {
+          return replacement;
+        }
+        obj.updateLayoutToMatchClass();
 
-      final ObjectLayout layout = obj.getObjectLayout();
-      final StorageLocation location = layout.getStorageLocation(fieldIndex);
+        final ObjectLayout layout = obj.getObjectLayout();
+        final StorageLocation location = layout.getStorageLocation(fieldIndex);
 
-      AbstractReadFieldNode newNode = location.getReadNode(fieldIndex, layout, next);
-      return replace(newNode, reason);
+        AbstractReadFieldNode newNode = location.getReadNode(fieldIndex, layout, next);
+        replacement = replace(newNode, reason);
+        return replacement;
+      });
     }
   }
 
@@ -91,12 +136,14 @@ public abstract class FieldAccessorNode extends Node {
       nextInCache = next;
     }
 
-    protected final boolean hasExpectedLayout(final SObject obj)
-        throws InvalidAssumptionException {
-      layout.checkIsLatest();
+    protected final boolean hasExpectedLayout(final SObject obj) {
       return layout == obj.getObjectLayout();
     }
 
+    protected final boolean migratedToExpectedLayout(final SObject obj) {
+      return layout.layoutForSameClass(obj.getObjectLayout()) && migrateTo(obj, layout);
+    }
+
     protected final AbstractReadFieldNode respecializedNodeOrNext(final SObject obj) {
       if (layout.layoutForSameClass(obj.getObjectLayout())) {
         return specialize(obj, "update outdated read node", nextInCache);
@@ -114,14 +161,10 @@ public abstract class FieldAccessorNode extends Node {
 
     @Override
     public Object read(final SObject obj) {
-      try {
-        if (hasExpectedLayout(obj)) {
-          return Nil.nilObject;
-        } else {
-          return respecializedNodeOrNext(obj).read(obj);
-        }
-      } catch (InvalidAssumptionException e) {
-        return replace(nextInCache).read(obj);
+      if (hasExpectedLayout(obj) || migratedToExpectedLayout(obj)) {
+        return Nil.nilObject;
+      } else {
+        return respecializedNodeOrNext(obj).read(obj);
       }
     }
   }
@@ -137,14 +180,23 @@ public abstract class FieldAccessorNode extends Node {
 
     @Override
     public long readLong(final SObject obj) throws UnexpectedResultException {
-      try {
-        if (hasExpectedLayout(obj)) {
-          return storage.readLong(obj);
-        } else {
-          return respecializedNodeOrNext(obj).readLong(obj);
+      if (hasExpectedLayout(obj) || migratedToExpectedLayout(obj)) {
+        long value;
+        try {
+          value = storage.readLong(obj);
+        } catch (UnexpectedResultException e) {
+          // the field might only look unset, because of a racing transfer
+          if (obj.hasLayoutAfterRead(layout)) {
+            throw e;
+          }
+          return TypesGen.expectLong(readAfterLayoutChange(obj));
         }
-      } catch (InvalidAssumptionException e) {
-        return replace(nextInCache).readLong(obj);
+        if (obj.hasLayoutAfterRead(layout)) {
+          return value;
+        }
+        return TypesGen.expectLong(readAfterLayoutChange(obj));
+      } else {
+        return respecializedNodeOrNext(obj).readLong(obj);
       }
     }
 
@@ -169,14 +221,23 @@ public abstract class FieldAccessorNode extends Node {
 
     @Override
     public double readDouble(final SObject obj) throws UnexpectedResultException {
-      try {
-        if (hasExpectedLayout(obj)) {
-          return storage.readDouble(obj);
-        } else {
-          return respecializedNodeOrNext(obj).readDouble(obj);
+      if (hasExpectedLayout(obj) || migratedToExpectedLayout(obj)) {
+        double value;
+        try {
+          value = storage.readDouble(obj);
+        } catch (UnexpectedResultException e) {
+          // the field might only look unset, because of a racing transfer
+          if (obj.hasLayoutAfterRead(layout)) {
+            throw e;
+          }
+          return TypesGen.expectDouble(readAfterLayoutChange(obj));
         }
-      } catch (InvalidAssumptionException e) {
-        return replace(nextInCache).readDouble(obj);
+        if (obj.hasLayoutAfterRead(layout)) {
+          return value;
+        }
+        return TypesGen.expectDouble(readAfterLayoutChange(obj));
+      } else {
+        return respecializedNodeOrNext(obj).readDouble(obj);
       }
     }
 
@@ -201,19 +262,25 @@ public abstract class FieldAccessorNode extends Node {
 
     @Override
     public Object read(final SObject obj) {
-      try {
-        if (hasExpectedLayout(obj)) {
-          return storage.read(obj);
-        } else {
-          return respecializedNodeOrNext(obj).read(obj);
+      if (hasExpectedLayout(obj) || migratedToExpectedLayout(obj)) {
+        Object value = storage.read(obj);
+        if (obj.hasLayoutAfterRead(layout)) {
+          return value;
         }
-      } catch (InvalidAssumptionException e) {
-        return replace(nextInCache).read(obj);
+        return readAfterLayoutChange(obj);
+      } else {
+        return respecializedNodeOrNext(obj).read(obj);
       }
     }
   }
 
   public abstract static class AbstractWriteFieldNode extends FieldAccessorNode {
+    /**
+     * Set once this node was replaced. Threads that raced on specializing it
+     * do not replace it again.
+     */
+    private AbstractWriteFieldNode replacement;
+
     public AbstractWriteFieldNode(final int fieldIndex) {
       super(fieldIndex);
     }
@@ -236,10 +303,15 @@ public abstract class FieldAccessorNode extends Node {
 
       obj.setField(fieldIndex, value);
 
-      final ObjectLayout layout = obj.getObjectLayout();
-      final StorageLocation location = layout.getStorageLocation(fieldIndex);
-      AbstractWriteFieldNode newNode = location.getWriteNode(fieldIndex, layout, next);
-      replace(newNode, reason);
+      atomic(() -> {
+        if (replacement != null) {
+          return;
+        }
+        final ObjectLayout layout = obj.getObjectLayout();
+        final StorageLocation location = layout.getStorageLocation(fieldIndex);
+        AbstractWriteFieldNode newNode = location.getWriteNode(fieldIndex, layout, next);
+        replacement = replace(newNode, reason);
+      });
     }
   }
 
@@ -269,11 +341,13 @@ public abstract class FieldAccessorNode extends Node {
       nextInCache = next;
     }
 
-    protected final boolean hasExpectedLayout(final SObject obj)
-        throws InvalidAssumptionException {
-      layout.checkIsLatest();
+    protected final boolean hasExpectedLayout(final SObject obj) {
       return layout == obj.getObjectLayout();
     }
+
+    protected final boolean migratedToExpectedLayout(final SObject obj) {
+      return layout.layoutForSameClass(obj.getObjectLayout()) && migrateTo(obj, layout);
+    }
   }
 
   public static final class WriteLongFieldNode extends WriteSpecializedFieldNode {
@@ -287,18 +361,15 @@ public abstract class FieldAccessorNode extends Node {
 
     @Override
     public long write(final SObject obj, final long value) {
-      try {
-        if (hasExpectedLayout(obj)) {
-          storage.writeLong(obj, value);
-        } else {
-          if (layout.layoutForSameClass(obj.getObjectLayout())) {
-            writeAndRespecialize(obj, value, "update outdated write node", nextInCache);
-          } else {
-            nextInCache.write(obj, value);
-          }
+      if (hasExpectedLayout(obj) || migratedToExpectedLayout(obj)) {
+        storage.writeLong(obj, value);
+        if (!obj.hasLayoutAfterWrite(layout)) {
+          writeAfterLayoutChange(obj, value);
         }
-      } catch (InvalidAssumptionException e) {
-        replace(nextInCache).write(obj, value);
+      } else if (layout.layoutForSameClass(obj.getObjectLayout())) {
+        writeAndRespecialize(obj, value, "update outdated write node", nextInCache);
+      } else {
+        nextInCache.write(obj, value);
       }
       return value;
     }
@@ -329,18 +400,15 @@ public abstract class FieldAccessorNode extends Node {
 
     @Override
     public double write(final SObject obj, final double value) {
-      try {
-        if (hasExpectedLayout(obj)) {
-          storage.writeDouble(obj, value);
-        } else {
-          if (layout.layoutForSameClass(obj.getObjectLayout())) {
-            writeAndRespecialize(obj, value, "update outdated read node", nextInCache);
-          } else {
-            nextInCache.write(obj, value);
-          }
+      if (hasExpectedLayout(obj) || migratedToExpectedLayout(obj)) {
+        storage.writeDouble(obj, value);
+        if (!obj.hasLayoutAfterWrite(layout)) {
+          writeAfterLayoutChange(obj, value);
         }
-      } catch (InvalidAssumptionException e) {
-        replace(nextInCache).write(obj, value);
+      } else if (layout.layoutForSameClass(obj.getObjectLayout())) {
+        writeAndRespecialize(obj, value, "update outdated read node", nextInCache);
+      } else {
+        nextInCache.write(obj, value);
       }
       return value;
     }
@@ -371,18 +439,15 @@ public abstract class FieldAccessorNode extends Node {
 
     @Override
     public Object write(final SObject obj, final Object value) {
-      try {
-        if (hasExpectedLayout(obj)) {
-          storage.write(obj, value);
-        } else {
-          if (layout.layoutForSameClass(obj.getObjectLayout())) {
-            writeAndRespecialize(obj, value, "update outdated read node", nextInCache);
-          } else {
-            nextInCache.write(obj, value);
-          }
+      if (hasExpectedLayout(obj) || migratedToExpectedLayout(obj)) {
+        storage.write(obj, value);
+        if (!obj.hasLayoutAfterWrite(layout)) {
+          writeAfterLayoutChange(obj, value);
         }
-      } catch (InvalidAssumptionException e) {
-        replace(nextInCache).write(obj, value);
+      } else if (layout.layoutForSameClass(obj.getObjectLayout())) {
+        writeAndRespecialize(obj, value, "update outdated read node", nextInCache);
+      } else {
+        nextInCache.write(obj, value);
       }
       return value;
     }
@@ -7,13 +7,31 @@ import trufflesom.vmobjects.SObject;
 import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.Truffle;
-import com.oracle.truffle.api.nodes.InvalidAssumptionException;
 
 
+/**
+ * Describes where the fields of an object are stored.
+ *
+ * <p>
+ * The layouts of a class form a chain. A new layout is only ever derived
+ * from the latest one, by initializing or generalizing one field, and then
+ * becomes the latest itself. Thus, the latest layout is at least as general
+ * as all earlier ones, for every field. An older layout stays usable for the
+ * objects that have it, even after the class moved on to a newer one. Such
+ * objects are migrated lazily to the latest layout, once per object, when a
+ * field access guarding on another layout sees them. Thus, compiled code
+ * guarding on an old layout keeps working for these objects, and only the
+ * nodes that actually see a new layout are respecialized.
+ *
+ * <p>
+ * The assumption of a layout is only valid as long as it is the latest
+ * layout for its class.
+ */
 public final class ObjectLayout {
   private final SClass     forClass;
   private final Assumption latestLayoutForClass;
 
+  private final int inlineCapacity;
   private final int primitiveStorageLocationsUsed;
   private final int objectStorageLocationsUsed;
   private final int totalNumberOfStorageLocations;
@@ -33,24 +51,28 @@ public final class ObjectLayout {
 
     storageTypes = knownFieldTypes;
     totalNumberOfStorageLocations = knownFieldTypes.length;
+    inlineCapacity = SObject.getInlineCapacity(totalNumberOfStorageLocations);
     storageLocations = new StorageLocation[knownFieldTypes.length];
 
-    int nextFreePrimIdx = 0;
-    int nextFreeObjIdx = 0;
+    // field i is always stored in primitive slot i or object slot i, so that
+    // a racing write with an outdated layout cannot hit another field, see
+    // SObject.hasLayoutAfterWrite()
+    int primSlotsUsed = 0;
+    int objSlotsUsed = 0;
 
     for (int i = 0; i < totalNumberOfStorageLocations; i++) {
       Class<?> type = knownFieldTypes[i];
 
       StorageLocation storage;
       if (type == Long.class) {
-        storage = StorageLocation.createForLong(this, i, nextFreePrimIdx);
-        nextFreePrimIdx++;
+        storage = StorageLocation.createForLong(this, i, i);
+        primSlotsUsed = i + 1;
       } else if (type == Double.class) {
-        storage = StorageLocation.createForDouble(this, i, nextFreePrimIdx);
-        nextFreePrimIdx++;
+        storage = StorageLocation.createForDouble(this, i, i);
+        primSlotsUsed = i + 1;
       } else if (type == Object.class) {
-        storage = StorageLocation.createForObject(this, nextFreeObjIdx);
-        nextFreeObjIdx++;
+        storage = StorageLocation.createForObject(this, i);
+        objSlotsUsed = i + 1;
       } else {
         assert type == null;
         storage = new UnwrittenStorageLocation(this, i);
@@ -59,22 +81,15 @@ public final class ObjectLayout {
       storageLocations[i] = storage;
     }
 
-    primitiveStorageLocationsUsed = nextFreePrimIdx;
-    objectStorageLocationsUsed = nextFreeObjIdx;
+    primitiveStorageLocationsUsed = primSlotsUsed;
+    objectStorageLocationsUsed = objSlotsUsed;
   }
 
+  /** @return true, if this is the latest layout for its class */
   public boolean isValid() {
     return latestLayoutForClass.isValid();
   }
 
-  public void checkIsLatest() throws InvalidAssumptionException {
-    latestLayoutForClass.check();
-  }
-
-  Assumption getAssumption() {
-    return latestLayoutForClass;
-  }
-
   public boolean layoutForSameClass(final ObjectLayout other) {
     // TODO: think we don't need this with new guard logic
     return forClass == other.forClass;
@@ -92,18 +107,14 @@ public final class ObjectLayout {
     if (storageTypes[fieldIndex] == Object.class) {
       return this;
     } else {
-      assert storageTypes[fieldIndex] != Object.class;
-      Class<?>[] withGeneralizedField = storageTypes.clone();
-      withGeneralizedField[fieldIndex] = Object.class;
-
-      latestLayoutForClass.invalidate();
-      return new ObjectLayout(withGeneralizedField, forClass);
+      return transition(fieldIndex, Object.class);
     }
   }
 
   public ObjectLayout withInitializedField(final long fieldIndex, final Class<?> type) {
     Class<?> specType;
-    if (type == Long.class || type == Double.class) {
+    if ((type == Long.class || type == Double.class)
+        && fieldIndex < SObject.MAX_PRIMITIVE_FIELDS) {
       specType = type;
     } else {
       specType = Object.class;
@@ -114,16 +125,29 @@ public final class ObjectLayout {
   private ObjectLayout withInitializedField(final int fieldIndex, final Class<?> type) {
     if (storageTypes[fieldIndex] == type) {
       return this;
+    } else if (storageTypes[fieldIndex] != null) {
+      // an object with an older layout initialized the field with a value of
+      // another type than the one the class has seen already
+      return withGeneralizedField(fieldIndex);
     } else {
-      assert storageTypes[fieldIndex] == null;
-      Class<?>[] withInitializedField = storageTypes.clone();
-      withInitializedField[fieldIndex] = type;
-
-      latestLayoutForClass.invalidate();
-      return new ObjectLayout(withInitializedField, forClass);
+      return transition(fieldIndex, type);
     }
   }
 
+  /**
+   * Transitions are only done on the latest layout of a class, while holding
+   * the lock of the class. So each layout has at most one successor.
+   */
+  private ObjectLayout transition(final int fieldIndex, final Class<?> type) {
+    assert isValid();
+    Class<?>[] withChangedField = storageTypes.clone();
+    withChangedField[fieldIndex] = type;
+    ObjectLayout next = new ObjectLayout(withChangedField, forClass);
+
+    latestLayoutForClass.invalidate();
+    return next;
+  }
+
   public StorageLocation getStorageLocation(final long fieldIndex) {
     return getStorageLocation((int) fieldIndex);
   }
@@ -132,8 +156,16 @@ public final class ObjectLayout {
     return storageLocations[fieldIndex];
   }
 
+  /**
+   * @return the number of primitive and of object fields that are stored
+   *         directly in the objects with this layout
+   */
+  public int getInlineCapacity() {
+    return inlineCapacity;
+  }
+
   public int getNumberOfUsedExtendedObjectStorageLocations() {
-    int requiredExtensionFields = objectStorageLocationsUsed - SObject.NUM_OBJECT_FIELDS;
+    int requiredExtensionFields = objectStorageLocationsUsed - inlineCapacity;
     if (requiredExtensionFields < 0) {
       return 0;
     }
@@ -141,7 +173,7 @@ public final class ObjectLayout {
   }
 
   public int getNumberOfUsedExtendedPrimStorageLocations() {
-    int requiredExtensionFields = primitiveStorageLocationsUsed - SObject.NUM_PRIMITIVE_FIELDS;
+    int requiredExtensionFields = primitiveStorageLocationsUsed - inlineCapacity;
     if (requiredExtensionFields < 0) {
       return 0;
     }
@@ -41,6 +41,21 @@ public abstract class StorageLocation {
     return unsafe.objectFieldOffset(field);
   }
 
+  /** Keeps the loads before the fence from being reordered with the ones after it. */
+  public static void loadFence() {
+    unsafe.loadFence();
+  }
+
+  /** Keeps all memory accesses before the fence from being reordered with later ones. */
+  public static void fullFence() {
+    unsafe.fullFence();
+  }
+
+  public static boolean compareAndSwapInt(final Object obj, final long offset,
+      final int expected, final int value) {
+    return unsafe.compareAndSwapInt(obj, offset, expected, value);
+  }
+
   public interface LongStorageLocation {
     long readLong(SObject obj) throws UnexpectedResultException;
 
@@ -56,7 +71,7 @@ public abstract class StorageLocation {
   public static StorageLocation createForLong(final ObjectLayout layout,
       final long fieldIndex, final int primFieldIndex) {
     CompilerAsserts.neverPartOfCompilation("StorageLocation");
-    if (primFieldIndex < SObject.NUM_PRIMITIVE_FIELDS) {
+    if (primFieldIndex < layout.getInlineCapacity()) {
       return new LongDirectStoreLocation(layout, fieldIndex, primFieldIndex);
     } else {
       return new LongArrayStoreLocation(layout, fieldIndex, primFieldIndex);
@@ -66,7 +81,7 @@ public abstract class StorageLocation {
   public static StorageLocation createForDouble(final ObjectLayout layout,
       final long fieldIndex, final int primFieldIndex) {
     CompilerAsserts.neverPartOfCompilation("StorageLocation");
-    if (primFieldIndex < SObject.NUM_PRIMITIVE_FIELDS) {
+    if (primFieldIndex < layout.getInlineCapacity()) {
       return new DoubleDirectStoreLocation(layout, fieldIndex, primFieldIndex);
     } else {
       return new DoubleArrayStoreLocation(layout, fieldIndex, primFieldIndex);
@@ -76,7 +91,7 @@ public abstract class StorageLocation {
   public static StorageLocation createForObject(final ObjectLayout layout,
       final int objFieldIndex) {
     CompilerAsserts.neverPartOfCompilation("StorageLocation");
-    if (objFieldIndex < SObject.NUM_PRIMITIVE_FIELDS) {
+    if (objFieldIndex < layout.getInlineCapacity()) {
       return new ObjectDirectStorageLocation(layout, objFieldIndex);
     } else {
       return new ObjectArrayStorageLocation(layout, objFieldIndex);
@@ -198,7 +213,7 @@ public abstract class StorageLocation {
 
     public ObjectArrayStorageLocation(final ObjectLayout layout, final int fieldIndex) {
       super(layout, fieldIndex);
-      extensionIndex = fieldIndex - SObject.NUM_OBJECT_FIELDS;
+      extensionIndex = fieldIndex - layout.getInlineCapacity();
     }
 
     @Override
@@ -374,7 +389,7 @@ public abstract class StorageLocation {
     public PrimitiveArrayStoreLocation(final ObjectLayout layout,
         final long fieldIndex, final int primField) {
       super(layout, fieldIndex, primField);
-      extensionIndex = primField - SObject.NUM_PRIMITIVE_FIELDS;
+      extensionIndex = primField - layout.getInlineCapacity();
       assert extensionIndex >= 0;
     }
   }
@@ -26,8 +26,11 @@
 package trufflesom.primitives;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.Map.Entry;
 
 import com.oracle.truffle.api.CompilerAsserts;
@@ -47,9 +50,13 @@ import trufflesom.interpreter.nodes.specialized.AndMessageNodeFactory;
 import trufflesom.interpreter.nodes.specialized.BooleanInlinedLiteralNode.AndInlinedLiteralNode;
 import trufflesom.interpreter.nodes.specialized.BooleanInlinedLiteralNode.OrInlinedLiteralNode;
 import trufflesom.interpreter.nodes.specialized.IfInlinedLiteralNode;
+import trufflesom.interpreter.nodes.specialized.IfNilIfNotNilInlinedLiteralsNodeFactory;
 import trufflesom.interpreter.nodes.specialized.IfTrueIfFalseInlinedLiteralsNode;
 import trufflesom.interpreter.nodes.specialized.IfTrueIfFalseMessageNodeFactory;
+import trufflesom.interpreter.nodes.specialized.IntDownToDoInlinedLiteralsNodeFactory;
 import trufflesom.interpreter.nodes.specialized.IntDownToDoMessageNodeFactory;
+import trufflesom.interpreter.nodes.specialized.IntTimesRepeatInlinedLiteralNodeFactory;
+import trufflesom.interpreter.nodes.specialized.IntToByDoInlinedLiteralsNodeFactory;
 import trufflesom.interpreter.nodes.specialized.IntToByDoMessageNodeFactory;
 import trufflesom.interpreter.nodes.specialized.IntToDoInlinedLiteralsNodeFactory;
 import trufflesom.interpreter.nodes.specialized.IntToDoMessageNodeFactory;
@@ -73,11 +80,17 @@ import trufflesom.primitives.arithmetic.SqrtPrimFactory;
 import trufflesom.primitives.arithmetic.SubtractionPrimFactory;
 import trufflesom.primitives.arrays.AtPrimFactory;
 import trufflesom.primitives.arrays.AtPutPrimFactory;
+import trufflesom.primitives.arrays.CollectPrimFactory;
+import trufflesom.primitives.arrays.CopyFromToPrimFactory;
 import trufflesom.primitives.arrays.CopyPrimFactory;
 import trufflesom.primitives.arrays.DoIndexesPrimFactory;
 import trufflesom.primitives.arrays.DoPrimFactory;
+import trufflesom.primitives.arrays.IndexOfPrimFactory;
+import trufflesom.primitives.arrays.InjectIntoPrimFactory;
 import trufflesom.primitives.arrays.NewPrimFactory;
+import trufflesom.primitives.arrays.ParallelPrimsFactory;
 import trufflesom.primitives.arrays.PutAllNodeFactory;
+import trufflesom.primitives.arrays.ReplaceFromToWithPrimFactory;
 import trufflesom.primitives.basics.AsStringPrimFactory;
 import trufflesom.primitives.basics.BlockPrimsFactory;
 import trufflesom.primitives.basics.DoublePrimsFactory;
@@ -90,6 +103,7 @@ import trufflesom.primitives.basics.NewObjectPrimFactory;
 import trufflesom.primitives.basics.StringPrimsFactory;
 import trufflesom.primitives.basics.SystemPrimsFactory;
 import trufflesom.primitives.basics.UnequalsPrimFactory;
+import trufflesom.primitives.collections.CollectionPrimsFactory;
 import trufflesom.primitives.reflection.ClassPrimsFactory;
 import trufflesom.primitives.reflection.GlobalPrimFactory;
 import trufflesom.primitives.reflection.HasGlobalPrimFactory;
@@ -100,6 +114,7 @@ import trufflesom.primitives.reflection.PerformInSuperclassPrimFactory;
 import trufflesom.primitives.reflection.PerformPrimFactory;
 import trufflesom.primitives.reflection.PerformWithArgumentsInSuperclassPrimFactory;
 import trufflesom.primitives.reflection.PerformWithArgumentsPrimFactory;
+import trufflesom.primitives.threading.ThreadingPrimsFactory;
 import trufflesom.vm.Universe;
 import trufflesom.vmobjects.SClass;
 import trufflesom.vmobjects.SInvokable;
@@ -109,6 +124,14 @@ import trufflesom.vmobjects.SSymbol;
 
 public final class Primitives extends PrimitiveLoader<Universe, ExpressionNode, SSymbol> {
 
+  /**
+   * Primitives that add methods to a class of the core library, which does not
+   * declare them. The core library is maintained separately, and does not
+   * include the parallel Array primitives.
+   */
+  private static final Set<String> UNDECLARED_PRIMITIVES = new HashSet<>(Arrays.asList(
+      "Array>>#parallelDo:", "Array>>#parallelCollect:", "Array>>#parallelInject:into:"));
+
   /** Primitives for class and method name. */
   private final HashMap<SSymbol, HashMap<SSymbol, Specializer<Universe, ExpressionNode, SSymbol>>> primitives;
 
@@ -150,14 +173,20 @@ public final class Primitives extends PrimitiveLoader<Universe, ExpressionNode,
         target = clazz;
       }
 
-      SInvokable ivk = target.lookupInvokable(e.getKey());
-      assert ivk != null : "Lookup of " + e.getKey().toString() + " failed in "
-          + target.getName().getString() + ". Can't install a primitive for it.";
+      assert isDeclaredOrUndeclaredPrimitive(target, e.getKey()) : "Lookup of "
+          + e.getKey().toString() + " failed in " + target.getName().getString()
+          + ". Can't install a primitive for it.";
       SInvokable prim = constructPrimitive(e.getKey(), context.getLanguage(), e.getValue());
       target.addInstanceInvokable(prim);
     }
   }
 
+  private static boolean isDeclaredOrUndeclaredPrimitive(final SClass target,
+      final SSymbol selector) {
+    return target.lookupInvokable(selector) != null || UNDECLARED_PRIMITIVES.contains(
+        target.getName().getString() + ">>#" + selector.getString());
+  }
+
   @Override
   protected void registerPrimitive(final bd.primitives.Primitive prim,
       final Specializer<Universe, ExpressionNode, SSymbol> specializer) {
@@ -214,6 +243,9 @@ public final class Primitives extends PrimitiveLoader<Universe, ExpressionNode,
     allFactories.addAll(ClassPrimsFactory.getFactories());
     allFactories.addAll(MethodPrimsFactory.getFactories());
     allFactories.addAll((List) ObjectPrimsFactory.getFactories());
+    allFactories.addAll((List) ThreadingPrimsFactory.getFactories());
+    allFactories.addAll((List) ParallelPrimsFactory.getFactories());
+    allFactories.addAll((List) CollectionPrimsFactory.getFactories());
 
     allFactories.add(AdditionPrimFactory.getInstance());
     allFactories.add(BitXorPrimFactory.getInstance());
@@ -234,6 +266,11 @@ public final class Primitives extends PrimitiveLoader<Universe, ExpressionNode,
     allFactories.add(AtPrimFactory.getInstance());
     allFactories.add(AtPutPrimFactory.getInstance());
     allFactories.add(CopyPrimFactory.getInstance());
+    allFactories.add(CopyFromToPrimFactory.getInstance());
+    allFactories.add(CollectPrimFactory.getInstance());
+    allFactories.add(IndexOfPrimFactory.getInstance());
+    allFactories.add(InjectIntoPrimFactory.getInstance());
+    allFactories.add(ReplaceFromToWithPrimFactory.getInstance());
     allFactories.add(DoIndexesPrimFactory.getInstance());
     allFactories.add(DoPrimFactory.getInstance());
     allFactories.add(NewPrimFactory.getInstance());
@@ -282,6 +319,10 @@ public final class Primitives extends PrimitiveLoader<Universe, ExpressionNode,
     List<NodeFactory<? extends Node>> factories = new ArrayList<>();
 
     factories.add(IntToDoInlinedLiteralsNodeFactory.getInstance());
+    factories.add(IntToByDoInlinedLiteralsNodeFactory.getInstance());
+    factories.add(IntDownToDoInlinedLiteralsNodeFactory.getInstance());
+    factories.add(IntTimesRepeatInlinedLiteralNodeFactory.getInstance());
+    factories.add(IfNilIfNotNilInlinedLiteralsNodeFactory.getInstance());
 
     return factories;
   }
@@ -21,8 +21,23 @@ public abstract class AdditionPrim extends ArithmeticPrim {
   }
 
   @Specialization
-  public final BigInteger doLongWithOverflow(final long left, final long argument) {
-    return BigInteger.valueOf(left).add(BigInteger.valueOf(argument));
+  public final Object doLongWithOverflow(final long left, final long argument) {
+    return Int128.add(left, argument);
+  }
+
+  @Specialization
+  public final Object doInt128(final Int128 left, final long right) {
+    return Int128.add(left, right);
+  }
+
+  @Specialization
+  public final Object doLong(final long left, final Int128 right) {
+    return Int128.add(right, left);
+  }
+
+  @Specialization
+  public final Object doInt128(final Int128 left, final Int128 right) {
+    return Int128.add(left, right);
   }
 
   @Specialization
@@ -0,0 +1,225 @@
+package trufflesom.primitives.arithmetic;
+
+import java.math.BigInteger;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+
+/**
+ * Integer that does not fit into a {@code long}, but into 128 bits, stored as
+ * the high and low word of its two's complement representation.
+ *
+ * <p>
+ * The result of adding, subtracting, or multiplying two {@code long} values
+ * always fits into 128 bits. Instead of converting both operands to
+ * {@link BigInteger}, we compute the high and low word of the result directly.
+ * Operations on {@link Int128} values produce a {@code long} if the result
+ * fits, an {@link Int128} if it fits into 128 bits, and only fall back to
+ * {@link BigInteger} beyond that.
+ *
+ * <p>
+ * Primitives without a specialization for {@link Int128} receive it as
+ * {@link BigInteger}, see {@link trufflesom.interpreter.Types}.
+ */
+public final class Int128 {
+  public final long high;
+  public final long low;
+
+  private Int128(final long high, final long low) {
+    assert high != low >> 63 : "values that fit into a long are represented as long";
+    this.high = high;
+    this.low = low;
+  }
+
+  /** @return the value high:low as {@code long} if it fits, or as {@link Int128} */
+  private static Object valueOf(final long high, final long low) {
+    if (high == low >> 63) {
+      return low;
+    }
+    return new Int128(high, low);
+  }
+
+  /** @return the value as {@code long}, {@link Int128}, or {@link BigInteger} */
+  @TruffleBoundary
+  public static Object valueOf(final BigInteger value) {
+    if (value.bitLength() < Long.SIZE) {
+      return value.longValue();
+    } else if (value.bitLength() < 2 * Long.SIZE) {
+      return new Int128(value.shiftRight(Long.SIZE).longValue(), value.longValue());
+    }
+    return value;
+  }
+
+  public static Object add(final long left, final long right) {
+    long low = left + right;
+    long carry = Long.compareUnsigned(low, left) < 0 ? 1 : 0;
+    long high = (left >> 63) + (right >> 63) + carry;
+    return valueOf(high, low);
+  }
+
+  public static Object add(final Int128 left, final long right) {
+    return add(left.high, left.low, right >> 63, right);
+  }
+
+  public static Object add(final Int128 left, final Int128 right) {
+    return add(left.high, left.low, right.high, right.low);
+  }
+
+  private static Object add(final long leftHigh, final long leftLow, final long rightHigh,
+      final long rightLow) {
+    long low = leftLow + rightLow;
+    long carry = Long.compareUnsigned(low, leftLow) < 0 ? 1 : 0;
+    long high = leftHigh + rightHigh + carry;
+
+    if (((leftHigh ^ high) & (rightHigh ^ high)) < 0) {
+      return valueOf(toBigInteger(leftHigh, leftLow).add(toBigInteger(rightHigh, rightLow)));
+    }
+    return valueOf(high, low);
+  }
+
+  public static Object subtract(final long left, final long right) {
+    long low = left - right;
+    long borrow = Long.compareUnsigned(left, right) < 0 ? 1 : 0;
+    long high = (left >> 63) - (right >> 63) - borrow;
+    return valueOf(high, low);
+  }
+
+  public static Object subtract(final Int128 left, final long right) {
+    return subtract(left.high, left.low, right >> 63, right);
+  }
+
+  public static Object subtract(final long left, final Int128 right) {
+    return subtract(left >> 63, left, right.high, right.low);
+  }
+
+  public static Object subtract(final Int128 left, final Int128 right) {
+    return subtract(left.high, left.low, right.high, right.low);
+  }
+
+  private static Object subtract(final long leftHigh, final long leftLow,
+      final long rightHigh, final long rightLow) {
+    long low = leftLow - rightLow;
+    long borrow = Long.compareUnsigned(leftLow, rightLow) < 0 ? 1 : 0;
+    long high = leftHigh - rightHigh - borrow;
+
+    if (((leftHigh ^ rightHigh) & (leftHigh ^ high)) < 0) {
+      return valueOf(
+          toBigInteger(leftHigh, leftLow).subtract(toBigInteger(rightHigh, rightLow)));
+    }
+    return valueOf(high, low);
+  }
+
+  public static Object multiply(final long left, final long right) {
+    return valueOf(multiplyHigh(left, right), left * right);
+  }
+
+  public static Object multiply(final Int128 left, final long right) {
+    return multiply(left.high, left.low, right >> 63, right);
+  }
+
+  public static Object multiply(final Int128 left, final Int128 right) {
+    return multiply(left.high, left.low, right.high, right.low);
+  }
+
+  /**
+   * The magnitude of the product is at most 2^(bits of left + bits of right).
+   * If that fits, the lower 128 bits of the product are the exact result.
+   */
+  private static Object multiply(final long leftHigh, final long leftLow,
+      final long rightHigh, final long rightLow) {
+    if (bitLength(leftHigh, leftLow) + bitLength(rightHigh, rightLow) > 2 * Long.SIZE - 2) {
+      return valueOf(
+          toBigInteger(leftHigh, leftLow).multiply(toBigInteger(rightHigh, rightLow)));
+    }
+
+    long high = unsignedMultiplyHigh(leftLow, rightLow)
+        + leftHigh * rightLow + leftLow * rightHigh;
+    return valueOf(high, leftLow * rightLow);
+  }
+
+  /**
+   * Shift the receiver left, using the 128-bit representation if the result
+   * fits, and {@link BigInteger#shiftLeft(int)} otherwise.
+   */
+  public static Object shiftLeft(final long receiver, final int shift) {
+    assert shift >= 0;
+    if (shift == 0) {
+      return receiver;
+    }
+
+    if (shift < Long.SIZE && bitLength(receiver) + shift < 2 * Long.SIZE) {
+      return valueOf(receiver >> (Long.SIZE - shift), receiver << shift);
+    }
+    return valueOf(BigInteger.valueOf(receiver).shiftLeft(shift));
+  }
+
+  /** @return the number of bits of the value, excluding the sign bit */
+  private static int bitLength(final long value) {
+    return Long.SIZE - Long.numberOfLeadingZeros(value < 0 ? ~value : value);
+  }
+
+  /** @return the number of bits of the value high:low, excluding the sign bit */
+  private static int bitLength(final long high, final long low) {
+    if (high == low >> 63) {
+      return bitLength(low);
+    }
+    return Long.SIZE + bitLength(high);
+  }
+
+  /** Same as {@code Math.multiplyHigh()}, which is not available on Java 8. */
+  private static long multiplyHigh(final long x, final long y) {
+    long x1 = x >> 32;
+    long x2 = x & 0xFFFFFFFFL;
+    long y1 = y >> 32;
+    long y2 = y & 0xFFFFFFFFL;
+
+    long z2 = x2 * y2;
+    long t = x1 * y2 + (z2 >>> 32);
+    long z1 = t & 0xFFFFFFFFL;
+    long z0 = t >> 32;
+    z1 += x2 * y1;
+
+    return x1 * y1 + z0 + (z1 >> 32);
+  }
+
+  /** High word of the product of x and y, taken as unsigned values. */
+  private static long unsignedMultiplyHigh(final long x, final long y) {
+    return multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+  }
+
+  public BigInteger toBigInteger() {
+    return toBigInteger(high, low);
+  }
+
+  /** Create the {@link BigInteger} for the two's complement value high:low. */
+  @TruffleBoundary
+  private static BigInteger toBigInteger(final long high, final long low) {
+    byte[] bytes = new byte[2 * Long.BYTES];
+    for (int i = 0; i < Long.BYTES; i++) {
+      int shift = Long.SIZE - Byte.SIZE * (i + 1);
+      bytes[i] = (byte) (high >>> shift);
+      bytes[Long.BYTES + i] = (byte) (low >>> shift);
+    }
+    return new BigInteger(bytes);
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (!(obj instanceof Int128)) {
+      return false;
+    }
+    Int128 other = (Int128) obj;
+    return high == other.high && low == other.low;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Long.hashCode(high) + Long.hashCode(low);
+  }
+
+  @Override
+  @TruffleBoundary
+  public String toString() {
+    return toBigInteger().toString();
+  }
+}
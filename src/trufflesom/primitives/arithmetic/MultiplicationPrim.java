@@ -20,7 +20,22 @@ public abstract class MultiplicationPrim extends ArithmeticPrim {
 
   @Specialization
   public final Object doLongWithOverflow(final long left, final long right) {
-    return BigInteger.valueOf(left).multiply(BigInteger.valueOf(right));
+    return Int128.multiply(left, right);
+  }
+
+  @Specialization
+  public final Object doInt128(final Int128 left, final long right) {
+    return Int128.multiply(left, right);
+  }
+
+  @Specialization
+  public final Object doLong(final long left, final Int128 right) {
+    return Int128.multiply(right, left);
+  }
+
+  @Specialization
+  public final Object doInt128(final Int128 left, final Int128 right) {
+    return Int128.multiply(left, right);
   }
 
   @Specialization
@@ -19,8 +19,23 @@ public abstract class SubtractionPrim extends ArithmeticPrim {
   }
 
   @Specialization
-  public final BigInteger doLongWithOverflow(final long left, final long right) {
-    return BigInteger.valueOf(left).subtract(BigInteger.valueOf(right));
+  public final Object doLongWithOverflow(final long left, final long right) {
+    return Int128.subtract(left, right);
+  }
+
+  @Specialization
+  public final Object doInt128(final Int128 left, final long right) {
+    return Int128.subtract(left, right);
+  }
+
+  @Specialization
+  public final Object doLong(final long left, final Int128 right) {
+    return Int128.subtract(left, right);
+  }
+
+  @Specialization
+  public final Object doInt128(final Int128 left, final Int128 right) {
+    return Int128.subtract(left, right);
   }
 
   @Specialization
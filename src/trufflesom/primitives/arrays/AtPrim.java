@@ -19,6 +19,11 @@ import trufflesom.vmobjects.SArray.ArrayType;
 public abstract class AtPrim extends BinaryExpressionNode {
   private final ValueProfile storageType = ValueProfile.createClassProfile();
 
+  @Specialization(guards = "receiver.isSlice()")
+  public final Object doSlice(final SArray receiver, final long idx) {
+    return receiver.getSlice().get(receiver.getType(), (int) idx - 1);
+  }
+
   @Specialization(guards = "isEmptyType(receiver)")
   public final Object doEmptySArray(final SArray receiver, final long idx) {
     assert idx > 0;
@@ -41,6 +46,16 @@ public abstract class AtPrim extends BinaryExpressionNode {
     return receiver.getLongStorage(storageType)[(int) idx - 1];
   }
 
+  @Specialization(guards = "isByteType(receiver)")
+  public final long doByteSArray(final SArray receiver, final long idx) {
+    return receiver.getByteStorage(storageType)[(int) idx - 1];
+  }
+
+  @Specialization(guards = "isIntType(receiver)")
+  public final long doIntSArray(final SArray receiver, final long idx) {
+    return receiver.getIntStorage(storageType)[(int) idx - 1];
+  }
+
   @Specialization(guards = "isDoubleType(receiver)")
   public final double doDoubleSArray(final SArray receiver, final long idx) {
     return receiver.getDoubleStorage(storageType)[(int) idx - 1];
@@ -14,7 +14,7 @@ import trufflesom.vmobjects.SArray.PartiallyEmptyArray;
 
 
 @GenerateNodeFactory
-@ImportStatic(ArrayType.class)
+@ImportStatic({ArrayType.class, SArray.class})
 @Primitive(className = "Array", primitive = "at:put:", selector = "at:put:",
     receiverType = SArray.class, inParser = false)
 public abstract class AtPutPrim extends TernaryExpressionNode {
@@ -101,27 +101,15 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
     return value;
   }
 
-  private void setValue(final long idx, final Object value,
-      final PartiallyEmptyArray storage) {
-    assert idx >= 0;
-    assert idx < storage.getLength();
-
-    if (storage.get(idx) == Nil.nilObject) {
-      storage.decEmptyElements();
-    }
-    storage.set(idx, value);
-  }
-
   @Specialization(guards = "isPartiallyEmptyType(receiver)")
   public final long doPartiallyEmptySArray(final SArray receiver,
       final long index, final long value) {
     long idx = index - 1;
     PartiallyEmptyArray storage = receiver.getPartiallyEmptyStorage(storageType);
-    setValue(idx, value, storage);
-    if (storage.getType() != ArrayType.LONG) {
-      storage.setType(ArrayType.OBJECT);
-    }
+    assert idx >= 0;
+    assert idx < storage.getLength();
 
+    storage.setLong(idx, value);
     receiver.ifFullTransitionPartiallyEmpty();
     return value;
   }
@@ -131,10 +119,10 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
       final long index, final double value) {
     long idx = index - 1;
     PartiallyEmptyArray storage = receiver.getPartiallyEmptyStorage(storageType);
-    setValue(idx, value, storage);
-    if (storage.getType() != ArrayType.DOUBLE) {
-      storage.setType(ArrayType.OBJECT);
-    }
+    assert idx >= 0;
+    assert idx < storage.getLength();
+
+    storage.setDouble(idx, value);
     receiver.ifFullTransitionPartiallyEmpty();
     return value;
   }
@@ -144,10 +132,10 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
       final long index, final boolean value) {
     long idx = index - 1;
     PartiallyEmptyArray storage = receiver.getPartiallyEmptyStorage(storageType);
-    setValue(idx, value, storage);
-    if (storage.getType() != ArrayType.BOOLEAN) {
-      storage.setType(ArrayType.OBJECT);
-    }
+    assert idx >= 0;
+    assert idx < storage.getLength();
+
+    storage.setBoolean(idx, value);
     receiver.ifFullTransitionPartiallyEmpty();
     return value;
   }
@@ -160,10 +148,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
     assert idx >= 0;
     assert idx < storage.getLength();
 
-    if (storage.get(idx) != Nil.nilObject) {
-      storage.incEmptyElements();
-      setValue(idx, Nil.nilObject, storage);
-    }
+    storage.setNil(idx);
     return value;
   }
 
@@ -172,8 +157,10 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
       final long index, final Object value) {
     long idx = index - 1;
     PartiallyEmptyArray storage = receiver.getPartiallyEmptyStorage(storageType);
-    setValue(idx, value, storage);
-    storage.setType(ArrayType.OBJECT);
+    assert idx >= 0;
+    assert idx < storage.getLength();
+
+    storage.set(idx, value);
     receiver.ifFullTransitionPartiallyEmpty();
     return value;
   }
@@ -182,7 +169,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
   public final Object doObjectSArray(final SArray receiver, final long index,
       final Object value) {
     long idx = index - 1;
-    receiver.getObjectStorage(storageType)[(int) idx] = value;
+    receiver.getObjectStorageForWrite(storageType)[(int) idx] = value;
     return value;
   }
 
@@ -190,7 +177,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
   public final Object doObjectSArray(final SArray receiver, final long index,
       final long value) {
     long idx = index - 1;
-    receiver.getLongStorage(storageType)[(int) idx] = value;
+    receiver.getLongStorageForWrite(storageType)[(int) idx] = value;
     return value;
   }
 
@@ -210,11 +197,59 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
     return value;
   }
 
+  @Specialization(guards = {"isByteType(receiver)", "isByteValue(value)"})
+  public final long doByteSArray(final SArray receiver, final long index,
+      final long value) {
+    long idx = index - 1;
+    receiver.getByteStorageForWrite(storageType)[(int) idx] = (byte) value;
+    return value;
+  }
+
+  @Specialization(guards = {"isByteType(receiver)", "!isByteValue(value)"})
+  public final long doByteSArrayWithOverflow(final SArray receiver, final long index,
+      final long value) {
+    long idx = index - 1;
+    receiver.transitionCompactToLong()[(int) idx] = value;
+    return value;
+  }
+
+  @Specialization(guards = {"isByteType(receiver)", "valueIsNotLong(value)"})
+  public final Object doByteSArray(final SArray receiver, final long index,
+      final Object value) {
+    long idx = index - 1;
+    receiver.transitionCompactToObject()[(int) idx] = value;
+    return value;
+  }
+
+  @Specialization(guards = {"isIntType(receiver)", "isIntValue(value)"})
+  public final long doIntSArray(final SArray receiver, final long index,
+      final long value) {
+    long idx = index - 1;
+    receiver.getIntStorageForWrite(storageType)[(int) idx] = (int) value;
+    return value;
+  }
+
+  @Specialization(guards = {"isIntType(receiver)", "!isIntValue(value)"})
+  public final long doIntSArrayWithOverflow(final SArray receiver, final long index,
+      final long value) {
+    long idx = index - 1;
+    receiver.transitionCompactToLong()[(int) idx] = value;
+    return value;
+  }
+
+  @Specialization(guards = {"isIntType(receiver)", "valueIsNotLong(value)"})
+  public final Object doIntSArray(final SArray receiver, final long index,
+      final Object value) {
+    long idx = index - 1;
+    receiver.transitionCompactToObject()[(int) idx] = value;
+    return value;
+  }
+
   @Specialization(guards = "isDoubleType(receiver)")
   public final Object doDoubleSArray(final SArray receiver, final long index,
       final double value) {
     long idx = index - 1;
-    receiver.getDoubleStorage(storageType)[(int) idx] = value;
+    receiver.getDoubleStorageForWrite(storageType)[(int) idx] = value;
     return value;
   }
 
@@ -238,7 +273,7 @@ public abstract class AtPutPrim extends TernaryExpressionNode {
   public final Object doBooleanSArray(final SArray receiver, final long index,
       final boolean value) {
     long idx = index - 1;
-    receiver.getBooleanStorage(storageType)[(int) idx] = value;
+    receiver.getBooleanStorageForWrite(storageType)[(int) idx] = value;
     return value;
   }
 
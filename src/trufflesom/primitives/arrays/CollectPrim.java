@@ -0,0 +1,182 @@
+package trufflesom.primitives.arrays;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.ImportStatic;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.profiles.ValueProfile;
+
+import bd.primitives.Primitive;
+import trufflesom.interpreter.Invokable;
+import trufflesom.interpreter.nodes.dispatch.AbstractDispatchNode;
+import trufflesom.interpreter.nodes.dispatch.UninitializedValuePrimDispatchNode;
+import trufflesom.interpreter.nodes.nary.BinaryExpressionNode;
+import trufflesom.primitives.basics.BlockPrims.ValuePrimitiveNode;
+import trufflesom.vm.constants.Nil;
+import trufflesom.vmobjects.SArray;
+import trufflesom.vmobjects.SArray.ArrayType;
+import trufflesom.vmobjects.SArray.PartiallyEmptyArray;
+import trufflesom.vmobjects.SBlock;
+
+
+/**
+ * Maps the elements of the array, reading them directly from the typed
+ * storage. The result uses typed storage, too, if all results are integers
+ * or doubles.
+ */
+@GenerateNodeFactory
+@ImportStatic(ArrayType.class)
+@Primitive(className = "Array", primitive = "collect:")
+public abstract class CollectPrim extends BinaryExpressionNode
+    implements ValuePrimitiveNode {
+  @Child private AbstractDispatchNode block       = new UninitializedValuePrimDispatchNode();
+  private final ValueProfile          storageType = ValueProfile.createClassProfile();
+
+  @Override
+  public void adoptNewDispatchListHead(final AbstractDispatchNode node) {
+    block = insert(node);
+  }
+
+  private Object execBlock(final VirtualFrame frame, final SBlock block,
+      final Object element) {
+    return this.block.executeDispatch(frame, new Object[] {block, element});
+  }
+
+  @Specialization(guards = "isEmptyType(arr)")
+  public final SArray doEmptyArray(final VirtualFrame frame, final SArray arr,
+      final SBlock block) {
+    int length = arr.getEmptyStorage(storageType);
+    Object[] results = new Object[length];
+    try {
+      for (int i = 0; i < length; i++) {
+        results[i] = execBlock(frame, block, Nil.nilObject);
+      }
+    } finally {
+      if (CompilerDirectives.inInterpreter()) {
+        Invokable.reportLoopCount(this, length);
+      }
+    }
+    return SArray.createWithCompactStorage(results);
+  }
+
+  @Specialization(guards = "isPartiallyEmptyType(arr)")
+  public final SArray doPartiallyEmptyArray(final VirtualFrame frame, final SArray arr,
+      final SBlock block) {
+    PartiallyEmptyArray storage = arr.getPartiallyEmptyStorage(storageType);
+    int length = storage.getLength();
+    Object[] results = new Object[length];
+    try {
+      for (int i = 0; i < length; i++) {
+        results[i] = execBlock(frame, block, storage.get(i));
+      }
+    } finally {
+      if (CompilerDirectives.inInterpreter()) {
+        Invokable.reportLoopCount(this, length);
+      }
+    }
+    return SArray.createWithCompactStorage(results);
+  }
+
+  @Specialization(guards = "isObjectType(arr)")
+  public final SArray doObjectArray(final VirtualFrame frame, final SArray arr,
+      final SBlock block) {
+    Object[] storage = arr.getObjectStorage(storageType);
+    Object[] results = new Object[storage.length];
+    try {
+      for (int i = 0; i < storage.length; i++) {
+        results[i] = execBlock(frame, block, storage[i]);
+      }
+    } finally {
+      if (CompilerDirectives.inInterpreter()) {
+        Invokable.reportLoopCount(this, storage.length);
+      }
+    }
+    return SArray.createWithCompactStorage(results);
+  }
+
+  @Specialization(guards = "isByteType(arr)")
+  public final SArray doByteArray(final VirtualFrame frame, final SArray arr,
+      final SBlock block) {
+    byte[] storage = arr.getByteStorage(storageType);
+    Object[] results = new Object[storage.length];
+    try {
+      for (int i = 0; i < storage.length; i++) {
+        results[i] = execBlock(frame, block, (long) storage[i]);
+      }
+    } finally {
+      if (CompilerDirectives.inInterpreter()) {
+        Invokable.reportLoopCount(this, storage.length);
+      }
+    }
+    return SArray.createWithCompactStorage(results);
+  }
+
+  @Specialization(guards = "isIntType(arr)")
+  public final SArray doIntArray(final VirtualFrame frame, final SArray arr,
+      final SBlock block) {
+    int[] storage = arr.getIntStorage(storageType);
+    Object[] results = new Object[storage.length];
+    try {
+      for (int i = 0; i < storage.length; i++) {
+        results[i] = execBlock(frame, block, (long) storage[i]);
+      }
+    } finally {
+      if (CompilerDirectives.inInterpreter()) {
+        Invokable.reportLoopCount(this, storage.length);
+      }
+    }
+    return SArray.createWithCompactStorage(results);
+  }
+
+  @Specialization(guards = "isLongType(arr)")
+  public final SArray doLongArray(final VirtualFrame frame, final SArray arr,
+      final SBlock block) {
+    long[] storage = arr.getLongStorage(storageType);
+    Object[] results = new Object[storage.length];
+    try {
+      for (int i = 0; i < storage.length; i++) {
+        results[i] = execBlock(frame, block, storage[i]);
+      }
+    } finally {
+      if (CompilerDirectives.inInterpreter()) {
+        Invokable.reportLoopCount(this, storage.length);
+      }
+    }
+    return SArray.createWithCompactStorage(results);
+  }
+
+  @Specialization(guards = "isDoubleType(arr)")
+  public final SArray doDoubleArray(final VirtualFrame frame, final SArray arr,
+      final SBlock block) {
+    double[] storage = arr.getDoubleStorage(storageType);
+    Object[] results = new Object[storage.length];
+    try {
+      for (int i = 0; i < storage.length; i++) {
+        results[i] = execBlock(frame, block, storage[i]);
+      }
+    } finally {
+      if (CompilerDirectives.inInterpreter()) {
+        Invokable.reportLoopCount(this, storage.length);
+      }
+    }
+    return SArray.createWithCompactStorage(results);
+  }
+
+  @Specialization(guards = "isBooleanType(arr)")
+  public final SArray doBooleanArray(final VirtualFrame frame, final SArray arr,
+      final SBlock block) {
+    boolean[] storage = arr.getBooleanStorage(storageType);
+    Object[] results = new Object[storage.length];
+    try {
+      for (int i = 0; i < storage.length; i++) {
+        results[i] = execBlock(frame, block, storage[i]);
+      }
+    } finally {
+      if (CompilerDirectives.inInterpreter()) {
+        Invokable.reportLoopCount(this, storage.length);
+      }
+    }
+    return SArray.createWithCompactStorage(results);
+  }
+}
@@ -0,0 +1,125 @@
+package trufflesom.primitives.arrays;
+
+import java.util.Arrays;
+
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.ImportStatic;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.profiles.ValueProfile;
+
+import bd.primitives.Primitive;
+import trufflesom.interpreter.nodes.nary.TernaryExpressionNode;
+import trufflesom.primitives.basics.LengthPrim;
+import trufflesom.primitives.basics.LengthPrimFactory;
+import trufflesom.vmobjects.SArray;
+import trufflesom.vmobjects.SArray.ArrayType;
+
+
+/**
+ * Copies the elements from {@code start} to {@code end}, inclusively, without
+ * boxing them. If the whole array is copied, the copy shares the storage
+ * until one of the arrays is written to. Longer ranges, and ranges of a
+ * slice, become a {@link SArray.Slice} of the shared storage.
+ */
+@GenerateNodeFactory
+@ImportStatic(ArrayType.class)
+@Primitive(className = "Array", primitive = "copyFrom:to:")
+public abstract class CopyFromToPrim extends TernaryExpressionNode {
+  private final ValueProfile storageType = ValueProfile.createClassProfile();
+
+  @Child private LengthPrim length = LengthPrimFactory.create(null);
+
+  protected final boolean isWholeArray(final SArray receiver, final long start,
+      final long end) {
+    return start == 1 && end == length.executeEvaluated(receiver);
+  }
+
+  protected final boolean shouldSlice(final SArray receiver, final long start,
+      final long end) {
+    if (start < 1 || end > length.executeEvaluated(receiver)) {
+      return false;
+    }
+    return receiver.isSlice() || newLength(start, end) >= SArray.MIN_SLICE_LENGTH;
+  }
+
+  private static int newLength(final long start, final long end) {
+    return (int) Math.max(0, end - start + 1);
+  }
+
+  private static int from(final long start) {
+    return (int) start - 1;
+  }
+
+  private static int to(final long start, final long end) {
+    return from(start) + newLength(start, end);
+  }
+
+  @Specialization(guards = "isEmptyType(receiver)")
+  public final SArray doEmptyArray(final SArray receiver, final long start,
+      final long end) {
+    assert end <= receiver.getEmptyStorage(storageType);
+    return new SArray(newLength(start, end));
+  }
+
+  @Specialization(guards = "isPartiallyEmptyType(receiver)")
+  public final SArray doPartiallyEmptyArray(final SArray receiver, final long start,
+      final long end) {
+    Object[] storage = receiver.getPartiallyEmptyStorage(storageType).toObjectArray();
+    return SArray.create(Arrays.copyOfRange(storage, from(start), to(start, end)));
+  }
+
+  @Specialization(guards = {"!isEmptyType(receiver)", "!isPartiallyEmptyType(receiver)",
+      "isWholeArray(receiver, start, end)"})
+  public final SArray doWholeArray(final SArray receiver, final long start,
+      final long end) {
+    return receiver.copyOnWrite();
+  }
+
+  @Specialization(guards = {"!isEmptyType(receiver)", "!isPartiallyEmptyType(receiver)",
+      "shouldSlice(receiver, start, end)"})
+  public final SArray doSlice(final SArray receiver, final long start, final long end) {
+    return receiver.slice(from(start), newLength(start, end));
+  }
+
+  @Specialization(guards = "isObjectType(receiver)")
+  public final SArray doObjectArray(final SArray receiver, final long start,
+      final long end) {
+    Object[] storage = receiver.getObjectStorage(storageType);
+    return SArray.create(Arrays.copyOfRange(storage, from(start), to(start, end)));
+  }
+
+  @Specialization(guards = "isByteType(receiver)")
+  public final SArray doByteArray(final SArray receiver, final long start,
+      final long end) {
+    byte[] storage = receiver.getByteStorage(storageType);
+    return SArray.create(Arrays.copyOfRange(storage, from(start), to(start, end)));
+  }
+
+  @Specialization(guards = "isIntType(receiver)")
+  public final SArray doIntArray(final SArray receiver, final long start,
+      final long end) {
+    int[] storage = receiver.getIntStorage(storageType);
+    return SArray.create(Arrays.copyOfRange(storage, from(start), to(start, end)));
+  }
+
+  @Specialization(guards = "isLongType(receiver)")
+  public final SArray doLongArray(final SArray receiver, final long start,
+      final long end) {
+    long[] storage = receiver.getLongStorage(storageType);
+    return SArray.create(Arrays.copyOfRange(storage, from(start), to(start, end)));
+  }
+
+  @Specialization(guards = "isDoubleType(receiver)")
+  public final SArray doDoubleArray(final SArray receiver, final long start,
+      final long end) {
+    double[] storage = receiver.getDoubleStorage(storageType);
+    return SArray.create(Arrays.copyOfRange(storage, from(start), to(start, end)));
+  }
+
+  @Specialization(guards = "isBooleanType(receiver)")
+  public final SArray doBooleanArray(final SArray receiver, final long start,
+      final long end) {
+    boolean[] storage = receiver.getBooleanStorage(storageType);
+    return SArray.create(Arrays.copyOfRange(storage, from(start), to(start, end)));
+  }
+}
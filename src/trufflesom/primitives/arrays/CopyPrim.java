@@ -28,23 +28,8 @@ public abstract class CopyPrim extends UnaryExpressionNode {
         receiver.getPartiallyEmptyStorage(storageType).copy());
   }
 
-  @Specialization(guards = "isObjectType(receiver)")
-  public final SArray doObjectArray(final SArray receiver) {
-    return SArray.create(receiver.getObjectStorage(storageType).clone());
-  }
-
-  @Specialization(guards = "isLongType(receiver)")
-  public final SArray doLongArray(final SArray receiver) {
-    return SArray.create(receiver.getLongStorage(storageType).clone());
-  }
-
-  @Specialization(guards = "isDoubleType(receiver)")
-  public final SArray doDoubleArray(final SArray receiver) {
-    return SArray.create(receiver.getDoubleStorage(storageType).clone());
-  }
-
-  @Specialization(guards = "isBooleanType(receiver)")
-  public final SArray doBooleanArray(final SArray receiver) {
-    return SArray.create(receiver.getBooleanStorage(storageType).clone());
+  @Specialization(guards = {"!isEmptyType(receiver)", "!isPartiallyEmptyType(receiver)"})
+  public final SArray doArrayWithStorage(final SArray receiver) {
+    return receiver.copyOnWrite();
   }
 }
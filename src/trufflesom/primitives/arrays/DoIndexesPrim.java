@@ -1,12 +1,9 @@
 package trufflesom.primitives.arrays;
 
-import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
-import com.oracle.truffle.api.nodes.Node;
-import com.oracle.truffle.api.nodes.RootNode;
 import com.oracle.truffle.api.source.SourceSection;
 
 import bd.primitives.Primitive;
@@ -60,23 +57,11 @@ public abstract class DoIndexesPrim extends BinaryExpressionNode
       }
     } finally {
       if (CompilerDirectives.inInterpreter()) {
-        reportLoopCount(length);
+        Invokable.reportLoopCount(this, length);
       }
     }
   }
 
-  protected final void reportLoopCount(final long count) {
-    assert count >= 0;
-    CompilerAsserts.neverPartOfCompilation("reportLoopCount");
-    Node current = getParent();
-    while (current != null && !(current instanceof RootNode)) {
-      current = current.getParent();
-    }
-    if (current != null) {
-      ((Invokable) current).propagateLoopCountThroughoutLexicalScope(count);
-    }
-  }
-
   @Override
   public void adoptNewDispatchListHead(final AbstractDispatchNode node) {
     block = insert(node);
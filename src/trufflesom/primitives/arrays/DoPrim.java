@@ -1,13 +1,10 @@
 package trufflesom.primitives.arrays;
 
-import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
 import com.oracle.truffle.api.dsl.ImportStatic;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
-import com.oracle.truffle.api.nodes.Node;
-import com.oracle.truffle.api.nodes.RootNode;
 import com.oracle.truffle.api.profiles.ValueProfile;
 
 import bd.primitives.Primitive;
@@ -54,7 +51,7 @@ public abstract class DoPrim extends BinaryExpressionNode
       }
     } finally {
       if (CompilerDirectives.inInterpreter()) {
-        reportLoopCount(length);
+        Invokable.reportLoopCount(this, length);
       }
     }
     return arr;
@@ -74,7 +71,7 @@ public abstract class DoPrim extends BinaryExpressionNode
       }
     } finally {
       if (CompilerDirectives.inInterpreter()) {
-        reportLoopCount(length);
+        Invokable.reportLoopCount(this, length);
       }
     }
     return arr;
@@ -94,7 +91,7 @@ public abstract class DoPrim extends BinaryExpressionNode
       }
     } finally {
       if (CompilerDirectives.inInterpreter()) {
-        reportLoopCount(length);
+        Invokable.reportLoopCount(this, length);
       }
     }
     return arr;
@@ -114,7 +111,47 @@ public abstract class DoPrim extends BinaryExpressionNode
       }
     } finally {
       if (CompilerDirectives.inInterpreter()) {
-        reportLoopCount(length);
+        Invokable.reportLoopCount(this, length);
+      }
+    }
+    return arr;
+  }
+
+  @Specialization(guards = "isByteType(arr)")
+  public final SArray doByteArray(final VirtualFrame frame,
+      final SArray arr, final SBlock block) {
+    byte[] storage = arr.getByteStorage(storageType);
+    int length = storage.length;
+    try {
+      if (SArray.FIRST_IDX < length) {
+        execBlock(frame, block, (long) storage[SArray.FIRST_IDX]);
+      }
+      for (long i = SArray.FIRST_IDX + 1; i < length; i++) {
+        execBlock(frame, block, (long) storage[(int) i]);
+      }
+    } finally {
+      if (CompilerDirectives.inInterpreter()) {
+        Invokable.reportLoopCount(this, length);
+      }
+    }
+    return arr;
+  }
+
+  @Specialization(guards = "isIntType(arr)")
+  public final SArray doIntArray(final VirtualFrame frame,
+      final SArray arr, final SBlock block) {
+    int[] storage = arr.getIntStorage(storageType);
+    int length = storage.length;
+    try {
+      if (SArray.FIRST_IDX < length) {
+        execBlock(frame, block, (long) storage[SArray.FIRST_IDX]);
+      }
+      for (long i = SArray.FIRST_IDX + 1; i < length; i++) {
+        execBlock(frame, block, (long) storage[(int) i]);
+      }
+    } finally {
+      if (CompilerDirectives.inInterpreter()) {
+        Invokable.reportLoopCount(this, length);
       }
     }
     return arr;
@@ -134,7 +171,7 @@ public abstract class DoPrim extends BinaryExpressionNode
       }
     } finally {
       if (CompilerDirectives.inInterpreter()) {
-        reportLoopCount(length);
+        Invokable.reportLoopCount(this, length);
       }
     }
     return arr;
@@ -154,24 +191,9 @@ public abstract class DoPrim extends BinaryExpressionNode
       }
     } finally {
       if (CompilerDirectives.inInterpreter()) {
-        reportLoopCount(length);
+        Invokable.reportLoopCount(this, length);
       }
     }
     return arr;
   }
-
-  protected final void reportLoopCount(final long count) {
-    if (count == 0) {
-      return;
-    }
-
-    CompilerAsserts.neverPartOfCompilation("reportLoopCount");
-    Node current = getParent();
-    while (current != null && !(current instanceof RootNode)) {
-      current = current.getParent();
-    }
-    if (current != null) {
-      ((Invokable) current).propagateLoopCountThroughoutLexicalScope(count);
-    }
-  }
 }
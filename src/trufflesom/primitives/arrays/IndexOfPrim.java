@@ -0,0 +1,111 @@
+package trufflesom.primitives.arrays;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.ImportStatic;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.profiles.ValueProfile;
+
+import bd.primitives.Primitive;
+import trufflesom.interpreter.nodes.MessageSendNode;
+import trufflesom.interpreter.nodes.MessageSendNode.AbstractMessageSendNode;
+import trufflesom.interpreter.nodes.PreevaluatedExpression;
+import trufflesom.interpreter.nodes.nary.BinaryExpressionNode.BinarySystemOperation;
+import trufflesom.primitives.basics.LengthPrim;
+import trufflesom.primitives.basics.LengthPrimFactory;
+import trufflesom.vm.constants.Nil;
+import trufflesom.vmobjects.SArray;
+import trufflesom.vmobjects.SArray.ArrayType;
+
+
+/**
+ * Returns the index of the first element that is {@code =} to the argument,
+ * or nil.
+ *
+ * <p>
+ * For integer and double storage, and a numeric argument, the elements are
+ * compared directly in the storage. Otherwise, {@code =} is sent to each
+ * element.
+ */
+@ImportStatic(ArrayType.class)
+@Primitive(className = "Array", primitive = "indexOf:")
+public abstract class IndexOfPrim extends BinarySystemOperation {
+  private final ValueProfile storageType = ValueProfile.createClassProfile();
+
+  @Child private AtPrim                  at     = AtPrimFactory.create(null, null);
+  @Child private LengthPrim              length = LengthPrimFactory.create(null);
+  @Child private AbstractMessageSendNode equals;
+
+  @Specialization(guards = "isByteType(arr)")
+  public final Object doByteArray(final SArray arr, final long element) {
+    byte[] storage = arr.getByteStorage(storageType);
+    for (int i = 0; i < storage.length; i++) {
+      if (storage[i] == element) {
+        return (long) i + 1;
+      }
+    }
+    return Nil.nilObject;
+  }
+
+  @Specialization(guards = "isIntType(arr)")
+  public final Object doIntArray(final SArray arr, final long element) {
+    int[] storage = arr.getIntStorage(storageType);
+    for (int i = 0; i < storage.length; i++) {
+      if (storage[i] == element) {
+        return (long) i + 1;
+      }
+    }
+    return Nil.nilObject;
+  }
+
+  @Specialization(guards = "isLongType(arr)")
+  public final Object doLongArray(final SArray arr, final long element) {
+    long[] storage = arr.getLongStorage(storageType);
+    for (int i = 0; i < storage.length; i++) {
+      if (storage[i] == element) {
+        return (long) i + 1;
+      }
+    }
+    return Nil.nilObject;
+  }
+
+  @Specialization(guards = "isDoubleType(arr)")
+  public final Object doDoubleArray(final SArray arr, final double element) {
+    double[] storage = arr.getDoubleStorage(storageType);
+    for (int i = 0; i < storage.length; i++) {
+      if (storage[i] == element) {
+        return (long) i + 1;
+      }
+    }
+    return Nil.nilObject;
+  }
+
+  @Specialization
+  public final Object doGeneric(final VirtualFrame frame, final SArray arr,
+      final Object element) {
+    int length = (int) this.length.executeEvaluated(arr);
+    for (int i = 0; i < length; i++) {
+      Object e = at.executeEvaluated(frame, arr, (long) i + 1);
+      if (isTrue(sendEquals(frame, e, element))) {
+        return (long) i + 1;
+      }
+    }
+    return Nil.nilObject;
+  }
+
+  private boolean isTrue(final Object result) {
+    return (result instanceof Boolean && (boolean) result)
+        || result == universe.getTrueObject();
+  }
+
+  private Object sendEquals(final VirtualFrame frame, final Object receiver,
+      final Object argument) {
+    if (equals == null) {
+      CompilerDirectives.transferToInterpreterAndInvalidate();
+      equals = insert(MessageSendNode.createForPerformNodes(
+          universe.symbolFor("="), getSourceSection(), universe));
+    }
+    return ((PreevaluatedExpression) equals).doPreEvaluated(
+        frame, new Object[] {receiver, argument});
+  }
+}
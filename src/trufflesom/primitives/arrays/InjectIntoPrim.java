@@ -0,0 +1,181 @@
+package trufflesom.primitives.arrays;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.ImportStatic;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.profiles.ValueProfile;
+
+import bd.primitives.Primitive;
+import trufflesom.interpreter.Invokable;
+import trufflesom.interpreter.nodes.dispatch.AbstractDispatchNode;
+import trufflesom.interpreter.nodes.dispatch.UninitializedValuePrimDispatchNode;
+import trufflesom.interpreter.nodes.nary.TernaryExpressionNode;
+import trufflesom.primitives.basics.BlockPrims.ValuePrimitiveNode;
+import trufflesom.vm.constants.Nil;
+import trufflesom.vmobjects.SArray;
+import trufflesom.vmobjects.SArray.ArrayType;
+import trufflesom.vmobjects.SArray.PartiallyEmptyArray;
+import trufflesom.vmobjects.SBlock;
+
+
+/**
+ * Folds the elements of the array, reading them directly from the typed
+ * storage.
+ */
+@GenerateNodeFactory
+@ImportStatic(ArrayType.class)
+@Primitive(className = "Array", primitive = "inject:into:")
+public abstract class InjectIntoPrim extends TernaryExpressionNode
+    implements ValuePrimitiveNode {
+  @Child private AbstractDispatchNode block       = new UninitializedValuePrimDispatchNode();
+  private final ValueProfile          storageType = ValueProfile.createClassProfile();
+
+  @Override
+  public void adoptNewDispatchListHead(final AbstractDispatchNode node) {
+    block = insert(node);
+  }
+
+  private Object execBlock(final VirtualFrame frame, final SBlock block, final Object acc,
+      final Object element) {
+    return this.block.executeDispatch(frame, new Object[] {block, acc, element});
+  }
+
+  @Specialization(guards = "isEmptyType(arr)")
+  public final Object doEmptyArray(final VirtualFrame frame, final SArray arr,
+      final Object initial, final SBlock block) {
+    int length = arr.getEmptyStorage(storageType);
+    Object acc = initial;
+    try {
+      for (int i = 0; i < length; i++) {
+        acc = execBlock(frame, block, acc, Nil.nilObject);
+      }
+    } finally {
+      if (CompilerDirectives.inInterpreter()) {
+        Invokable.reportLoopCount(this, length);
+      }
+    }
+    return acc;
+  }
+
+  @Specialization(guards = "isPartiallyEmptyType(arr)")
+  public final Object doPartiallyEmptyArray(final VirtualFrame frame, final SArray arr,
+      final Object initial, final SBlock block) {
+    PartiallyEmptyArray storage = arr.getPartiallyEmptyStorage(storageType);
+    int length = storage.getLength();
+    Object acc = initial;
+    try {
+      for (int i = 0; i < length; i++) {
+        acc = execBlock(frame, block, acc, storage.get(i));
+      }
+    } finally {
+      if (CompilerDirectives.inInterpreter()) {
+        Invokable.reportLoopCount(this, length);
+      }
+    }
+    return acc;
+  }
+
+  @Specialization(guards = "isObjectType(arr)")
+  public final Object doObjectArray(final VirtualFrame frame, final SArray arr,
+      final Object initial, final SBlock block) {
+    Object[] storage = arr.getObjectStorage(storageType);
+    Object acc = initial;
+    try {
+      for (int i = 0; i < storage.length; i++) {
+        acc = execBlock(frame, block, acc, storage[i]);
+      }
+    } finally {
+      if (CompilerDirectives.inInterpreter()) {
+        Invokable.reportLoopCount(this, storage.length);
+      }
+    }
+    return acc;
+  }
+
+  @Specialization(guards = "isByteType(arr)")
+  public final Object doByteArray(final VirtualFrame frame, final SArray arr,
+      final Object initial, final SBlock block) {
+    byte[] storage = arr.getByteStorage(storageType);
+    Object acc = initial;
+    try {
+      for (int i = 0; i < storage.length; i++) {
+        acc = execBlock(frame, block, acc, (long) storage[i]);
+      }
+    } finally {
+      if (CompilerDirectives.inInterpreter()) {
+        Invokable.reportLoopCount(this, storage.length);
+      }
+    }
+    return acc;
+  }
+
+  @Specialization(guards = "isIntType(arr)")
+  public final Object doIntArray(final VirtualFrame frame, final SArray arr,
+      final Object initial, final SBlock block) {
+    int[] storage = arr.getIntStorage(storageType);
+    Object acc = initial;
+    try {
+      for (int i = 0; i < storage.length; i++) {
+        acc = execBlock(frame, block, acc, (long) storage[i]);
+      }
+    } finally {
+      if (CompilerDirectives.inInterpreter()) {
+        Invokable.reportLoopCount(this, storage.length);
+      }
+    }
+    return acc;
+  }
+
+  @Specialization(guards = "isLongType(arr)")
+  public final Object doLongArray(final VirtualFrame frame, final SArray arr,
+      final Object initial, final SBlock block) {
+    long[] storage = arr.getLongStorage(storageType);
+    Object acc = initial;
+    try {
+      for (int i = 0; i < storage.length; i++) {
+        acc = execBlock(frame, block, acc, storage[i]);
+      }
+    } finally {
+      if (CompilerDirectives.inInterpreter()) {
+        Invokable.reportLoopCount(this, storage.length);
+      }
+    }
+    return acc;
+  }
+
+  @Specialization(guards = "isDoubleType(arr)")
+  public final Object doDoubleArray(final VirtualFrame frame, final SArray arr,
+      final Object initial, final SBlock block) {
+    double[] storage = arr.getDoubleStorage(storageType);
+    Object acc = initial;
+    try {
+      for (int i = 0; i < storage.length; i++) {
+        acc = execBlock(frame, block, acc, storage[i]);
+      }
+    } finally {
+      if (CompilerDirectives.inInterpreter()) {
+        Invokable.reportLoopCount(this, storage.length);
+      }
+    }
+    return acc;
+  }
+
+  @Specialization(guards = "isBooleanType(arr)")
+  public final Object doBooleanArray(final VirtualFrame frame, final SArray arr,
+      final Object initial, final SBlock block) {
+    boolean[] storage = arr.getBooleanStorage(storageType);
+    Object acc = initial;
+    try {
+      for (int i = 0; i < storage.length; i++) {
+        acc = execBlock(frame, block, acc, storage[i]);
+      }
+    } finally {
+      if (CompilerDirectives.inInterpreter()) {
+        Invokable.reportLoopCount(this, storage.length);
+      }
+    }
+    return acc;
+  }
+}
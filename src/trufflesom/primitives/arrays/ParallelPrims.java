@@ -0,0 +1,286 @@
+package trufflesom.primitives.arrays;
+
+import java.util.function.IntFunction;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.ImportStatic;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.profiles.ValueProfile;
+
+import bd.primitives.Primitive;
+import trufflesom.interpreter.nodes.ContextualNode;
+import trufflesom.interpreter.nodes.FieldNode.FieldWriteNode;
+import trufflesom.interpreter.nodes.NonLocalVariableNode.NonLocalVariableWriteNode;
+import trufflesom.interpreter.nodes.ReturnNonLocalNode;
+import trufflesom.interpreter.nodes.UninitializedVariableNode.UninitializedVariableWriteNode;
+import trufflesom.interpreter.nodes.dispatch.AbstractDispatchNode;
+import trufflesom.interpreter.nodes.literals.BlockNode;
+import trufflesom.interpreter.nodes.nary.BinaryExpressionNode.BinarySystemOperation;
+import trufflesom.interpreter.nodes.nary.TernaryExpressionNode.TernarySystemOperation;
+import trufflesom.vm.ParallelWorkers;
+import trufflesom.vm.constants.Nil;
+import trufflesom.vmobjects.SArray;
+import trufflesom.vmobjects.SArray.PartiallyEmptyArray;
+import trufflesom.vmobjects.SBlock;
+import trufflesom.vmobjects.SInvokable;
+
+
+/**
+ * Parallel variants of the Array iteration primitives, which split the
+ * array into chunks that are processed by the {@link ParallelWorkers}.
+ *
+ * <p>
+ * Blocks are only evaluated in parallel if they do not obviously have
+ * effects outside of their own activation, i.e., they do not assign to
+ * variables of outer scopes, write fields, or do non-local returns. Other
+ * blocks, and arrays below {@link ParallelWorkers#SEQUENTIAL_THRESHOLD}, are
+ * processed sequentially. Sends in the block are not analyzed, so, it is up
+ * to the program to not modify shared objects from within the block.
+ *
+ * <p>
+ * The core library's Array class does not declare these methods, they are
+ * added by {@link trufflesom.primitives.Primitives#loadPrimitives}.
+ */
+public final class ParallelPrims {
+
+  public static final int INLINE_CACHE_SIZE = AbstractDispatchNode.INLINE_CACHE_SIZE;
+
+  /**
+   * @return true, if the block does not have effects that are visible outside
+   *         of its activation, as far as we can tell from its AST
+   */
+  @TruffleBoundary
+  public static boolean isParallelizable(final SInvokable blockMethod) {
+    return !hasOuterEffects(blockMethod.getInvokable(), 0);
+  }
+
+  private static boolean hasOuterEffects(final Node node, final int blockDepth) {
+    if (node instanceof ReturnNonLocalNode || node instanceof FieldWriteNode) {
+      return true;
+    }
+
+    if (node instanceof NonLocalVariableWriteNode
+        || node instanceof UninitializedVariableWriteNode) {
+      // writes to the variables of nested blocks or of the block itself are
+      // local to one activation
+      if (((ContextualNode) node).getContextLevel() > blockDepth) {
+        return true;
+      }
+    }
+
+    if (node instanceof BlockNode) {
+      SInvokable nested = ((BlockNode) node).getMethod();
+      if (hasOuterEffects(nested.getInvokable(), blockDepth + 1)) {
+        return true;
+      }
+    }
+
+    for (Node child : node.getChildren()) {
+      if (hasOuterEffects(child, blockDepth)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int length(final SArray arr, final ValueProfile storageType) {
+    switch (arr.getType()) {
+      case EMPTY:
+        return arr.getEmptyStorage(storageType);
+      case PARTIAL_EMPTY:
+        return arr.getPartiallyEmptyStorage(storageType).getLength();
+      case OBJECT:
+        return arr.getObjectStorage(storageType).length;
+      case BYTE:
+        return arr.getByteStorage(storageType).length;
+      case INT:
+        return arr.getIntStorage(storageType).length;
+      case LONG:
+        return arr.getLongStorage(storageType).length;
+      case DOUBLE:
+        return arr.getDoubleStorage(storageType).length;
+      case BOOLEAN:
+        return arr.getBooleanStorage(storageType).length;
+      default:
+        throw new IllegalStateException("Unexpected array type: " + arr.getType());
+    }
+  }
+
+  private static IntFunction<Object> elements(final SArray arr,
+      final ValueProfile storageType) {
+    switch (arr.getType()) {
+      case EMPTY:
+        return i -> Nil.nilObject;
+      case PARTIAL_EMPTY:
+        PartiallyEmptyArray partial = arr.getPartiallyEmptyStorage(storageType);
+        return i -> partial.get(i);
+      case OBJECT:
+        Object[] objects = arr.getObjectStorage(storageType);
+        return i -> objects[i];
+      case BYTE:
+        byte[] bytes = arr.getByteStorage(storageType);
+        return i -> (long) bytes[i];
+      case INT:
+        int[] ints = arr.getIntStorage(storageType);
+        return i -> (long) ints[i];
+      case LONG:
+        long[] longs = arr.getLongStorage(storageType);
+        return i -> longs[i];
+      case DOUBLE:
+        double[] doubles = arr.getDoubleStorage(storageType);
+        return i -> doubles[i];
+      case BOOLEAN:
+        boolean[] booleans = arr.getBooleanStorage(storageType);
+        return i -> booleans[i];
+      default:
+        throw new IllegalStateException("Unexpected array type: " + arr.getType());
+    }
+  }
+
+  /** Run the task either in parallel, or as a single chunk on this thread. */
+  private static void forEachChunk(final ParallelWorkers workers, final int length,
+      final boolean parallelizable, final ParallelWorkers.ChunkTask task) {
+    if (parallelizable && ParallelWorkers.shouldRunInParallel(length)) {
+      workers.forEachChunk(length, task);
+    } else {
+      task.run(0, 0, length);
+    }
+  }
+
+  @GenerateNodeFactory
+  @ImportStatic(ParallelPrims.class)
+  @Primitive(className = "Array", primitive = "parallelDo:")
+  public abstract static class ParallelDoPrim extends BinarySystemOperation {
+    private final ValueProfile storageType = ValueProfile.createClassProfile();
+
+    @Specialization(guards = "block.getMethod() == cachedMethod",
+        limit = "INLINE_CACHE_SIZE")
+    public final SArray doCached(final SArray arr, final SBlock block,
+        @Cached("block.getMethod()") final SInvokable cachedMethod,
+        @Cached("isParallelizable(cachedMethod)") final boolean parallelizable) {
+      return doDo(arr, block, parallelizable);
+    }
+
+    @Specialization(replaces = "doCached")
+    public final SArray doUncached(final SArray arr, final SBlock block) {
+      return doDo(arr, block, isParallelizable(block.getMethod()));
+    }
+
+    @TruffleBoundary
+    private SArray doDo(final SArray arr, final SBlock block,
+        final boolean parallelizable) {
+      int length = length(arr, storageType);
+      IntFunction<Object> elements = elements(arr, storageType);
+      SInvokable method = block.getMethod();
+
+      forEachChunk(universe.getParallelWorkers(), length, parallelizable,
+          (chunk, start, end) -> {
+            for (int i = start; i < end; i++) {
+              method.invoke(new Object[] {block, elements.apply(i)});
+            }
+          });
+      return arr;
+    }
+  }
+
+  @GenerateNodeFactory
+  @ImportStatic(ParallelPrims.class)
+  @Primitive(className = "Array", primitive = "parallelCollect:")
+  public abstract static class ParallelCollectPrim extends BinarySystemOperation {
+    private final ValueProfile storageType = ValueProfile.createClassProfile();
+
+    @Specialization(guards = "block.getMethod() == cachedMethod",
+        limit = "INLINE_CACHE_SIZE")
+    public final SArray doCached(final SArray arr, final SBlock block,
+        @Cached("block.getMethod()") final SInvokable cachedMethod,
+        @Cached("isParallelizable(cachedMethod)") final boolean parallelizable) {
+      return doCollect(arr, block, parallelizable);
+    }
+
+    @Specialization(replaces = "doCached")
+    public final SArray doUncached(final SArray arr, final SBlock block) {
+      return doCollect(arr, block, isParallelizable(block.getMethod()));
+    }
+
+    @TruffleBoundary
+    private SArray doCollect(final SArray arr, final SBlock block,
+        final boolean parallelizable) {
+      int length = length(arr, storageType);
+      IntFunction<Object> elements = elements(arr, storageType);
+      SInvokable method = block.getMethod();
+      Object[] results = new Object[length];
+
+      forEachChunk(universe.getParallelWorkers(), length, parallelizable,
+          (chunk, start, end) -> {
+            for (int i = start; i < end; i++) {
+              results[i] = method.invoke(new Object[] {block, elements.apply(i)});
+            }
+          });
+      return SArray.createWithCompactStorage(results);
+    }
+  }
+
+  /**
+   * Folds each chunk separately, starting with its first element, and then
+   * folds the results of the chunks into the initial value. Thus, the
+   * result is only the same as for {@code inject:into:} if the block is
+   * associative, for instance, a sum or a maximum.
+   */
+  @GenerateNodeFactory
+  @ImportStatic(ParallelPrims.class)
+  @Primitive(className = "Array", primitive = "parallelInject:into:")
+  public abstract static class ParallelInjectPrim extends TernarySystemOperation {
+    private final ValueProfile storageType = ValueProfile.createClassProfile();
+
+    @Specialization(guards = "block.getMethod() == cachedMethod",
+        limit = "INLINE_CACHE_SIZE")
+    public final Object doCached(final SArray arr, final Object initial,
+        final SBlock block,
+        @Cached("block.getMethod()") final SInvokable cachedMethod,
+        @Cached("isParallelizable(cachedMethod)") final boolean parallelizable) {
+      return doInject(arr, initial, block, parallelizable);
+    }
+
+    @Specialization(replaces = "doCached")
+    public final Object doUncached(final SArray arr, final Object initial,
+        final SBlock block) {
+      return doInject(arr, initial, block, isParallelizable(block.getMethod()));
+    }
+
+    @TruffleBoundary
+    private Object doInject(final SArray arr, final Object initial, final SBlock block,
+        final boolean parallelizable) {
+      int length = length(arr, storageType);
+      IntFunction<Object> elements = elements(arr, storageType);
+      SInvokable method = block.getMethod();
+
+      if (!parallelizable || !ParallelWorkers.shouldRunInParallel(length)) {
+        Object acc = initial;
+        for (int i = 0; i < length; i++) {
+          acc = method.invoke(new Object[] {block, acc, elements.apply(i)});
+        }
+        return acc;
+      }
+
+      ParallelWorkers workers = universe.getParallelWorkers();
+      Object[] partials = new Object[workers.getNumberOfChunks(length)];
+
+      workers.forEachChunk(length, (chunk, start, end) -> {
+        Object acc = elements.apply(start);
+        for (int i = start + 1; i < end; i++) {
+          acc = method.invoke(new Object[] {block, acc, elements.apply(i)});
+        }
+        partials[chunk] = acc;
+      });
+
+      Object result = initial;
+      for (Object partial : partials) {
+        result = method.invoke(new Object[] {block, result, partial});
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package trufflesom.primitives.arrays;
+
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.ImportStatic;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.profiles.ValueProfile;
+
+import bd.primitives.Primitive;
+import trufflesom.interpreter.nodes.nary.QuaternaryExpressionNode;
+import trufflesom.vmobjects.SArray;
+import trufflesom.vmobjects.SArray.ArrayType;
+
+
+/**
+ * Replaces the elements from {@code start} to {@code stop}, inclusively, with
+ * the first elements of the replacement array.
+ *
+ * <p>
+ * If both arrays have the same typed storage, the elements are copied with
+ * {@link System#arraycopy}. Otherwise, they are copied one by one with
+ * {@code at:} and {@code at:put:}, which takes care of the transitions of the
+ * storage strategy. The receiver can be its own replacement.
+ */
+@GenerateNodeFactory
+@ImportStatic(ArrayType.class)
+@Primitive(className = "Array", primitive = "replaceFrom:to:with:")
+public abstract class ReplaceFromToWithPrim extends QuaternaryExpressionNode {
+  private final ValueProfile storageType = ValueProfile.createClassProfile();
+
+  @Child private AtPrim    at    = AtPrimFactory.create(null, null);
+  @Child private AtPutPrim atPut = AtPutPrimFactory.create(null, null, null);
+
+  protected static final boolean haveSameTypedStorage(final SArray arr,
+      final SArray replacement) {
+    ArrayType type = arr.getType();
+    return type == replacement.getType() && type != ArrayType.EMPTY
+        && type != ArrayType.PARTIAL_EMPTY;
+  }
+
+  private static int count(final long start, final long stop) {
+    return (int) Math.max(0, stop - start + 1);
+  }
+
+  @Specialization(guards = "haveSameTypedStorage(arr, replacement)")
+  public final SArray doSameType(final SArray arr, final long start, final long stop,
+      final SArray replacement) {
+    SArray.copyElements(replacement, 0, arr, (int) start - 1, count(start, stop));
+    return arr;
+  }
+
+  @Specialization(guards = {"isLongType(arr)", "isByteType(replacement)"})
+  public final SArray doLongWithBytes(final SArray arr, final long start, final long stop,
+      final SArray replacement) {
+    long[] storage = arr.getLongStorageForWrite(storageType);
+    byte[] bytes = replacement.getByteStorage(storageType);
+    int offset = (int) start - 1;
+    for (int i = 0; i < count(start, stop); i++) {
+      storage[offset + i] = bytes[i];
+    }
+    return arr;
+  }
+
+  @Specialization(guards = {"isLongType(arr)", "isIntType(replacement)"})
+  public final SArray doLongWithInts(final SArray arr, final long start, final long stop,
+      final SArray replacement) {
+    long[] storage = arr.getLongStorageForWrite(storageType);
+    int[] ints = replacement.getIntStorage(storageType);
+    int offset = (int) start - 1;
+    for (int i = 0; i < count(start, stop); i++) {
+      storage[offset + i] = ints[i];
+    }
+    return arr;
+  }
+
+  @Specialization
+  public final SArray doGeneric(final VirtualFrame frame, final SArray arr,
+      final long start, final long stop, final SArray replacement) {
+    if (arr == replacement) {
+      // the range moves towards the end, copy backwards to not overwrite it
+      for (long i = count(start, stop) - 1; i >= 0; i--) {
+        copyElement(frame, arr, start + i, replacement, i + 1);
+      }
+    } else {
+      for (long i = 0; i < count(start, stop); i++) {
+        copyElement(frame, arr, start + i, replacement, i + 1);
+      }
+    }
+    return arr;
+  }
+
+  private void copyElement(final VirtualFrame frame, final SArray arr, final long idx,
+      final SArray replacement, final long replacementIdx) {
+    Object value = at.executeEvaluated(frame, replacement, replacementIdx);
+    atPut.executeEvaluated(frame, arr, idx, value);
+  }
+}
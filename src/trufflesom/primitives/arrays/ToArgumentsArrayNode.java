@@ -59,7 +59,7 @@ public abstract class ToArgumentsArrayNode extends ExpressionNode {
   public final Object[] doPartiallyEmptyArray(final SArray somArray,
       final Object rcvr) {
     return addRcvrToObjectArray(
-        rcvr, somArray.getPartiallyEmptyStorage(storageType).getStorage());
+        rcvr, somArray.getPartiallyEmptyStorage(storageType).toObjectArray());
   }
 
   @Specialization(guards = "isObjectType(somArray)")
@@ -80,6 +80,30 @@ public abstract class ToArgumentsArrayNode extends ExpressionNode {
     return args;
   }
 
+  @Specialization(guards = "isByteType(somArray)")
+  public final Object[] doByteArray(final SArray somArray,
+      final Object rcvr) {
+    byte[] arr = somArray.getByteStorage(storageType);
+    Object[] args = new Object[arr.length + 1];
+    args[0] = rcvr;
+    for (int i = 0; i < arr.length; i++) {
+      args[i + 1] = (long) arr[i];
+    }
+    return args;
+  }
+
+  @Specialization(guards = "isIntType(somArray)")
+  public final Object[] doIntArray(final SArray somArray,
+      final Object rcvr) {
+    int[] arr = somArray.getIntStorage(storageType);
+    Object[] args = new Object[arr.length + 1];
+    args[0] = rcvr;
+    for (int i = 0; i < arr.length; i++) {
+      args[i + 1] = (long) arr[i];
+    }
+    return args;
+  }
+
   @Specialization(guards = "isDoubleType(somArray)")
   public final Object[] doDoubleArray(final SArray somArray,
       final Object rcvr) {
@@ -68,7 +68,7 @@ public abstract class BlockPrims {
         return NodeCost.UNINITIALIZED;
       } else if (dispatchChain == 1) {
         return NodeCost.MONOMORPHIC;
-      } else if (dispatchChain <= AbstractDispatchNode.INLINE_CACHE_SIZE) {
+      } else if (dispatchChain < AbstractDispatchNode.MEGAMORPHIC_CHAIN_LENGTH) {
         return NodeCost.POLYMORPHIC;
       } else {
         return NodeCost.MEGAMORPHIC;
@@ -102,7 +102,7 @@ public abstract class BlockPrims {
         return NodeCost.UNINITIALIZED;
       } else if (dispatchChain == 1) {
         return NodeCost.MONOMORPHIC;
-      } else if (dispatchChain <= AbstractDispatchNode.INLINE_CACHE_SIZE) {
+      } else if (dispatchChain < AbstractDispatchNode.MEGAMORPHIC_CHAIN_LENGTH) {
         return NodeCost.POLYMORPHIC;
       } else {
         return NodeCost.MEGAMORPHIC;
@@ -136,7 +136,7 @@ public abstract class BlockPrims {
         return NodeCost.UNINITIALIZED;
       } else if (dispatchChain == 1) {
         return NodeCost.MONOMORPHIC;
-      } else if (dispatchChain <= AbstractDispatchNode.INLINE_CACHE_SIZE) {
+      } else if (dispatchChain < AbstractDispatchNode.MEGAMORPHIC_CHAIN_LENGTH) {
         return NodeCost.POLYMORPHIC;
       } else {
         return NodeCost.MEGAMORPHIC;
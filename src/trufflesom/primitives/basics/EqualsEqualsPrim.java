@@ -7,7 +7,9 @@ import com.oracle.truffle.api.dsl.Specialization;
 
 import bd.primitives.Primitive;
 import trufflesom.interpreter.nodes.nary.BinaryExpressionNode.BinarySystemOperation;
+import trufflesom.primitives.arithmetic.Int128;
 import trufflesom.vm.Universe;
+import trufflesom.vmobjects.SAbstractObject;
 import trufflesom.vmobjects.SArray;
 import trufflesom.vmobjects.SBlock;
 import trufflesom.vmobjects.SInvokable;
@@ -45,6 +47,11 @@ public abstract class EqualsEqualsPrim extends BinarySystemOperation {
     return left == right;
   }
 
+  @Specialization
+  public final boolean doInt128(final Int128 left, final Int128 right) {
+    return left == right;
+  }
+
   @Specialization
   public final boolean doBigInteger(final BigInteger left, final BigInteger right) {
     return left == right;
@@ -85,6 +92,11 @@ public abstract class EqualsEqualsPrim extends BinarySystemOperation {
     return left == right;
   }
 
+  @Specialization
+  public final boolean doSAbstractObject(final SAbstractObject left, final Object right) {
+    return left == right;
+  }
+
   @Specialization
   public final boolean doLong(final long left, final double right) {
     return false;
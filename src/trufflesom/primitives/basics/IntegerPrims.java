@@ -1,7 +1,5 @@
 package trufflesom.primitives.basics;
 
-import java.math.BigInteger;
-
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
@@ -12,6 +10,7 @@ import trufflesom.interpreter.nodes.nary.BinaryExpressionNode;
 import trufflesom.interpreter.nodes.nary.BinaryExpressionNode.BinarySystemOperation;
 import trufflesom.interpreter.nodes.nary.UnaryExpressionNode;
 import trufflesom.primitives.arithmetic.ArithmeticPrim;
+import trufflesom.primitives.arithmetic.Int128;
 import trufflesom.vm.Universe;
 import trufflesom.vmobjects.SArray;
 import trufflesom.vmobjects.SClass;
@@ -85,11 +84,11 @@ public abstract class IntegerPrims {
     }
 
     @Specialization
-    public final BigInteger doLongWithOverflow(final long receiver, final long right) {
+    public final Object doLongWithOverflow(final long receiver, final long right) {
       assert right >= 0; // currently not defined for negative values of right
       assert right <= Integer.MAX_VALUE;
 
-      return BigInteger.valueOf(receiver).shiftLeft((int) right);
+      return Int128.shiftLeft(receiver, (int) right);
     }
   }
 
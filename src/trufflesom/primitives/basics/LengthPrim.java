@@ -9,6 +9,7 @@ import bd.primitives.Primitive;
 import trufflesom.interpreter.nodes.nary.UnaryExpressionNode;
 import trufflesom.vmobjects.SArray;
 import trufflesom.vmobjects.SArray.ArrayType;
+import trufflesom.vmobjects.SRope;
 import trufflesom.vmobjects.SSymbol;
 
 
@@ -21,6 +22,11 @@ public abstract class LengthPrim extends UnaryExpressionNode {
 
   private final ValueProfile storageType = ValueProfile.createClassProfile();
 
+  @Specialization(guards = "receiver.isSlice()")
+  public final long doSlice(final SArray receiver) {
+    return receiver.getSlice().getLength();
+  }
+
   @Specialization(guards = "isEmptyType(receiver)")
   public final long doEmptySArray(final SArray receiver) {
     return receiver.getEmptyStorage(storageType);
@@ -41,6 +47,16 @@ public abstract class LengthPrim extends UnaryExpressionNode {
     return receiver.getLongStorage(storageType).length;
   }
 
+  @Specialization(guards = "isByteType(receiver)")
+  public final long doByteSArray(final SArray receiver) {
+    return receiver.getByteStorage(storageType).length;
+  }
+
+  @Specialization(guards = "isIntType(receiver)")
+  public final long doIntSArray(final SArray receiver) {
+    return receiver.getIntStorage(storageType).length;
+  }
+
   @Specialization(guards = "isDoubleType(receiver)")
   public final long doDoubleSArray(final SArray receiver) {
     return receiver.getDoubleStorage(storageType).length;
@@ -53,6 +69,11 @@ public abstract class LengthPrim extends UnaryExpressionNode {
 
   public abstract long executeEvaluated(SArray receiver);
 
+  @Specialization
+  public final long doSRope(final SRope receiver) {
+    return receiver.length();
+  }
+
   @Specialization
   public final long doString(final String receiver) {
     return receiver.length();
@@ -1,5 +1,6 @@
 package trufflesom.primitives.basics;
 
+import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
 
@@ -8,6 +9,7 @@ import trufflesom.interpreter.nodes.nary.BinaryExpressionNode;
 import trufflesom.interpreter.nodes.nary.TernaryExpressionNode;
 import trufflesom.interpreter.nodes.nary.UnaryExpressionNode.UnarySystemOperation;
 import trufflesom.vmobjects.SAbstractObject;
+import trufflesom.vmobjects.SRope;
 import trufflesom.vmobjects.SSymbol;
 
 
@@ -16,19 +18,36 @@ public class StringPrims {
   @GenerateNodeFactory
   @Primitive(className = "String", primitive = "concatenate:")
   public abstract static class ConcatPrim extends BinaryExpressionNode {
+    // the rope specializations need to come first, otherwise the implicit
+    // cast to String would flatten them
     @Specialization
-    public final String doString(final String receiver, final String argument) {
-      return receiver + argument;
+    public final Object doSRope(final SRope receiver, final SRope argument) {
+      return SRope.concat(receiver, argument);
     }
 
     @Specialization
-    public final String doString(final String receiver, final SSymbol argument) {
-      return receiver + argument.getString();
+    public final Object doSRope(final SRope receiver, final String argument) {
+      return SRope.concat(receiver, argument);
     }
 
     @Specialization
-    public final String doSSymbol(final SSymbol receiver, final String argument) {
-      return receiver.getString() + argument;
+    public final Object doString(final String receiver, final SRope argument) {
+      return SRope.concat(receiver, argument);
+    }
+
+    @Specialization
+    public final Object doString(final String receiver, final String argument) {
+      return SRope.concat(receiver, argument);
+    }
+
+    @Specialization
+    public final Object doString(final String receiver, final SSymbol argument) {
+      return SRope.concat(receiver, argument.getString());
+    }
+
+    @Specialization
+    public final Object doSSymbol(final SSymbol receiver, final String argument) {
+      return SRope.concat(receiver.getString(), argument);
     }
 
     @Specialization
@@ -40,7 +59,20 @@ public class StringPrims {
   @GenerateNodeFactory
   @Primitive(className = "String", primitive = "asSymbol")
   public abstract static class AsSymbolPrim extends UnarySystemOperation {
-    @Specialization
+    public static final int INLINE_CACHE_SIZE = 6;
+
+    protected final SSymbol symbolFor(final String string) {
+      return universe.symbolFor(string);
+    }
+
+    @Specialization(limit = "INLINE_CACHE_SIZE", guards = "receiver.equals(cachedString)")
+    public final SAbstractObject doCachedString(final String receiver,
+        @Cached("receiver") final String cachedString,
+        @Cached("symbolFor(receiver)") final SSymbol symbol) {
+      return symbol;
+    }
+
+    @Specialization(replaces = "doCachedString")
     public final SAbstractObject doString(final String receiver) {
       return universe.symbolFor(receiver);
     }
@@ -0,0 +1,262 @@
+package trufflesom.primitives.collections;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+
+import bd.primitives.Primitive;
+import trufflesom.interpreter.nodes.nary.BinaryExpressionNode;
+import trufflesom.interpreter.nodes.nary.BinaryExpressionNode.BinarySystemOperation;
+import trufflesom.interpreter.nodes.nary.TernaryExpressionNode;
+import trufflesom.interpreter.nodes.nary.TernaryExpressionNode.TernarySystemOperation;
+import trufflesom.interpreter.nodes.nary.UnaryExpressionNode;
+import trufflesom.vm.Universe;
+import trufflesom.vm.constants.Nil;
+import trufflesom.vmobjects.SAbstractObject;
+import trufflesom.vmobjects.SArray;
+import trufflesom.vmobjects.SClass;
+import trufflesom.vmobjects.SDictionary;
+import trufflesom.vmobjects.SVector;
+
+
+/**
+ * Primitives for the NativeVector and NativeDictionary classes in the
+ * {@code Collections} directory, which needs to be on the class path. They
+ * are backed by {@link SVector} and {@link SDictionary}.
+ */
+public final class CollectionPrims {
+
+  /** Signal an invalid index with {@code #error:}, as the Smalltalk code would. */
+  @TruffleBoundary
+  private static Object indexOutOfBounds(final SVector receiver, final long idx,
+      final Universe universe) {
+    String message =
+        "Index " + idx + " out of bounds for vector of size " + receiver.getSize();
+    return SAbstractObject.send("error:", new Object[] {receiver, message}, universe);
+  }
+
+  private static Object nilIfNull(final Object value) {
+    return value == null ? Nil.nilObject : value;
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "NativeVector", primitive = "new", classSide = true)
+  public abstract static class NewVectorPrim extends UnaryExpressionNode {
+    @Specialization
+    public final SVector doSClass(final SClass receiver) {
+      return new SVector(receiver);
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "NativeVector", primitive = "new:", classSide = true)
+  public abstract static class NewVectorWithCapacityPrim extends BinaryExpressionNode {
+    @Specialization
+    public final SVector doSClass(final SClass receiver, final long capacity) {
+      return new SVector(receiver, (int) capacity);
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "NativeVector", primitive = "at:")
+  public abstract static class VectorAtPrim extends BinarySystemOperation {
+    @Specialization(guards = {"receiver.isLongType()", "receiver.isValidIndex(idx)"})
+    public final long doLong(final SVector receiver, final long idx) {
+      return receiver.getLongStorage()[(int) idx - 1];
+    }
+
+    @Specialization(guards = {"receiver.isDoubleType()", "receiver.isValidIndex(idx)"})
+    public final double doDouble(final SVector receiver, final long idx) {
+      return receiver.getDoubleStorage()[(int) idx - 1];
+    }
+
+    @Specialization(guards = {"receiver.isObjectType()", "receiver.isValidIndex(idx)"})
+    public final Object doObject(final SVector receiver, final long idx) {
+      return receiver.getObjectStorage()[(int) idx - 1];
+    }
+
+    // an EMPTY vector has no elements, so, it always ends up here
+    @Specialization(guards = "!receiver.isValidIndex(idx)")
+    public final Object doOutOfBounds(final SVector receiver, final long idx) {
+      return indexOutOfBounds(receiver, idx, universe);
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "NativeVector", primitive = "at:put:")
+  public abstract static class VectorAtPutPrim extends TernarySystemOperation {
+    @Specialization(guards = {"receiver.isLongType()", "receiver.isValidIndex(idx)"})
+    public final long doLong(final SVector receiver, final long idx, final long value) {
+      receiver.getLongStorage()[(int) idx - 1] = value;
+      return value;
+    }
+
+    @Specialization(guards = {"receiver.isDoubleType()", "receiver.isValidIndex(idx)"})
+    public final double doDouble(final SVector receiver, final long idx,
+        final double value) {
+      receiver.getDoubleStorage()[(int) idx - 1] = value;
+      return value;
+    }
+
+    @Specialization(guards = "receiver.isValidIndex(idx)")
+    public final Object doObject(final SVector receiver, final long idx,
+        final Object value) {
+      receiver.atPut(idx, value);
+      return value;
+    }
+
+    @Specialization(guards = "!receiver.isValidIndex(idx)")
+    public final Object doOutOfBounds(final SVector receiver, final long idx,
+        final Object value) {
+      return indexOutOfBounds(receiver, idx, universe);
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "NativeVector", primitive = "append:")
+  public abstract static class VectorAppendPrim extends BinaryExpressionNode {
+    @Specialization
+    public final SVector doLong(final SVector receiver, final long value) {
+      receiver.append(value);
+      return receiver;
+    }
+
+    @Specialization
+    public final SVector doDouble(final SVector receiver, final double value) {
+      receiver.append(value);
+      return receiver;
+    }
+
+    @Specialization
+    public final SVector doObject(final SVector receiver, final Object value) {
+      receiver.append(value);
+      return receiver;
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "NativeVector", primitive = "removeLast")
+  public abstract static class VectorRemoveLastPrim extends UnaryExpressionNode {
+    @Specialization
+    public final Object doSVector(final SVector receiver) {
+      if (receiver.getSize() == 0) {
+        return Nil.nilObject;
+      }
+      return receiver.removeLast();
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "NativeVector", primitive = "size")
+  public abstract static class VectorSizePrim extends UnaryExpressionNode {
+    @Specialization
+    public final long doSVector(final SVector receiver) {
+      return receiver.getSize();
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "NativeVector", primitive = "asArray")
+  public abstract static class VectorAsArrayPrim extends UnaryExpressionNode {
+    @Specialization
+    public final SArray doSVector(final SVector receiver) {
+      return receiver.asArray();
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "NativeDictionary", primitive = "new", classSide = true)
+  public abstract static class NewDictionaryPrim extends UnaryExpressionNode {
+    @Specialization
+    public final SDictionary doSClass(final SClass receiver) {
+      return new SDictionary(receiver);
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "NativeDictionary", primitive = "at:")
+  public abstract static class DictionaryAtPrim extends BinaryExpressionNode {
+    @Specialization
+    public final Object doLong(final SDictionary receiver, final long key) {
+      return nilIfNull(receiver.get(key));
+    }
+
+    @Specialization
+    public final Object doObject(final SDictionary receiver, final Object key) {
+      return nilIfNull(receiver.get(key));
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "NativeDictionary", primitive = "at:put:")
+  public abstract static class DictionaryAtPutPrim extends TernaryExpressionNode {
+    @Specialization
+    public final Object doLong(final SDictionary receiver, final long key,
+        final Object value) {
+      receiver.put(key, value);
+      return value;
+    }
+
+    @Specialization
+    public final Object doObject(final SDictionary receiver, final Object key,
+        final Object value) {
+      receiver.put(key, value);
+      return value;
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "NativeDictionary", primitive = "containsKey:")
+  public abstract static class DictionaryContainsKeyPrim extends BinaryExpressionNode {
+    @Specialization
+    public final boolean doLong(final SDictionary receiver, final long key) {
+      return receiver.containsKey(key);
+    }
+
+    @Specialization
+    public final boolean doObject(final SDictionary receiver, final Object key) {
+      return receiver.containsKey(key);
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "NativeDictionary", primitive = "removeKey:")
+  public abstract static class DictionaryRemoveKeyPrim extends BinaryExpressionNode {
+    @Specialization
+    public final Object doLong(final SDictionary receiver, final long key) {
+      return nilIfNull(receiver.remove(key));
+    }
+
+    @Specialization
+    public final Object doObject(final SDictionary receiver, final Object key) {
+      return nilIfNull(receiver.remove(key));
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "NativeDictionary", primitive = "size")
+  public abstract static class DictionarySizePrim extends UnaryExpressionNode {
+    @Specialization
+    public final long doSDictionary(final SDictionary receiver) {
+      return receiver.getSize();
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "NativeDictionary", primitive = "keys")
+  public abstract static class DictionaryKeysPrim extends UnaryExpressionNode {
+    @Specialization
+    public final SArray doSDictionary(final SDictionary receiver) {
+      return receiver.getKeys();
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "NativeDictionary", primitive = "values")
+  public abstract static class DictionaryValuesPrim extends UnaryExpressionNode {
+    @Specialization
+    public final SArray doSDictionary(final SDictionary receiver) {
+      return receiver.getValues();
+    }
+  }
+}
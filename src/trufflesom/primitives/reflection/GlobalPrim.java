@@ -1,5 +1,7 @@
 package trufflesom.primitives.reflection;
 
+import static trufflesom.interpreter.TruffleCompiler.transferToInterpreterAndInvalidate;
+
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.source.SourceSection;
@@ -49,6 +51,12 @@ public abstract class GlobalPrim extends BinarySystemOperation {
     private final int      depth;
     private final Universe universe;
 
+    /**
+     * Set once this node was replaced. Threads that raced on specializing it
+     * continue with the replacement instead of specializing it again.
+     */
+    private GetGlobalNode replacement;
+
     UninitializedGetGlobal(final int depth, final Universe universe) {
       this.depth = depth;
       this.universe = universe;
@@ -56,7 +64,14 @@ public abstract class GlobalPrim extends BinarySystemOperation {
 
     @Override
     public Object getGlobal(final VirtualFrame frame, final SSymbol argument) {
-      return specialize(argument).getGlobal(frame, argument);
+      transferToInterpreterAndInvalidate("Initialize a global cache node.");
+      GetGlobalNode next = atomic(() -> {
+        if (replacement == null) {
+          replacement = specialize(argument);
+        }
+        return replacement;
+      });
+      return next.getGlobal(frame, argument);
     }
 
     private GetGlobalNode specialize(final SSymbol argument) {
@@ -1,5 +1,7 @@
 package trufflesom.primitives.reflection;
 
+import static trufflesom.interpreter.TruffleCompiler.transferToInterpreterAndInvalidate;
+
 import com.oracle.truffle.api.dsl.Specialization;
 
 import bd.primitives.Primitive;
@@ -44,6 +46,12 @@ public abstract class HasGlobalPrim extends BinarySystemOperation {
     private final int      depth;
     private final Universe universe;
 
+    /**
+     * Set once this node was replaced. Threads that raced on specializing it
+     * continue with the replacement instead of specializing it again.
+     */
+    private HasGlobalNode replacement;
+
     UninitializedHasGlobal(final int depth, final Universe universe) {
       this.depth = depth;
       this.universe = universe;
@@ -54,7 +62,14 @@ public abstract class HasGlobalPrim extends BinarySystemOperation {
       boolean hasGlobal = universe.hasGlobal(argument);
 
       if (hasGlobal) {
-        return specialize(argument).hasGlobal(argument);
+        transferToInterpreterAndInvalidate("Initialize a global cache node.");
+        HasGlobalNode next = atomic(() -> {
+          if (replacement == null) {
+            replacement = specialize(argument);
+          }
+          return replacement;
+        });
+        return next.hasGlobal(argument);
       }
       return false;
     }
@@ -35,13 +35,28 @@ public abstract class IndexDispatch extends Node implements DispatchChain {
 
   private static final class UninitializedDispatchNode extends IndexDispatch {
 
+    /**
+     * Set once this node was replaced. Threads that raced on specializing it
+     * continue with the replacement instead of specializing it again.
+     */
+    private IndexDispatch replacement;
+
     UninitializedDispatchNode(final int depth, final Universe universe) {
       super(depth, universe);
     }
 
     private IndexDispatch specialize(final SClass clazz, final int index, final boolean read) {
       transferToInterpreterAndInvalidate("Initialize a dispatch node.");
+      return atomic(() -> {
+        if (replacement == null) {
+          replacement = specializeOnce(clazz, index, read);
+        }
+        return replacement;
+      });
+    }
 
+    private IndexDispatch specializeOnce(final SClass clazz, final int index,
+        final boolean read) {
       if (depth < INLINE_CACHE_SIZE) {
         IndexDispatch specialized;
         if (read) {
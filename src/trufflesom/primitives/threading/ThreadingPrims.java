@@ -0,0 +1,186 @@
+package trufflesom.primitives.threading;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.DirectCallNode;
+import com.oracle.truffle.api.nodes.IndirectCallNode;
+
+import bd.primitives.Primitive;
+import trufflesom.interpreter.nodes.nary.BinaryExpressionNode;
+import trufflesom.interpreter.nodes.nary.BinaryExpressionNode.BinarySystemOperation;
+import trufflesom.interpreter.nodes.nary.UnaryExpressionNode;
+import trufflesom.interpreter.nodes.nary.UnaryExpressionNode.UnarySystemOperation;
+import trufflesom.vmobjects.SBlock;
+import trufflesom.vmobjects.SClass;
+import trufflesom.vmobjects.SCondition;
+import trufflesom.vmobjects.SInvokable;
+import trufflesom.vmobjects.SMutex;
+import trufflesom.vmobjects.SThread;
+
+
+/**
+ * Primitives for the Thread, Mutex, and Condition classes in the
+ * {@code Concurrency} directory, which needs to be on the class path.
+ */
+public final class ThreadingPrims {
+
+  @GenerateNodeFactory
+  @Primitive(className = "Thread", primitive = "spawn:", classSide = true)
+  public abstract static class SpawnPrim extends BinarySystemOperation {
+    @Specialization
+    public final SThread doSpawn(final SClass receiver, final SBlock block) {
+      SThread thread = new SThread(receiver, block);
+      thread.start(universe);
+      return thread;
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "Thread", primitive = "join")
+  public abstract static class JoinPrim extends UnaryExpressionNode {
+    @Specialization
+    public final Object doThread(final SThread receiver) {
+      return receiver.join();
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "Thread", primitive = "isAlive")
+  public abstract static class IsAlivePrim extends UnaryExpressionNode {
+    @Specialization
+    public final boolean doThread(final SThread receiver) {
+      return receiver.isAlive();
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "Thread", primitive = "numberOfCores", classSide = true)
+  public abstract static class NumberOfCoresPrim extends UnaryExpressionNode {
+    @Specialization
+    public final long doSClass(final SClass receiver) {
+      return Runtime.getRuntime().availableProcessors();
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "Mutex", primitive = "new", classSide = true)
+  public abstract static class NewMutexPrim extends UnaryExpressionNode {
+    @Specialization
+    public final SMutex doSClass(final SClass receiver) {
+      return new SMutex(receiver);
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "Mutex", primitive = "lock")
+  public abstract static class LockPrim extends UnaryExpressionNode {
+    @Specialization
+    public final SMutex doMutex(final SMutex receiver) {
+      receiver.lock();
+      return receiver;
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "Mutex", primitive = "unlock")
+  public abstract static class UnlockPrim extends UnaryExpressionNode {
+    @Specialization
+    public final SMutex doMutex(final SMutex receiver) {
+      receiver.unlock();
+      return receiver;
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "Mutex", primitive = "isLocked")
+  public abstract static class IsLockedPrim extends UnaryExpressionNode {
+    @Specialization
+    public final boolean doMutex(final SMutex receiver) {
+      return receiver.isLocked();
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "Mutex", primitive = "critical:")
+  public abstract static class CriticalPrim extends BinaryExpressionNode {
+    protected static DirectCallNode createDirect(final SInvokable method) {
+      return Truffle.getRuntime().createDirectCallNode(method.getCallTarget());
+    }
+
+    protected static IndirectCallNode createIndirect() {
+      return Truffle.getRuntime().createIndirectCallNode();
+    }
+
+    @Specialization(guards = "block.getMethod() == method")
+    public final Object doCached(final SMutex receiver, final SBlock block,
+        @Cached("block.getMethod()") final SInvokable method,
+        @Cached("createDirect(method)") final DirectCallNode call) {
+      receiver.lock();
+      try {
+        return call.call(new Object[] {block});
+      } finally {
+        receiver.unlock();
+      }
+    }
+
+    @Specialization(replaces = "doCached")
+    public final Object doUncached(final SMutex receiver, final SBlock block,
+        @Cached("createIndirect()") final IndirectCallNode call) {
+      receiver.lock();
+      try {
+        return call.call(block.getMethod().getCallTarget(), new Object[] {block});
+      } finally {
+        receiver.unlock();
+      }
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "Mutex", primitive = "newCondition")
+  public abstract static class NewConditionPrim extends UnarySystemOperation {
+    @CompilationFinal private SClass conditionClass;
+
+    @Specialization
+    public final SCondition doMutex(final SMutex receiver) {
+      if (conditionClass == null) {
+        CompilerDirectives.transferToInterpreterAndInvalidate();
+        conditionClass = universe.loadClass(universe.symbolFor("Condition"));
+      }
+      return receiver.newCondition(conditionClass);
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "Condition", primitive = "await")
+  public abstract static class AwaitPrim extends UnaryExpressionNode {
+    @Specialization
+    public final SCondition doCondition(final SCondition receiver) {
+      receiver.await();
+      return receiver;
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "Condition", primitive = "signal")
+  public abstract static class SignalPrim extends UnaryExpressionNode {
+    @Specialization
+    public final SCondition doCondition(final SCondition receiver) {
+      receiver.signal();
+      return receiver;
+    }
+  }
+
+  @GenerateNodeFactory
+  @Primitive(className = "Condition", primitive = "signalAll")
+  public abstract static class SignalAllPrim extends UnaryExpressionNode {
+    @Specialization
+    public final SCondition doCondition(final SCondition receiver) {
+      receiver.signalAll();
+      return receiver;
+    }
+  }
+}
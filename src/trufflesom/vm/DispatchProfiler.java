@@ -0,0 +1,297 @@
+package trufflesom.vm;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.source.SourceSection;
+
+import trufflesom.interpreter.nodes.dispatch.AbstractDispatchNode;
+import trufflesom.vmobjects.SClass;
+import trufflesom.vmobjects.SSymbol;
+
+
+/**
+ * Records how the dispatch chains of send sites evolve, to find polymorphic
+ * and megamorphic sites without looking at the compiler graphs.
+ *
+ * <p>
+ * Enabled with the {@code som.DISPATCH_PROFILE} option, which selects the
+ * format of the report, i.e., {@code text} or {@code json}. The report is
+ * written at exit, to {@code som.DISPATCH_PROFILE_OUTPUT} or standard error.
+ * It ends with the hits and misses of the {@link MethodLookupCache}, which
+ * megamorphic sites use.
+ *
+ * <p>
+ * Sites are identified by their source location. Thus, the copies of a send
+ * node created for splitting or inlining are reported together.
+ *
+ * <p>
+ * Sites may be recorded by several threads. Each site is updated under its
+ * own lock, and the report is created from snapshots of the sites.
+ */
+public final class DispatchProfiler {
+
+  public static final class SiteProfile implements Comparable<SiteProfile> {
+    private final String  location;
+    private final SSymbol selector;
+
+    private final LinkedHashSet<String> receiverClasses;
+
+    private int  maxChainLength;
+    private int  megamorphicTransitions;
+    private long dnuCount;
+
+    SiteProfile(final String location, final SSymbol selector) {
+      this.location = location;
+      this.selector = selector;
+      this.receiverClasses = new LinkedHashSet<>();
+    }
+
+    private synchronized SiteProfile snapshot() {
+      SiteProfile copy = new SiteProfile(location, selector);
+      copy.receiverClasses.addAll(receiverClasses);
+      copy.maxChainLength = maxChainLength;
+      copy.megamorphicTransitions = megamorphicTransitions;
+      copy.dnuCount = dnuCount;
+      return copy;
+    }
+
+    public boolean isMegamorphic() {
+      return megamorphicTransitions > 0;
+    }
+
+    @Override
+    public int compareTo(final SiteProfile o) {
+      if (isMegamorphic() != o.isMegamorphic()) {
+        return isMegamorphic() ? -1 : 1;
+      }
+      if (receiverClasses.size() != o.receiverClasses.size()) {
+        return o.receiverClasses.size() - receiverClasses.size();
+      }
+      if (maxChainLength != o.maxChainLength) {
+        return o.maxChainLength - maxChainLength;
+      }
+      if (dnuCount != o.dnuCount) {
+        return Long.compare(o.dnuCount, dnuCount);
+      }
+      return location.compareTo(o.location);
+    }
+  }
+
+  private final String format;
+  private final String output;
+
+  private final ConcurrentHashMap<Object, SiteProfile> sites;
+
+  private DispatchProfiler(final String format, final String output) {
+    this.format = format;
+    this.output = output;
+    this.sites = new ConcurrentHashMap<>();
+  }
+
+  /** @return a profiler, or null if profiling is disabled */
+  public static DispatchProfiler create(final String format, final String output) {
+    if (format == null || format.isEmpty()) {
+      return null;
+    }
+    if (!"text".equals(format) && !"json".equals(format)) {
+      Universe.errorPrintln("Unknown dispatch profile format '" + format
+          + "'. Supported are: text, json");
+      return null;
+    }
+    return new DispatchProfiler(format, output);
+  }
+
+  private static Node getSendNode(final Node dispatchNode) {
+    Node n = dispatchNode;
+    while (n instanceof AbstractDispatchNode) {
+      n = n.getParent();
+    }
+    return n;
+  }
+
+  private SiteProfile getSite(final Node dispatchNode, final SSymbol selector) {
+    Node sendNode = getSendNode(dispatchNode);
+    SourceSection source = sendNode == null ? null : sendNode.getSourceSection();
+
+    Object key = source == null ? sendNode : source;
+    return sites.computeIfAbsent(key, k -> {
+      String location;
+      if (source == null) {
+        location = "<unknown>";
+      } else {
+        location = source.getSource().getName() + Universe.getLocationQualifier(source);
+      }
+      return new SiteProfile(location, selector);
+    });
+  }
+
+  @TruffleBoundary
+  public void recordCacheEntry(final Node dispatchNode, final SSymbol selector,
+      final SClass rcvrClass, final int chainLength) {
+    SiteProfile site = getSite(dispatchNode, selector);
+    synchronized (site) {
+      site.receiverClasses.add(rcvrClass.getName().getString());
+      site.maxChainLength = Math.max(site.maxChainLength, chainLength);
+    }
+  }
+
+  @TruffleBoundary
+  public void recordMegamorphic(final Node dispatchNode, final SSymbol selector,
+      final SClass rcvrClass) {
+    SiteProfile site = getSite(dispatchNode, selector);
+    synchronized (site) {
+      site.receiverClasses.add(rcvrClass.getName().getString());
+      site.megamorphicTransitions += 1;
+    }
+  }
+
+  @TruffleBoundary
+  public void recordReceiver(final Node dispatchNode, final SSymbol selector,
+      final SClass rcvrClass) {
+    SiteProfile site = getSite(dispatchNode, selector);
+    synchronized (site) {
+      site.receiverClasses.add(rcvrClass.getName().getString());
+    }
+  }
+
+  @TruffleBoundary
+  public void recordDnu(final Node dispatchNode, final SSymbol selector) {
+    SiteProfile site = getSite(dispatchNode, selector);
+    synchronized (site) {
+      site.dnuCount += 1;
+    }
+  }
+
+  private List<SiteProfile> getSortedSites() {
+    List<SiteProfile> result = new ArrayList<>(sites.size());
+    for (SiteProfile site : sites.values()) {
+      result.add(site.snapshot());
+    }
+    Collections.sort(result);
+    return result;
+  }
+
+  @TruffleBoundary
+  public void report(final MethodLookupCache lookupCache) {
+    String report;
+    if ("json".equals(format)) {
+      report = toJson(lookupCache);
+    } else {
+      report = toText(lookupCache);
+    }
+
+    if (output == null || output.isEmpty()) {
+      Universe.errorPrint(report);
+      return;
+    }
+
+    try (FileWriter writer = new FileWriter(output)) {
+      writer.write(report);
+    } catch (IOException e) {
+      Universe.errorPrintln("Failed to write dispatch profile to " + output + ": "
+          + e.getMessage());
+    }
+  }
+
+  public String toText(final MethodLookupCache lookupCache) {
+    StringWriter sw = new StringWriter();
+    PrintWriter out = new PrintWriter(sw);
+    List<SiteProfile> sorted = getSortedSites();
+
+    out.println("Dispatch profile of " + sorted.size() + " send sites");
+    out.println(String.format("%-12s %6s %6s %8s  %-40s %s",
+        "state", "chain", "megas", "dnus", "location", "selector / receivers"));
+
+    for (SiteProfile s : sorted) {
+      String state;
+      if (s.isMegamorphic()) {
+        state = "megamorphic";
+      } else if (s.maxChainLength > 1) {
+        state = "polymorphic";
+      } else {
+        state = "monomorphic";
+      }
+      out.println(String.format("%-12s %6d %6d %8d  %-40s #%s %s", state,
+          s.maxChainLength, s.megamorphicTransitions, s.dnuCount, s.location,
+          s.selector.getString(), s.receiverClasses));
+    }
+
+    out.println(String.format("Method lookup cache: %d hits, %d misses, hit rate %.1f%%",
+        lookupCache.getHits(), lookupCache.getMisses(), lookupCache.getHitRate() * 100));
+    out.flush();
+    return sw.toString();
+  }
+
+  public String toJson(final MethodLookupCache lookupCache) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\n  \"methodLookupCache\": {\"hits\": ").append(lookupCache.getHits());
+    sb.append(", \"misses\": ").append(lookupCache.getMisses());
+    sb.append("},\n  \"sites\": [\n");
+    boolean first = true;
+    for (SiteProfile s : getSortedSites()) {
+      if (!first) {
+        sb.append(",\n");
+      }
+      first = false;
+
+      sb.append("    {\"location\": ");
+      appendJsonString(sb, s.location);
+      sb.append(", \"selector\": ");
+      appendJsonString(sb, s.selector.getString());
+      sb.append(", \"chainLength\": ").append(s.maxChainLength);
+      sb.append(", \"megamorphicTransitions\": ").append(s.megamorphicTransitions);
+      sb.append(", \"dnuCount\": ").append(s.dnuCount);
+      sb.append(", \"receiverClasses\": [");
+
+      boolean firstClass = true;
+      for (String c : s.receiverClasses) {
+        if (!firstClass) {
+          sb.append(", ");
+        }
+        firstClass = false;
+        appendJsonString(sb, c);
+      }
+      sb.append("]}");
+    }
+    sb.append("\n  ]\n}\n");
+    return sb.toString();
+  }
+
+  private static void appendJsonString(final StringBuilder sb, final String str) {
+    sb.append('"');
+    for (int i = 0; i < str.length(); i++) {
+      char c = str.charAt(i);
+      switch (c) {
+        case '"':
+          sb.append("\\\"");
+          break;
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            sb.append(String.format("\\u%04x", (int) c));
+          } else {
+            sb.append(c);
+          }
+      }
+    }
+    sb.append('"');
+  }
+}
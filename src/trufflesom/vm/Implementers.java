@@ -0,0 +1,88 @@
+package trufflesom.vm;
+
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.Truffle;
+
+import trufflesom.vmobjects.SClass;
+import trufflesom.vmobjects.SInvokable;
+import trufflesom.vmobjects.SSymbol;
+
+
+/**
+ * Class hierarchy analysis for one selector, i.e., the classes that implement
+ * it, as far as they are loaded. Each {@link SSymbol} has its own instance,
+ * which is updated whenever a class gets its methods, see
+ * {@link SClass#setInstanceInvokables} and {@link SClass#addInstanceInvokable}.
+ *
+ * <p>
+ * As long as only one class implements a selector, a send of it can be bound
+ * directly to that implementation for all receivers that are instances of the
+ * class or its subclasses. This is valid under an {@link Assumption}, which is
+ * invalidated when another class defines the selector, or when the
+ * implementation is replaced, for instance by a primitive.
+ *
+ * <p>
+ * Implementers are only ever added, never removed. Thus, the analysis is
+ * conservative: it may miss a single implementation, but never reports a
+ * wrong one.
+ */
+public final class Implementers {
+  /** The only class implementing the selector, or null. */
+  private SClass     holder;
+  private SInvokable invokable;
+  private boolean    multiple;
+
+  /** Created lazily, only once a send relies on the single implementation. */
+  private Assumption singleImplementation;
+
+  public synchronized void add(final SClass holder, final SInvokable invokable) {
+    CompilerAsserts.neverPartOfCompilation("Implementers.add(.)");
+    if (multiple) {
+      return;
+    }
+
+    if (this.holder == null) {
+      this.holder = holder;
+      this.invokable = invokable;
+      return;
+    }
+
+    if (this.holder == holder) {
+      if (this.invokable != invokable) {
+        this.invokable = invokable;
+        invalidate();
+      }
+      return;
+    }
+
+    multiple = true;
+    this.holder = null;
+    this.invokable = null;
+    invalidate();
+  }
+
+  private void invalidate() {
+    if (singleImplementation != null) {
+      singleImplementation.invalidate();
+      singleImplementation = null;
+    }
+  }
+
+  /**
+   * @return an assumption that {@code invokable} remains the only
+   *         implementation of the selector, or null, if it is not the only one
+   */
+  public synchronized Assumption assumeSingleImplementation(final SInvokable invokable) {
+    CompilerAsserts.neverPartOfCompilation("Implementers.assumeSingleImplementation(.)");
+    if (multiple || this.invokable != invokable) {
+      return null;
+    }
+
+    if (singleImplementation == null) {
+      singleImplementation = Truffle.getRuntime().createAssumption(
+          "Single implementation of " + invokable.getSignature().toString());
+    }
+    return singleImplementation;
+  }
+}
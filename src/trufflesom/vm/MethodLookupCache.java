@@ -0,0 +1,123 @@
+package trufflesom.vm;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import trufflesom.vmobjects.SClass;
+import trufflesom.vmobjects.SInvokable;
+import trufflesom.vmobjects.SSymbol;
+
+
+/**
+ * (class, selector) to invokable cache of a {@link Universe}, consulted by
+ * megamorphic send sites before falling back to
+ * {@link SClass#lookupInvokable(SSymbol)}.
+ *
+ * <p>
+ * The cache is direct mapped. Each (class, selector) pair hashes to exactly
+ * one entry and overwrites whatever was there before.
+ *
+ * <p>
+ * Entries are immutable and replaced as a whole, so that threads racing on
+ * the same entry never see a class and selector with the wrong invokable.
+ *
+ * <p>
+ * Any change to the class hierarchy, i.e., to the methods or the superclass of
+ * a class, needs to call {@link #invalidate()}. This increments the epoch,
+ * which lets the per-class lookup tables know that they might be stale, too.
+ * Each entry records the epoch in which its lookup started, and is only valid
+ * in that epoch. Thus, a lookup that raced with a change cannot leave a stale
+ * entry behind, and invalidating does not need to clear the cache.
+ *
+ * <p>
+ * Hits and misses are counted, and reported with the dispatch profile, see
+ * {@link DispatchProfiler}.
+ */
+public final class MethodLookupCache {
+  private static final int SIZE = 1024;
+  private static final int MASK = SIZE - 1;
+
+  private static final class Entry {
+    private final int        epoch;
+    private final SClass     clazz;
+    private final SSymbol    selector;
+    private final SInvokable invokable;
+
+    Entry(final int epoch, final SClass clazz, final SSymbol selector,
+        final SInvokable invokable) {
+      this.epoch = epoch;
+      this.clazz = clazz;
+      this.selector = selector;
+      this.invokable = invokable;
+    }
+  }
+
+  private final AtomicReferenceArray<Entry> entries;
+
+  private volatile int epoch;
+
+  private final LongAdder hits;
+  private final LongAdder misses;
+
+  public MethodLookupCache() {
+    entries = new AtomicReferenceArray<>(SIZE);
+    hits = new LongAdder();
+    misses = new LongAdder();
+  }
+
+  private static int index(final SClass clazz, final SSymbol selector) {
+    int h = System.identityHashCode(clazz) ^ (System.identityHashCode(selector) * 31);
+    return (h ^ (h >>> 16)) & MASK;
+  }
+
+  @TruffleBoundary
+  public SInvokable lookup(final SClass clazz, final SSymbol selector) {
+    int currentEpoch = epoch;
+    int idx = index(clazz, selector);
+    Entry entry = entries.get(idx);
+    if (entry != null && entry.epoch == currentEpoch && entry.clazz == clazz
+        && entry.selector == selector) {
+      hits.increment();
+      return entry.invokable;
+    }
+
+    misses.increment();
+    SInvokable invokable = clazz.lookupInvokable(selector);
+
+    // we do not cache failing lookups, those go to #doesNotUnderstand:
+    if (invokable != null) {
+      entries.set(idx, new Entry(currentEpoch, clazz, selector, invokable));
+    }
+    return invokable;
+  }
+
+  public synchronized void invalidate() {
+    CompilerAsserts.neverPartOfCompilation("MethodLookupCache.invalidate()");
+    epoch += 1;
+  }
+
+  public int getEpoch() {
+    return epoch;
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /** @return the ratio of hits to all lookups, or 0 if there were none */
+  public double getHitRate() {
+    long h = getHits();
+    long total = h + getMisses();
+    if (total == 0) {
+      return 0;
+    }
+    return (double) h / total;
+  }
+}
@@ -0,0 +1,180 @@
+package trufflesom.vm;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import trufflesom.interpreter.SomLanguage;
+
+
+/**
+ * A pool of worker threads to run the chunks of the parallel collection
+ * primitives, e.g., {@code Array>>#parallelDo:}.
+ *
+ * <p>
+ * The workers are created with {@link SomLanguage#createThread(Runnable)},
+ * because they execute SOM code and thus need to be known to the context.
+ * This is also why a {@link java.util.concurrent.ForkJoinPool} cannot be
+ * used, its worker threads cannot be created by the context.
+ *
+ * <p>
+ * Instead, the calling thread processes chunks, too. Workers and the caller
+ * take the next chunk that is not started yet, so the caller only ever waits
+ * for chunks that are already running. Thus, a nested parallel primitive,
+ * which is called on a worker, cannot deadlock when all workers are busy.
+ *
+ * <p>
+ * The pool is created lazily, so that programs without parallel primitives
+ * do not start any threads.
+ */
+public final class ParallelWorkers {
+
+  /** Arrays shorter than this are processed sequentially. */
+  public static final int SEQUENTIAL_THRESHOLD = 4096;
+
+  /** The minimal number of elements processed by one task. */
+  public static final int MIN_CHUNK_SIZE = 1024;
+
+  public interface ChunkTask {
+    /** Process the elements from {@code start} to {@code end}, exclusively. */
+    void run(int chunk, int start, int end);
+  }
+
+  /** The chunks of one call to {@link #forEachChunk}. */
+  private static final class Chunks {
+    private final ChunkTask task;
+    private final int       length;
+    private final int       numChunks;
+    private final int       chunkSize;
+
+    private final AtomicInteger              nextChunk;
+    private final CountDownLatch             completed;
+    private final AtomicReference<Throwable> failure;
+
+    Chunks(final ChunkTask task, final int length, final int numChunks,
+        final int chunkSize) {
+      this.task = task;
+      this.length = length;
+      this.numChunks = numChunks;
+      this.chunkSize = chunkSize;
+      this.nextChunk = new AtomicInteger();
+      this.completed = new CountDownLatch(numChunks);
+      this.failure = new AtomicReference<>();
+    }
+
+    /** Run chunks that were not started yet, until there are none left. */
+    void runAvailable() {
+      int chunk;
+      while ((chunk = nextChunk.getAndIncrement()) < numChunks) {
+        int start = chunk * chunkSize;
+        int end = Math.min(start + chunkSize, length);
+        try {
+          task.run(chunk, start, end);
+        } catch (Throwable t) {
+          failure.compareAndSet(null, t);
+        } finally {
+          completed.countDown();
+        }
+      }
+    }
+
+    void awaitCompletion() {
+      boolean interrupted = false;
+      while (true) {
+        try {
+          completed.await();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    void rethrowFailure() {
+      Throwable t = failure.get();
+      if (t instanceof RuntimeException) {
+        throw (RuntimeException) t;
+      } else if (t instanceof Error) {
+        throw (Error) t;
+      } else if (t != null) {
+        throw new RuntimeException(t);
+      }
+    }
+  }
+
+  private final SomLanguage language;
+  private final int         parallelism;
+
+  private ExecutorService pool;
+
+  public ParallelWorkers(final SomLanguage language) {
+    this.language = language;
+    int threads = language.getNumberOfThreads();
+    this.parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+  }
+
+  public static boolean shouldRunInParallel(final int length) {
+    return length >= SEQUENTIAL_THRESHOLD;
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  private synchronized ExecutorService getPool() {
+    if (pool == null) {
+      pool = Executors.newFixedThreadPool(parallelism, r -> {
+        Thread t = language.createThread(r);
+        t.setDaemon(true);
+        return t;
+      });
+    }
+    return pool;
+  }
+
+  /**
+   * Split the range from 0 to {@code length} into chunks, and run them in
+   * parallel, on the workers and the calling thread.
+   *
+   * <p>
+   * Returns only when all chunks completed. The first exception thrown by a
+   * chunk is rethrown in the calling thread.
+   */
+  @TruffleBoundary
+  public void forEachChunk(final int length, final ChunkTask task) {
+    int numChunks = getNumberOfChunks(length);
+    Chunks chunks = new Chunks(task, length, numChunks, getChunkSize(length, numChunks));
+
+    ExecutorService executor = getPool();
+    for (int i = 1; i < numChunks; i++) {
+      executor.execute(chunks::runAvailable);
+    }
+
+    chunks.runAvailable();
+    chunks.awaitCompletion();
+    chunks.rethrowFailure();
+  }
+
+  /** @return the number of chunks {@link #forEachChunk} uses for the given length */
+  public int getNumberOfChunks(final int length) {
+    return Math.max(1, Math.min(parallelism, length / MIN_CHUNK_SIZE));
+  }
+
+  public static int getChunkSize(final int length, final int chunks) {
+    return (length + chunks - 1) / chunks;
+  }
+
+  public synchronized void shutdown() {
+    if (pool != null) {
+      pool.shutdown();
+      pool = null;
+    }
+  }
+}
@@ -27,8 +27,8 @@ package trufflesom.vm;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.Context.Builder;
@@ -79,7 +79,7 @@ public final class Universe implements IdProvider<SSymbol> {
   public static final class Association {
     private final SSymbol key;
 
-    @CompilationFinal private Object value;
+    @CompilationFinal private volatile Object value;
 
     public Association(final SSymbol key, final Object value) {
       this.key = key;
@@ -129,8 +129,12 @@ public final class Universe implements IdProvider<SSymbol> {
 
   public Universe(final SomLanguage language) {
     this.language = language;
-    this.globals = new HashMap<SSymbol, Association>();
-    this.symbolTable = new HashMap<>();
+    this.dispatchProfiler = DispatchProfiler.create(language.getDispatchProfile(),
+        language.getDispatchProfileOutput());
+    this.parallelWorkers = new ParallelWorkers(language);
+    this.methodLookupCache = new MethodLookupCache();
+    this.globals = new ConcurrentHashMap<>();
+    this.symbolTable = new ConcurrentHashMap<>();
     this.alreadyInitialized = false;
 
     this.blockClasses = new SClass[4];
@@ -184,6 +188,25 @@ public final class Universe implements IdProvider<SSymbol> {
     return language;
   }
 
+  /** @return the dispatch profiler, or null if profiling is disabled */
+  public DispatchProfiler getDispatchProfiler() {
+    return dispatchProfiler;
+  }
+
+  public MethodLookupCache getMethodLookupCache() {
+    return methodLookupCache;
+  }
+
+  public ParallelWorkers getParallelWorkers() {
+    return parallelWorkers;
+  }
+
+  public void reportDispatchProfile() {
+    if (dispatchProfiler != null) {
+      dispatchProfiler.report(methodLookupCache);
+    }
+  }
+
   public static void errorExit(final String message) {
     TruffleCompiler.transferToInterpreter("errorExit");
     errorPrintln("Runtime Error: " + message);
@@ -425,14 +448,13 @@ public final class Universe implements IdProvider<SSymbol> {
 
   @TruffleBoundary
   public SSymbol symbolFor(final String string) {
-    String interned = string.intern();
     // Lookup the symbol in the symbol table
-    SSymbol result = symbolTable.get(interned);
+    SSymbol result = symbolTable.get(string);
     if (result != null) {
       return result;
     }
 
-    return newSymbol(interned);
+    return newSymbol(string);
   }
 
   @Override
@@ -466,10 +488,10 @@ public final class Universe implements IdProvider<SSymbol> {
   }
 
   @TruffleBoundary
-  private static SClass newMetaclassClass() {
+  private SClass newMetaclassClass() {
     // Allocate the metaclass classes
-    SClass result = new SClass(0);
-    result.setClass(new SClass(0));
+    SClass result = new SClass(0, methodLookupCache);
+    result.setClass(new SClass(0, methodLookupCache));
 
     // Setup the metaclass hierarchy
     result.getSOMClass(null).setClass(result);
@@ -478,17 +500,22 @@ public final class Universe implements IdProvider<SSymbol> {
 
   private SSymbol newSymbol(final String string) {
     SSymbol result = new SSymbol(string);
-    symbolTable.put(string, result);
+
+    // another thread might have been faster, its symbol wins
+    SSymbol existing = symbolTable.putIfAbsent(string, result);
+    if (existing != null) {
+      return existing;
+    }
     return result;
   }
 
   @TruffleBoundary
   private SClass newSystemClass() {
     // Allocate the new system class
-    SClass systemClass = new SClass(0);
+    SClass systemClass = new SClass(0, methodLookupCache);
 
     // Setup the metaclass hierarchy
-    systemClass.setClass(new SClass(0));
+    systemClass.setClass(new SClass(0, methodLookupCache));
     systemClass.getSOMClass(this).setClass(metaclassClass);
 
     // Return the freshly allocated system class
@@ -548,11 +575,12 @@ public final class Universe implements IdProvider<SSymbol> {
   public void setGlobal(final SSymbol name, final Object value) {
     Association assoc = globals.get(name);
     if (assoc == null) {
-      assoc = new Association(name, value);
-      globals.put(name, assoc);
-    } else {
-      assoc.setValue(value);
+      assoc = globals.putIfAbsent(name, new Association(name, value));
+      if (assoc == null) {
+        return;
+      }
     }
+    assoc.setValue(value);
   }
 
   public SClass getBlockClass(final int numberOfArguments) {
@@ -575,7 +603,7 @@ public final class Universe implements IdProvider<SSymbol> {
   }
 
   @TruffleBoundary
-  public SClass loadClass(final SSymbol name) {
+  public synchronized SClass loadClass(final SSymbol name) {
     // Check if the requested class is already in the dictionary of globals
     SClass result = (SClass) getGlobal(name);
     if (result != null) {
@@ -754,14 +782,22 @@ public final class Universe implements IdProvider<SSymbol> {
   public final SSymbol symFrameOnStack;
   public final SSymbol symSuper;
 
-  private final HashMap<SSymbol, Association> globals;
+  private final ConcurrentHashMap<SSymbol, Association> globals;
 
   private String[]                  classPath;
   @CompilationFinal private boolean printAST;
 
   private final SomLanguage language;
 
-  private final HashMap<String, SSymbol> symbolTable;
+  /**
+   * Symbols are looked up by the content of the string. This avoids the
+   * JVM's intern table, and the map is safe to use from multiple threads.
+   */
+  private final ConcurrentHashMap<String, SSymbol> symbolTable;
+
+  private final DispatchProfiler  dispatchProfiler;
+  private final ParallelWorkers   parallelWorkers;
+  private final MethodLookupCache methodLookupCache;
 
   // Optimizations
   @CompilationFinal(dimensions = 1) private final SClass[] blockClasses;
@@ -13,11 +13,33 @@ import trufflesom.vm.constants.Nil;
  * The SArray objects are 'tagged' with a type, and the strategy behavior
  * is implemented directly in the AST nodes.
  *
+ * <p>
+ * Integers are stored in the most compact of BYTE, INT, and LONG storage
+ * when an array gets filled with them. Storing a value that does not fit
+ * widens the array to LONG storage.
+ *
+ * <p>
+ * Copies of an array share the storage with the original until one of
+ * them is written to. Thus, code writing to the storage needs to use the
+ * {@code get*StorageForWrite()} accessors.
+ *
+ * <p>
+ * A copy of a range of the elements can be a {@link Slice}, i.e., a view on
+ * the shared storage. Only the nodes that know about slices use them
+ * directly. All other accessors copy the range into storage of its own
+ * first.
+ *
  * @author smarr
  */
 public final class SArray extends SAbstractObject {
   public static final int FIRST_IDX = 0;
 
+  /**
+   * Shorter ranges are copied instead of sliced, because a slice keeps the
+   * whole storage alive.
+   */
+  public static final int MIN_SLICE_LENGTH = 64;
+
   public static SArray create(final Object[] values) {
     return new SArray(values);
   }
@@ -34,17 +56,70 @@ public final class SArray extends SAbstractObject {
     return new SArray(values);
   }
 
+  public static SArray create(final byte[] values) {
+    return new SArray(ArrayType.BYTE, values);
+  }
+
+  public static SArray create(final int[] values) {
+    return new SArray(ArrayType.INT, values);
+  }
+
   public static SArray create(final int length) {
     return new SArray(length);
   }
 
+  /**
+   * Create an array with typed storage for the values, if all of them are
+   * integers or all are doubles. Integers use the most compact storage.
+   */
+  public static SArray createWithCompactStorage(final Object[] values) {
+    boolean allLong = true;
+    boolean allDouble = true;
+    for (Object o : values) {
+      allLong = allLong && o instanceof Long;
+      allDouble = allDouble && o instanceof Double;
+    }
+
+    if (values.length == 0 || (!allLong && !allDouble)) {
+      return new SArray(values);
+    }
+
+    if (allLong) {
+      long[] longs = new long[values.length];
+      for (int i = 0; i < values.length; i++) {
+        longs[i] = (Long) values[i];
+      }
+      SArray result = new SArray(longs);
+      result.transitionToIntegers(longs);
+      return result;
+    }
+
+    double[] doubles = new double[values.length];
+    for (int i = 0; i < values.length; i++) {
+      doubles[i] = (Double) values[i];
+    }
+    return new SArray(doubles);
+  }
+
   private ArrayType type;
   private Object    storage;
 
+  /** Whether the storage might be used by another array, too. */
+  private boolean shared;
+
   public ArrayType getType() {
     return type;
   }
 
+  public boolean isSlice() {
+    return storage instanceof Slice;
+  }
+
+  public Slice getSlice() {
+    assert isSlice();
+    return (Slice) storage;
+  }
+
   public int getEmptyStorage(final ValueProfile storageType) {
     assert type == ArrayType.EMPTY;
     return (int) storage;
@@ -57,22 +132,165 @@ public final class SArray extends SAbstractObject {
 
   public Object[] getObjectStorage(final ValueProfile storageType) {
     assert type == ArrayType.OBJECT;
-    return (Object[]) storage;
+    return (Object[]) ownStorage();
   }
 
   public long[] getLongStorage(final ValueProfile storageType) {
     assert type == ArrayType.LONG;
-    return (long[]) storage;
+    return (long[]) ownStorage();
   }
 
   public double[] getDoubleStorage(final ValueProfile storageType) {
     assert type == ArrayType.DOUBLE;
-    return (double[]) storage;
+    return (double[]) ownStorage();
   }
 
   public boolean[] getBooleanStorage(final ValueProfile storageType) {
     assert type == ArrayType.BOOLEAN;
-    return (boolean[]) storage;
+    return (boolean[]) ownStorage();
+  }
+
+  public byte[] getByteStorage(final ValueProfile storageType) {
+    assert type == ArrayType.BYTE;
+    return (byte[]) ownStorage();
+  }
+
+  public int[] getIntStorage(final ValueProfile storageType) {
+    assert type == ArrayType.INT;
+    return (int[]) ownStorage();
+  }
+
+  public Object[] getObjectStorageForWrite(final ValueProfile storageType) {
+    unshare();
+    return getObjectStorage(storageType);
+  }
+
+  public long[] getLongStorageForWrite(final ValueProfile storageType) {
+    unshare();
+    return getLongStorage(storageType);
+  }
+
+  public double[] getDoubleStorageForWrite(final ValueProfile storageType) {
+    unshare();
+    return getDoubleStorage(storageType);
+  }
+
+  public boolean[] getBooleanStorageForWrite(final ValueProfile storageType) {
+    unshare();
+    return getBooleanStorage(storageType);
+  }
+
+  public byte[] getByteStorageForWrite(final ValueProfile storageType) {
+    unshare();
+    return getByteStorage(storageType);
+  }
+
+  public int[] getIntStorageForWrite(final ValueProfile storageType) {
+    unshare();
+    return getIntStorage(storageType);
+  }
+
+  /**
+   * Copy the storage if it is shared with another array. The other array
+   * stays marked as shared, and will copy on its first write, too.
+   */
+  private void unshare() {
+    if (shared) {
+      storage = cloneStorage();
+      shared = false;
+    } else {
+      ownStorage();
+    }
+  }
+
+  /**
+   * Replace a slice with a copy of its elements. Like the other transitions
+   * of the storage, this is not synchronized with other threads.
+   *
+   * @return the typed storage of the array
+   */
+  private Object ownStorage() {
+    Object s = storage;
+    if (s instanceof Slice) {
+      s = ((Slice) s).copyElements();
+      storage = s;
+    }
+    return s;
+  }
+
+  private Object cloneStorage() {
+    assert !isSlice() : "slices are never marked as shared";
+    switch (type) {
+      case OBJECT:
+        return ((Object[]) storage).clone();
+      case LONG:
+        return ((long[]) storage).clone();
+      case DOUBLE:
+        return ((double[]) storage).clone();
+      case BOOLEAN:
+        return ((boolean[]) storage).clone();
+      case BYTE:
+        return ((byte[]) storage).clone();
+      case INT:
+        return ((int[]) storage).clone();
+      default:
+        throw new IllegalStateException("Storage of type " + type + " is not shared");
+    }
+  }
+
+  /**
+   * Copy a range of elements between two arrays with the same typed storage.
+   */
+  public static void copyElements(final SArray src, final int srcPos, final SArray dest,
+      final int destPos, final int length) {
+    assert src.type == dest.type;
+    assert src.type != ArrayType.EMPTY && src.type != ArrayType.PARTIAL_EMPTY;
+    dest.unshare();
+
+    Object srcStorage = src.storage;
+    int start = srcPos;
+    if (srcStorage instanceof Slice) {
+      Slice slice = (Slice) srcStorage;
+      srcStorage = slice.storage;
+      start += slice.start;
+    }
+    System.arraycopy(srcStorage, start, dest.storage, destPos, length);
+  }
+
+  /**
+   * Create a copy of this array, which shares the storage until one of the
+   * two arrays is written to. Not supported for EMPTY and PARTIAL_EMPTY
+   * arrays.
+   */
+  public SArray copyOnWrite() {
+    assert type != ArrayType.EMPTY && type != ArrayType.PARTIAL_EMPTY;
+    if (isSlice()) {
+      // slices are immutable, so, the copy can use the same one
+      return new SArray(type, storage);
+    }
+
+    shared = true;
+    SArray copy = new SArray(type, storage);
+    copy.shared = true;
+    return copy;
+  }
+
+  /**
+   * Create an array with the {@code length} elements starting at the 0-based
+   * index {@code from}, which shares the storage of this array. This array
+   * copies its storage on the next write, the slice copies its elements on
+   * the first access that does not support slices. Not supported for EMPTY
+   * and PARTIAL_EMPTY arrays.
+   */
+  public SArray slice(final int from, final int length) {
+    assert type != ArrayType.EMPTY && type != ArrayType.PARTIAL_EMPTY;
+    Object s = storage;
+    if (s instanceof Slice) {
+      return new SArray(type, ((Slice) s).slice(from, length));
+    }
+
+    shared = true;
+    return new SArray(type, new Slice(s, from, length));
   }
 
   /**
@@ -110,75 +328,136 @@ public final class SArray extends SAbstractObject {
     this.storage = storage;
   }
 
-  private void fromEmptyToParticalWithType(final ArrayType type, final long idx,
-      final Object val) {
+  private PartiallyEmptyArray fromEmptyToParticalWithType(final ArrayType type) {
     assert this.type == ArrayType.EMPTY;
     int length = (int) storage;
-    storage = new PartiallyEmptyArray(type, length, idx, val);
-    this.type = ArrayType.PARTIAL_EMPTY;
+    PartiallyEmptyArray partial = new PartiallyEmptyArray(type, length);
+    transitionTo(ArrayType.PARTIAL_EMPTY, partial);
+    return partial;
   }
 
   /**
    * Transition from the Empty, to the PartiallyEmpty state/strategy.
    */
   public void transitionFromEmptyToPartiallyEmptyWith(final long idx, final Object val) {
-    fromEmptyToParticalWithType(ArrayType.OBJECT, idx, val);
+    fromEmptyToParticalWithType(ArrayType.OBJECT).set(idx, val);
   }
 
   public void transitionFromEmptyToPartiallyEmptyWith(final long idx, final long val) {
-    fromEmptyToParticalWithType(ArrayType.LONG, idx, val);
+    fromEmptyToParticalWithType(ArrayType.LONG).setLong(idx, val);
   }
 
   public void transitionFromEmptyToPartiallyEmptyWith(final long idx, final double val) {
-    fromEmptyToParticalWithType(ArrayType.DOUBLE, idx, val);
+    fromEmptyToParticalWithType(ArrayType.DOUBLE).setDouble(idx, val);
   }
 
   public void transitionFromEmptyToPartiallyEmptyWith(final long idx, final boolean val) {
-    fromEmptyToParticalWithType(ArrayType.BOOLEAN, idx, val);
+    fromEmptyToParticalWithType(ArrayType.BOOLEAN).setBoolean(idx, val);
   }
 
   public void transitionToEmpty(final long length) {
     type = ArrayType.EMPTY;
     storage = (int) length;
+    shared = false;
   }
 
   public void transitionTo(final ArrayType newType, final Object newStorage) {
     type = newType;
     storage = newStorage;
+    shared = false;
   }
 
   public void transitionToObjectWithAll(final long length, final Object val) {
-    type = ArrayType.OBJECT;
     Object[] arr = new Object[(int) length];
     Arrays.fill(arr, val);
-    storage = arr;
+    transitionTo(ArrayType.OBJECT, arr);
   }
 
+  /**
+   * Fill the array with the integer, using the most compact storage for it.
+   */
   public void transitionToLongWithAll(final long length, final long val) {
-    type = ArrayType.LONG;
-    long[] arr = new long[(int) length];
-    Arrays.fill(arr, val);
-    storage = arr;
+    if (isByteValue(val)) {
+      byte[] arr = new byte[(int) length];
+      Arrays.fill(arr, (byte) val);
+      transitionTo(ArrayType.BYTE, arr);
+    } else if (isIntValue(val)) {
+      int[] arr = new int[(int) length];
+      Arrays.fill(arr, (int) val);
+      transitionTo(ArrayType.INT, arr);
+    } else {
+      long[] arr = new long[(int) length];
+      Arrays.fill(arr, val);
+      transitionTo(ArrayType.LONG, arr);
+    }
   }
 
   public void transitionToDoubleWithAll(final long length, final double val) {
-    type = ArrayType.DOUBLE;
     double[] arr = new double[(int) length];
     Arrays.fill(arr, val);
-    storage = arr;
+    transitionTo(ArrayType.DOUBLE, arr);
   }
 
   public void transitionToBooleanWithAll(final long length, final boolean val) {
-    type = ArrayType.BOOLEAN;
     boolean[] arr = new boolean[(int) length];
     if (val) {
       Arrays.fill(arr, true);
     }
-    storage = arr;
+    transitionTo(ArrayType.BOOLEAN, arr);
+  }
+
+  public static boolean isByteValue(final long value) {
+    return Byte.MIN_VALUE <= value && value <= Byte.MAX_VALUE;
+  }
+
+  public static boolean isIntValue(final long value) {
+    return Integer.MIN_VALUE <= value && value <= Integer.MAX_VALUE;
+  }
+
+  /** Widen BYTE or INT storage to LONG storage. */
+  public long[] transitionCompactToLong() {
+    long[] newStorage;
+    if (type == ArrayType.BYTE) {
+      byte[] bytes = (byte[]) ownStorage();
+      newStorage = new long[bytes.length];
+      for (int i = 0; i < bytes.length; i++) {
+        newStorage[i] = bytes[i];
+      }
+    } else {
+      assert type == ArrayType.INT;
+      int[] ints = (int[]) ownStorage();
+      newStorage = new long[ints.length];
+      for (int i = 0; i < ints.length; i++) {
+        newStorage[i] = ints[i];
+      }
+    }
+    transitionTo(ArrayType.LONG, newStorage);
+    return newStorage;
+  }
+
+  /** Generalize BYTE or INT storage to OBJECT storage. */
+  public Object[] transitionCompactToObject() {
+    Object[] newStorage;
+    if (type == ArrayType.BYTE) {
+      byte[] bytes = (byte[]) ownStorage();
+      newStorage = new Object[bytes.length];
+      for (int i = 0; i < bytes.length; i++) {
+        newStorage[i] = (long) bytes[i];
+      }
+    } else {
+      assert type == ArrayType.INT;
+      int[] ints = (int[]) ownStorage();
+      newStorage = new Object[ints.length];
+      for (int i = 0; i < ints.length; i++) {
+        newStorage[i] = (long) ints[i];
+      }
+    }
+    transitionTo(ArrayType.OBJECT, newStorage);
+    return newStorage;
   }
 
   public enum ArrayType {
-    EMPTY, PARTIAL_EMPTY, LONG, DOUBLE, BOOLEAN, OBJECT;
+    EMPTY, PARTIAL_EMPTY, BYTE, INT, LONG, DOUBLE, BOOLEAN, OBJECT;
 
     public static boolean isEmptyType(final SArray receiver) {
       return receiver.getType() == ArrayType.EMPTY;
@@ -204,106 +483,350 @@ public final class SArray extends SAbstractObject {
       return receiver.getType() == BOOLEAN;
     }
 
-  }
+    public static boolean isByteType(final SArray receiver) {
+      return receiver.getType() == BYTE;
+    }
 
-  private static long[] createLong(final Object[] arr) {
-    long[] storage = new long[arr.length];
-    for (int i = 0; i < arr.length; i++) {
-      storage[i] = (long) arr[i];
+    public static boolean isIntType(final SArray receiver) {
+      return receiver.getType() == INT;
     }
-    return storage;
+
   }
 
-  private static double[] createDouble(final Object[] arr) {
-    double[] storage = new double[arr.length];
-    for (int i = 0; i < arr.length; i++) {
-      storage[i] = (double) arr[i];
+  /** Transition to the most compact storage that can hold all the integers. */
+  private void transitionToIntegers(final long[] arr) {
+    boolean allBytes = true;
+    boolean allInts = true;
+    for (long v : arr) {
+      allBytes = allBytes && isByteValue(v);
+      allInts = allInts && isIntValue(v);
     }
-    return storage;
-  }
 
-  private static boolean[] createBoolean(final Object[] arr) {
-    boolean[] storage = new boolean[arr.length];
-    for (int i = 0; i < arr.length; i++) {
-      storage[i] = (boolean) arr[i];
+    if (allBytes) {
+      byte[] bytes = new byte[arr.length];
+      for (int i = 0; i < arr.length; i++) {
+        bytes[i] = (byte) arr[i];
+      }
+      transitionTo(ArrayType.BYTE, bytes);
+    } else if (allInts) {
+      int[] ints = new int[arr.length];
+      for (int i = 0; i < arr.length; i++) {
+        ints[i] = (int) arr[i];
+      }
+      transitionTo(ArrayType.INT, ints);
+    } else {
+      transitionTo(ArrayType.LONG, arr);
     }
-    return storage;
   }
 
   private final ValueProfile partialStorageType = ValueProfile.createClassProfile();
 
+  /**
+   * Once all elements are set, use the typed storage of the partially empty
+   * array directly, without copying it.
+   */
   public void ifFullTransitionPartiallyEmpty() {
     PartiallyEmptyArray arr = getPartiallyEmptyStorage(partialStorageType);
 
     if (arr.isFull()) {
-      if (arr.getType() == ArrayType.LONG) {
-        type = ArrayType.LONG;
-        storage = createLong(arr.getStorage());
-      } else if (arr.getType() == ArrayType.DOUBLE) {
-        type = ArrayType.DOUBLE;
-        storage = createDouble(arr.getStorage());
-      } else if (arr.getType() == ArrayType.BOOLEAN) {
-        type = ArrayType.BOOLEAN;
-        storage = createBoolean(arr.getStorage());
-      } else {
-        type = ArrayType.OBJECT;
-        storage = arr.getStorage();
+      switch (arr.getType()) {
+        case LONG:
+          transitionToIntegers(arr.getLongStorage());
+          break;
+        case DOUBLE:
+          transitionTo(ArrayType.DOUBLE, arr.getDoubleStorage());
+          break;
+        case BOOLEAN:
+          transitionTo(ArrayType.BOOLEAN, arr.getBooleanStorage());
+          break;
+        default:
+          transitionTo(ArrayType.OBJECT, arr.getObjectStorage());
+          break;
+      }
+    }
+  }
+
+  /**
+   * A view on the elements {@code start} to {@code start + length - 1} of the
+   * typed storage of another array. Slices are immutable. Writing to the
+   * array that has the slice replaces the slice with a copy of its elements.
+   */
+  public static final class Slice {
+    private final Object storage;
+    private final int    start;
+    private final int    length;
+
+    private Slice(final Object storage, final int start, final int length) {
+      assert start >= 0 && length >= 0;
+      this.storage = storage;
+      this.start = start;
+      this.length = length;
+    }
+
+    public int getLength() {
+      return length;
+    }
+
+    /** @return the element at the 0-based index, as stored in an array of the type */
+    public Object get(final ArrayType type, final int idx) {
+      int i = start + idx;
+      switch (type) {
+        case BYTE:
+          return (long) ((byte[]) storage)[i];
+        case INT:
+          return (long) ((int[]) storage)[i];
+        case LONG:
+          return ((long[]) storage)[i];
+        case DOUBLE:
+          return ((double[]) storage)[i];
+        case BOOLEAN:
+          return ((boolean[]) storage)[i];
+        default:
+          assert type == ArrayType.OBJECT;
+          return ((Object[]) storage)[i];
+      }
+    }
+
+    private Slice slice(final int from, final int sliceLength) {
+      return new Slice(storage, start + from, sliceLength);
+    }
+
+    private Object copyElements() {
+      int end = start + length;
+      if (storage instanceof Object[]) {
+        return Arrays.copyOfRange((Object[]) storage, start, end);
+      } else if (storage instanceof long[]) {
+        return Arrays.copyOfRange((long[]) storage, start, end);
+      } else if (storage instanceof double[]) {
+        return Arrays.copyOfRange((double[]) storage, start, end);
+      } else if (storage instanceof boolean[]) {
+        return Arrays.copyOfRange((boolean[]) storage, start, end);
+      } else if (storage instanceof byte[]) {
+        return Arrays.copyOfRange((byte[]) storage, start, end);
       }
+      return Arrays.copyOfRange((int[]) storage, start, end);
     }
   }
 
+  /**
+   * The storage of an array that has nil and non-nil elements.
+   *
+   * <p>
+   * As long as all non-nil elements are of the same primitive type, they are
+   * stored unboxed in a typed array, and a bitmap records which elements are
+   * set. Thus, initializing an array with integers or doubles does not box
+   * them. Storing a value of another type generalizes the storage to an
+   * {@code Object[]} with {@link Nil#nilObject} for the empty elements.
+   */
   public static final class PartiallyEmptyArray {
-    private final Object[] arr;
-    private int            emptyElements;
-    private ArrayType      type;
-
-    public PartiallyEmptyArray(final ArrayType type, final int length,
-        final long idx, final Object val) {
-      // can't specialize this here already,
-      // because keeping track for nils would be to expensive
-      arr = new Object[length];
-      Arrays.fill(arr, Nil.nilObject);
-      emptyElements = length - 1;
-      arr[(int) idx] = val;
+    private ArrayType type;
+    private Object    storage;
+    private long[]    setElements;
+    private int       emptyElements;
+
+    /**
+     * @param type is LONG, DOUBLE, or BOOLEAN for a typed storage, or
+     *          OBJECT
+     */
+    public PartiallyEmptyArray(final ArrayType type, final int length) {
       this.type = type;
+      this.emptyElements = length;
+
+      switch (type) {
+        case LONG:
+          storage = new long[length];
+          break;
+        case DOUBLE:
+          storage = new double[length];
+          break;
+        case BOOLEAN:
+          storage = new boolean[length];
+          break;
+        default:
+          assert type == ArrayType.OBJECT;
+          Object[] arr = new Object[length];
+          Arrays.fill(arr, Nil.nilObject);
+          storage = arr;
+          break;
+      }
+
+      if (type != ArrayType.OBJECT) {
+        setElements = new long[(length + Long.SIZE - 1) / Long.SIZE];
+      }
     }
 
     private PartiallyEmptyArray(final PartiallyEmptyArray old) {
-      arr = old.arr.clone();
-      emptyElements = old.emptyElements;
       type = old.type;
+      emptyElements = old.emptyElements;
+      setElements = old.setElements == null ? null : old.setElements.clone();
+
+      switch (type) {
+        case LONG:
+          storage = ((long[]) old.storage).clone();
+          break;
+        case DOUBLE:
+          storage = ((double[]) old.storage).clone();
+          break;
+        case BOOLEAN:
+          storage = ((boolean[]) old.storage).clone();
+          break;
+        default:
+          storage = ((Object[]) old.storage).clone();
+          break;
+      }
     }
 
     public ArrayType getType() {
       return type;
     }
 
-    public Object[] getStorage() {
-      return arr;
+    public int getLength() {
+      switch (type) {
+        case LONG:
+          return ((long[]) storage).length;
+        case DOUBLE:
+          return ((double[]) storage).length;
+        case BOOLEAN:
+          return ((boolean[]) storage).length;
+        default:
+          return ((Object[]) storage).length;
+      }
     }
 
-    public void setType(final ArrayType type) {
-      this.type = type;
+    public long[] getLongStorage() {
+      assert type == ArrayType.LONG;
+      return (long[]) storage;
     }
 
-    public int getLength() {
-      return arr.length;
+    public double[] getDoubleStorage() {
+      assert type == ArrayType.DOUBLE;
+      return (double[]) storage;
+    }
+
+    public boolean[] getBooleanStorage() {
+      assert type == ArrayType.BOOLEAN;
+      return (boolean[]) storage;
+    }
+
+    public Object[] getObjectStorage() {
+      assert type == ArrayType.OBJECT;
+      return (Object[]) storage;
+    }
+
+    private boolean isSet(final int idx) {
+      return (setElements[idx / Long.SIZE] & (1L << idx)) != 0;
+    }
+
+    /** Mark the element as set, and update the number of empty elements. */
+    private void markSet(final int idx) {
+      int word = idx / Long.SIZE;
+      long bit = 1L << idx;
+      if ((setElements[word] & bit) == 0) {
+        setElements[word] |= bit;
+        emptyElements--;
+      }
     }
 
     public Object get(final long idx) {
-      return arr[(int) idx];
+      int i = (int) idx;
+      if (type == ArrayType.OBJECT) {
+        return ((Object[]) storage)[i];
+      }
+
+      if (!isSet(i)) {
+        return Nil.nilObject;
+      }
+
+      switch (type) {
+        case LONG:
+          return ((long[]) storage)[i];
+        case DOUBLE:
+          return ((double[]) storage)[i];
+        default:
+          return ((boolean[]) storage)[i];
+      }
+    }
+
+    public void setLong(final long idx, final long val) {
+      if (type == ArrayType.LONG) {
+        ((long[]) storage)[(int) idx] = val;
+        markSet((int) idx);
+      } else {
+        set(idx, val);
+      }
+    }
+
+    public void setDouble(final long idx, final double val) {
+      if (type == ArrayType.DOUBLE) {
+        ((double[]) storage)[(int) idx] = val;
+        markSet((int) idx);
+      } else {
+        set(idx, val);
+      }
+    }
+
+    public void setBoolean(final long idx, final boolean val) {
+      if (type == ArrayType.BOOLEAN) {
+        ((boolean[]) storage)[(int) idx] = val;
+        markSet((int) idx);
+      } else {
+        set(idx, val);
+      }
+    }
+
+    public void setNil(final long idx) {
+      int i = (int) idx;
+      if (type == ArrayType.OBJECT) {
+        Object[] arr = (Object[]) storage;
+        if (arr[i] != Nil.nilObject) {
+          arr[i] = Nil.nilObject;
+          emptyElements++;
+        }
+      } else if (isSet(i)) {
+        setElements[i / Long.SIZE] &= ~(1L << i);
+        emptyElements++;
+      }
     }
 
     public void set(final long idx, final Object val) {
-      arr[(int) idx] = val;
+      if (val == Nil.nilObject) {
+        setNil(idx);
+      } else if (type == ArrayType.LONG && val instanceof Long) {
+        setLong(idx, (long) val);
+      } else if (type == ArrayType.DOUBLE && val instanceof Double) {
+        setDouble(idx, (double) val);
+      } else if (type == ArrayType.BOOLEAN && val instanceof Boolean) {
+        setBoolean(idx, (boolean) val);
+      } else {
+        Object[] arr = generalizeToObject();
+        if (arr[(int) idx] == Nil.nilObject) {
+          emptyElements--;
+        }
+        arr[(int) idx] = val;
+      }
     }
 
-    public void incEmptyElements() {
-      emptyElements++;
+    /** @return the elements boxed into an array, which must not be modified */
+    public Object[] toObjectArray() {
+      if (type == ArrayType.OBJECT) {
+        return (Object[]) storage;
+      }
+
+      int length = getLength();
+      Object[] arr = new Object[length];
+      for (int i = 0; i < length; i++) {
+        arr[i] = get(i);
+      }
+      return arr;
     }
 
-    public void decEmptyElements() {
-      emptyElements--;
+    private Object[] generalizeToObject() {
+      if (type != ArrayType.OBJECT) {
+        storage = toObjectArray();
+        setElements = null;
+        type = ArrayType.OBJECT;
+      }
+      return (Object[]) storage;
     }
 
     public boolean isFull() {
@@ -26,7 +26,7 @@ package trufflesom.vmobjects;
 
 import static trufflesom.interpreter.TruffleCompiler.transferToInterpreterAndInvalidate;
 
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
@@ -35,19 +35,21 @@ import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.profiles.ValueProfile;
 
 import trufflesom.interpreter.objectstorage.ObjectLayout;
+import trufflesom.vm.MethodLookupCache;
 import trufflesom.vm.constants.Nil;
 import trufflesom.vmobjects.SInvokable.SPrimitive;
 
 
-public final class SClass extends SObject {
+public final class SClass extends SObject.SObject16 {
 
   private static final ValueProfile storageType = ValueProfile.createClassProfile();
 
-  public SClass(final int numberOfFields) {
+  public SClass(final int numberOfFields, final MethodLookupCache lookupCache) {
     // Initialize this class by calling the super constructor with the given
     // value
     super(numberOfFields);
-    invokablesTable = new HashMap<SSymbol, SInvokable>();
+    this.lookupCache = lookupCache;
+    invokablesTable = new LookupTable(lookupCache.getEpoch());
     this.superclass = Nil.nilObject;
 
     layoutForInstances = new ObjectLayout(numberOfFields, this);
@@ -55,7 +57,8 @@ public final class SClass extends SObject {
 
   public SClass(final SClass clazz) {
     super(clazz);
-    invokablesTable = new HashMap<SSymbol, SInvokable>();
+    this.lookupCache = clazz.lookupCache;
+    invokablesTable = new LookupTable(lookupCache.getEpoch());
     this.superclass = Nil.nilObject;
   }
 
@@ -66,6 +69,7 @@ public final class SClass extends SObject {
   public void setSuperClass(final SClass value) {
     transferToInterpreterAndInvalidate("SClass.setSuperClass");
     superclass = value;
+    invalidateLookups();
   }
 
   public boolean hasSuperClass() {
@@ -103,10 +107,13 @@ public final class SClass extends SObject {
   public void setInstanceInvokables(final SArray value) {
     transferToInterpreterAndInvalidate("SClass.setInstanceInvokables");
     instanceInvokables = value;
+    invalidateLookups();
 
     // Make sure this class is the holder of all invokables in the array
     for (int i = 0; i < getNumberOfInstanceInvokables(); i++) {
-      ((SInvokable) instanceInvokables.getObjectStorage(storageType)[i]).setHolder(this);
+      SInvokable invokable = getInstanceInvokable(i);
+      invokable.setHolder(this);
+      invokable.getSignature().getImplementers().add(this, invokable);
     }
   }
 
@@ -124,19 +131,39 @@ public final class SClass extends SObject {
     // Set this class as the holder of the given invokable
     value.setHolder(this);
 
-    instanceInvokables.getObjectStorage(storageType)[index] = value;
+    instanceInvokables.getObjectStorageForWrite(storageType)[index] = value;
+    invalidateLookups();
+    value.getSignature().getImplementers().add(this, value);
+  }
 
-    if (invokablesTable.containsKey(value.getSignature())) {
-      invokablesTable.put(value.getSignature(), value);
+  /**
+   * Changes to a class that was never looked up cannot have been cached, for
+   * instance, while a class is being loaded. Otherwise, the lookups of all
+   * classes are invalidated, since the class might be a superclass of them.
+   */
+  private void invalidateLookups() {
+    if (lookedUp) {
+      lookupCache.invalidate();
     }
   }
 
   @TruffleBoundary
   public SInvokable lookupInvokable(final SSymbol selector) {
     SInvokable invokable;
+    lookedUp = true;
+
+    // Entries might be stale, if the methods of a superclass changed.
+    // A lookup racing with a change writes into a table of an old epoch,
+    // which is not used anymore.
+    LookupTable table = invokablesTable;
+    int epoch = lookupCache.getEpoch();
+    if (table.epoch != epoch) {
+      table = new LookupTable(epoch);
+      invokablesTable = table;
+    }
 
     // Lookup invokable and return if found
-    invokable = invokablesTable.get(selector);
+    invokable = table.get(selector);
     if (invokable != null) {
       return invokable;
     }
@@ -148,7 +175,7 @@ public final class SClass extends SObject {
 
       // Return the invokable if the signature matches
       if (invokable.getSignature() == selector) {
-        invokablesTable.put(selector, invokable);
+        table.put(selector, invokable);
         return invokable;
       }
     }
@@ -157,7 +184,7 @@ public final class SClass extends SObject {
     if (hasSuperClass()) {
       invokable = ((SClass) getSuperClass()).lookupInvokable(selector);
       if (invokable != null) {
-        invokablesTable.put(selector, invokable);
+        table.put(selector, invokable);
         return invokable;
       }
     }
@@ -166,6 +193,20 @@ public final class SClass extends SObject {
     return null;
   }
 
+  /**
+   * @return true, if this class is {@code other} or one of its subclasses
+   */
+  public boolean isSubclassOf(final SClass other) {
+    SObject current = this;
+    while (current != Nil.nilObject) {
+      if (current == other) {
+        return true;
+      }
+      current = ((SClass) current).getSuperClass();
+    }
+    return false;
+  }
+
   public int lookupFieldIndex(final SSymbol fieldName) {
     // Lookup field with given name in array of instance fields
     for (int i = getNumberOfInstanceFields() - 1; i >= 0; i--) {
@@ -196,6 +237,8 @@ public final class SClass extends SObject {
 
     // Append the given method to the array of instance methods
     instanceInvokables = instanceInvokables.copyAndExtendWith(value);
+    invalidateLookups();
+    value.getSignature().getImplementers().add(this, value);
     return true;
   }
 
@@ -227,8 +270,8 @@ public final class SClass extends SObject {
     return layoutForInstances;
   }
 
-  public ObjectLayout updateInstanceLayoutWithInitializedField(final long index,
-      final Class<?> type) {
+  public synchronized ObjectLayout updateInstanceLayoutWithInitializedField(
+      final long index, final Class<?> type) {
     ObjectLayout updated = layoutForInstances.withInitializedField(index, type);
 
     if (updated != layoutForInstances) {
@@ -238,7 +281,8 @@ public final class SClass extends SObject {
     return layoutForInstances;
   }
 
-  public ObjectLayout updateInstanceLayoutWithGeneralizedField(final long index) {
+  public synchronized ObjectLayout updateInstanceLayoutWithGeneralizedField(
+      final long index) {
     ObjectLayout updated = layoutForInstances.withGeneralizedField(index);
 
     if (updated != layoutForInstances) {
@@ -253,8 +297,21 @@ public final class SClass extends SObject {
     return "Class(" + getName().getString() + ")";
   }
 
-  // Mapping of symbols to invokables
-  private final HashMap<SSymbol, SInvokable> invokablesTable;
+  /** Mapping of symbols to invokables, valid in one epoch of the lookup cache. */
+  @SuppressWarnings("serial")
+  private static final class LookupTable extends ConcurrentHashMap<SSymbol, SInvokable> {
+    private final int epoch;
+
+    LookupTable(final int epoch) {
+      this.epoch = epoch;
+    }
+  }
+
+  /** The lookup cache of the universe the class belongs to. */
+  private final MethodLookupCache lookupCache;
+
+  private volatile LookupTable invokablesTable;
+  private volatile boolean     lookedUp;
 
   @CompilationFinal private SObject superclass;
   @CompilationFinal private SSymbol name;
@@ -0,0 +1,44 @@
+package trufflesom.vmobjects;
+
+import java.util.concurrent.locks.Condition;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import trufflesom.vm.Universe;
+
+
+/** A condition variable, belonging to a {@link SMutex}. */
+public final class SCondition extends SAbstractObject {
+  private final SClass    conditionClass;
+  private final Condition condition;
+
+  SCondition(final SClass conditionClass, final Condition condition) {
+    this.conditionClass = conditionClass;
+    this.condition = condition;
+  }
+
+  /** Wait for a signal. The mutex of the condition needs to be held. */
+  @TruffleBoundary
+  public void await() {
+    try {
+      condition.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @TruffleBoundary
+  public void signal() {
+    condition.signal();
+  }
+
+  @TruffleBoundary
+  public void signalAll() {
+    condition.signalAll();
+  }
+
+  @Override
+  public SClass getSOMClass(final Universe universe) {
+    return conditionClass;
+  }
+}
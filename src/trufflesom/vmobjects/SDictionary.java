@@ -0,0 +1,438 @@
+package trufflesom.vmobjects;
+
+import java.math.BigInteger;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import trufflesom.primitives.arithmetic.Int128;
+import trufflesom.vm.Universe;
+import trufflesom.vmobjects.SArray.ArrayType;
+
+
+/**
+ * A hash map with open addressing and linear probing.
+ *
+ * <p>
+ * The keys use a storage strategy similar to {@link SArray}. As long as all
+ * keys are integers, they are stored unboxed in a {@code long[]}. When the
+ * first other key is added, the keys are boxed into an {@code Object[]}.
+ * Since a boxed integer hashes to the same slot as the unboxed one, this
+ * transition does not need to rehash.
+ *
+ * <p>
+ * Keys are compared the same way as {@code =} compares them. Numbers are
+ * compared by value, so that {@code 1} and {@code 1.0} are the same key.
+ * Strings and symbols are compared by their characters, ropes are flattened
+ * when they are used as key. All other keys are compared by identity. A free
+ * slot is indicated by a {@code null} value.
+ */
+public final class SDictionary extends SAbstractObject {
+  private static final int DEFAULT_CAPACITY = 8;
+
+  private final SClass dictionaryClass;
+
+  private ArrayType keyType;
+  private Object    keys;
+  private Object[]  values;
+  private int       size;
+
+  public SDictionary(final SClass dictionaryClass) {
+    this.dictionaryClass = dictionaryClass;
+    this.keyType = ArrayType.EMPTY;
+    this.values = new Object[DEFAULT_CAPACITY];
+    this.size = 0;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public boolean isObjectKeyType() {
+    return keyType == ArrayType.OBJECT;
+  }
+
+  private static int hash(final long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  /**
+   * Flatten ropes, and represent large integers as {@code long} or
+   * {@link Int128} if they fit, so that equal keys have the same type.
+   */
+  private static Object normalize(final Object key) {
+    if (key instanceof SRope) {
+      return ((SRope) key).flatten();
+    } else if (key instanceof BigInteger) {
+      return Int128.valueOf((BigInteger) key);
+    }
+    return key;
+  }
+
+  /** @return true, if the double is equal to a {@code long} */
+  private static boolean isIntegral(final double value) {
+    return value == (long) value && value < 0x1p63;
+  }
+
+  /** @return the characters of a string or symbol, or null for other keys */
+  private static String stringOf(final Object key) {
+    if (key instanceof String) {
+      return (String) key;
+    } else if (key instanceof SSymbol) {
+      return ((SSymbol) key).getString();
+    }
+    return null;
+  }
+
+  private static int hash(final Object key) {
+    if (key instanceof Long) {
+      return hash((long) key);
+    } else if (key instanceof Double) {
+      double d = (double) key;
+      return isIntegral(d) ? hash((long) d) : Double.hashCode(d);
+    } else if (key instanceof String || key instanceof SSymbol) {
+      return stringOf(key).hashCode();
+    } else if (key instanceof Int128 || key instanceof BigInteger) {
+      return key.hashCode();
+    }
+    return System.identityHashCode(key);
+  }
+
+  private static boolean keyEquals(final Object a, final Object b) {
+    if (a == b) {
+      return true;
+    }
+
+    if (a instanceof Long || a instanceof Double) {
+      if (b instanceof Long || b instanceof Double) {
+        return numberEquals(a, b);
+      }
+      return false;
+    } else if (a instanceof String || a instanceof SSymbol) {
+      // symbols are unique, only strings need to be compared by characters
+      String other = stringOf(b);
+      return other != null && !(a instanceof SSymbol && b instanceof SSymbol)
+          && stringOf(a).equals(other);
+    } else if (a instanceof Int128 || a instanceof BigInteger) {
+      return a.equals(b);
+    }
+    return false;
+  }
+
+  private static boolean numberEquals(final Object a, final Object b) {
+    if (a instanceof Long && b instanceof Long) {
+      return (long) a == (long) b;
+    } else if (a instanceof Double && b instanceof Double) {
+      return (double) a == (double) b;
+    }
+
+    long l = a instanceof Long ? (long) a : (long) b;
+    double d = a instanceof Double ? (double) a : (double) b;
+    return isIntegral(d) && (long) d == l;
+  }
+
+  private int mask() {
+    return values.length - 1;
+  }
+
+  /** @return the slot of the key, or -1 if it is not in the dictionary */
+  private int findSlot(final long key) {
+    if (keyType != ArrayType.LONG) {
+      return keyType == ArrayType.EMPTY ? -1 : findSlot((Object) key);
+    }
+
+    long[] k = (long[]) keys;
+    int mask = mask();
+    int i = hash(key) & mask;
+    while (values[i] != null) {
+      if (k[i] == key) {
+        return i;
+      }
+      i = (i + 1) & mask;
+    }
+    return -1;
+  }
+
+  /** @return the slot of the normalized key, or -1 if it is not in the dictionary */
+  @TruffleBoundary
+  private int findSlot(final Object key) {
+    if (keyType == ArrayType.EMPTY) {
+      return -1;
+    } else if (keyType == ArrayType.LONG) {
+      if (key instanceof Long) {
+        return findSlot((long) key);
+      } else if (key instanceof Double && isIntegral((double) key)) {
+        return findSlot((long) (double) key);
+      }
+      return -1;
+    }
+
+    Object[] k = (Object[]) keys;
+    int mask = mask();
+    int i = hash(key) & mask;
+    while (values[i] != null) {
+      if (keyEquals(key, k[i])) {
+        return i;
+      }
+      i = (i + 1) & mask;
+    }
+    return -1;
+  }
+
+  /** @return the value for the key, or null if there is none */
+  public Object get(final long key) {
+    int slot = findSlot(key);
+    return slot == -1 ? null : values[slot];
+  }
+
+  /** @return the value for the key, or null if there is none */
+  public Object get(final Object key) {
+    int slot = findSlot(normalize(key));
+    return slot == -1 ? null : values[slot];
+  }
+
+  public boolean containsKey(final long key) {
+    return findSlot(key) != -1;
+  }
+
+  public boolean containsKey(final Object key) {
+    return findSlot(normalize(key)) != -1;
+  }
+
+  public void put(final long key, final Object value) {
+    assert value != null;
+    if (keyType == ArrayType.EMPTY) {
+      keys = new long[values.length];
+      keyType = ArrayType.LONG;
+    } else if (keyType != ArrayType.LONG) {
+      putNormalized(key, value);
+      return;
+    }
+
+    long[] k = (long[]) keys;
+    int mask = mask();
+    int i = hash(key) & mask;
+    while (values[i] != null) {
+      if (k[i] == key) {
+        values[i] = value;
+        return;
+      }
+      i = (i + 1) & mask;
+    }
+
+    k[i] = key;
+    values[i] = value;
+    size++;
+    growIfNecessary();
+  }
+
+  @TruffleBoundary
+  public void put(final Object key, final Object value) {
+    assert value != null;
+    Object normalized = normalize(key);
+
+    if (keyType != ArrayType.OBJECT) {
+      if (normalized instanceof Long) {
+        put((long) normalized, value);
+        return;
+      }
+
+      // a double equal to an existing integer key replaces only the value
+      int slot = findSlot(normalized);
+      if (slot != -1) {
+        values[slot] = value;
+        return;
+      }
+      transitionToObjectKeys();
+    }
+    putNormalized(normalized, value);
+  }
+
+  private void putNormalized(final Object key, final Object value) {
+    assert keyType == ArrayType.OBJECT;
+    Object[] k = (Object[]) keys;
+    int mask = mask();
+    int i = hash(key) & mask;
+    while (values[i] != null) {
+      if (keyEquals(key, k[i])) {
+        values[i] = value;
+        return;
+      }
+      i = (i + 1) & mask;
+    }
+
+    k[i] = key;
+    values[i] = value;
+    size++;
+    growIfNecessary();
+  }
+
+  /** @return the removed value, or null if the key is not in the dictionary */
+  public Object remove(final long key) {
+    return removeSlot(findSlot(key));
+  }
+
+  /** @return the removed value, or null if the key is not in the dictionary */
+  public Object remove(final Object key) {
+    return removeSlot(findSlot(normalize(key)));
+  }
+
+  /**
+   * Remove the entry from the slot, and move later entries of the same probe
+   * sequence back, so that lookups do not need tombstones.
+   */
+  @TruffleBoundary
+  private Object removeSlot(final int slot) {
+    if (slot == -1) {
+      return null;
+    }
+
+    Object removed = values[slot];
+    int mask = mask();
+    int free = slot;
+    int i = slot;
+
+    while (true) {
+      i = (i + 1) & mask;
+      if (values[i] == null) {
+        break;
+      }
+
+      int home = homeSlot(i) & mask;
+      boolean staysInPlace;
+      if (free <= i) {
+        staysInPlace = free < home && home <= i;
+      } else {
+        staysInPlace = free < home || home <= i;
+      }
+
+      if (!staysInPlace) {
+        moveEntry(i, free);
+        free = i;
+      }
+    }
+
+    values[free] = null;
+    if (keyType == ArrayType.OBJECT) {
+      ((Object[]) keys)[free] = null;
+    }
+    size--;
+    return removed;
+  }
+
+  private int homeSlot(final int slot) {
+    if (keyType == ArrayType.LONG) {
+      return hash(((long[]) keys)[slot]);
+    }
+    return hash(((Object[]) keys)[slot]);
+  }
+
+  private void moveEntry(final int from, final int to) {
+    if (keyType == ArrayType.LONG) {
+      long[] k = (long[]) keys;
+      k[to] = k[from];
+    } else {
+      Object[] k = (Object[]) keys;
+      k[to] = k[from];
+    }
+    values[to] = values[from];
+  }
+
+  private void growIfNecessary() {
+    // keep the load factor below 0.75
+    if (size * 4 >= values.length * 3) {
+      resize(values.length * 2);
+    }
+  }
+
+  @TruffleBoundary
+  private void resize(final int capacity) {
+    ArrayType oldType = keyType;
+    Object oldKeys = keys;
+    Object[] oldValues = values;
+
+    values = new Object[capacity];
+    size = 0;
+
+    if (oldType == ArrayType.LONG) {
+      long[] k = (long[]) oldKeys;
+      keys = new long[capacity];
+      for (int i = 0; i < oldValues.length; i++) {
+        if (oldValues[i] != null) {
+          put(k[i], oldValues[i]);
+        }
+      }
+    } else {
+      Object[] k = (Object[]) oldKeys;
+      keys = new Object[capacity];
+      for (int i = 0; i < oldValues.length; i++) {
+        if (oldValues[i] != null) {
+          putNormalized(k[i], oldValues[i]);
+        }
+      }
+    }
+  }
+
+  private void transitionToObjectKeys() {
+    Object[] newKeys = new Object[values.length];
+    if (keyType == ArrayType.LONG) {
+      long[] k = (long[]) keys;
+      for (int i = 0; i < values.length; i++) {
+        if (values[i] != null) {
+          newKeys[i] = k[i];
+        }
+      }
+    }
+    keys = newKeys;
+    keyType = ArrayType.OBJECT;
+  }
+
+  /** @return a new array with the keys, in no particular order */
+  @TruffleBoundary
+  public SArray getKeys() {
+    if (keyType == ArrayType.LONG) {
+      long[] k = (long[]) keys;
+      long[] result = new long[size];
+      int j = 0;
+      for (int i = 0; i < values.length; i++) {
+        if (values[i] != null) {
+          result[j] = k[i];
+          j++;
+        }
+      }
+      return SArray.create(result);
+    }
+
+    Object[] result = new Object[size];
+    if (keyType == ArrayType.OBJECT) {
+      Object[] k = (Object[]) keys;
+      int j = 0;
+      for (int i = 0; i < values.length; i++) {
+        if (values[i] != null) {
+          result[j] = k[i];
+          j++;
+        }
+      }
+    }
+    return SArray.create(result);
+  }
+
+  /** @return a new array with the values, in the same order as the keys */
+  @TruffleBoundary
+  public SArray getValues() {
+    Object[] result = new Object[size];
+    int j = 0;
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        result[j] = values[i];
+        j++;
+      }
+    }
+    return SArray.create(result);
+  }
+
+  @Override
+  public SClass getSOMClass(final Universe universe) {
+    return dictionaryClass;
+  }
+}
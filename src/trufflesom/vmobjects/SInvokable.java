@@ -41,7 +41,6 @@ public abstract class SInvokable extends SAbstractObject {
     this.signature = signature;
 
     this.invokable = invokable;
-    this.callTarget = invokable.createCallTarget();
   }
 
   public static final class SMethod extends SInvokable {
@@ -82,7 +81,25 @@ public abstract class SInvokable extends SAbstractObject {
     }
   }
 
+  /**
+   * The call target is only created on first use. Most methods of the class
+   * library are never executed, so we avoid paying for their call targets.
+   * Since several threads may call a method for the first time, the call
+   * target is created under the lock of the invokable.
+   */
   public final RootCallTarget getCallTarget() {
+    RootCallTarget target = callTarget;
+    if (target == null) {
+      transferToInterpreterAndInvalidate("SInvokable.getCallTarget");
+      target = createCallTarget();
+    }
+    return target;
+  }
+
+  private synchronized RootCallTarget createCallTarget() {
+    if (callTarget == null) {
+      callTarget = invokable.createCallTarget();
+    }
     return callTarget;
   }
 
@@ -108,12 +125,12 @@ public abstract class SInvokable extends SAbstractObject {
   }
 
   public final Object invoke(final Object[] arguments) {
-    return callTarget.call(arguments);
+    return getCallTarget().call(arguments);
   }
 
   public final Object invoke(final IndirectCallNode node,
       final Object[] arguments) {
-    return node.call(callTarget, arguments);
+    return node.call(getCallTarget(), arguments);
   }
 
   @Override
@@ -128,8 +145,8 @@ public abstract class SInvokable extends SAbstractObject {
   }
 
   // Private variable holding Truffle runtime information
-  private final Invokable          invokable;
-  private final RootCallTarget     callTarget;
-  private final SSymbol            signature;
-  @CompilationFinal private SClass holder;
+  private final Invokable                           invokable;
+  @CompilationFinal private volatile RootCallTarget callTarget;
+  private final SSymbol                             signature;
+  @CompilationFinal private SClass                  holder;
 }
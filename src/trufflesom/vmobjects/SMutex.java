@@ -0,0 +1,44 @@
+package trufflesom.vmobjects;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import trufflesom.vm.Universe;
+
+
+/** A reentrant mutual exclusion lock for SOM threads. */
+public final class SMutex extends SAbstractObject {
+  private final SClass        mutexClass;
+  private final ReentrantLock lock;
+
+  public SMutex(final SClass mutexClass) {
+    this.mutexClass = mutexClass;
+    this.lock = new ReentrantLock();
+  }
+
+  @TruffleBoundary
+  public void lock() {
+    lock.lock();
+  }
+
+  @TruffleBoundary
+  public void unlock() {
+    lock.unlock();
+  }
+
+  @TruffleBoundary
+  public boolean isLocked() {
+    return lock.isLocked();
+  }
+
+  @TruffleBoundary
+  public SCondition newCondition(final SClass conditionClass) {
+    return new SCondition(conditionClass, lock.newCondition());
+  }
+
+  @Override
+  public SClass getSOMClass(final Universe universe) {
+    return mutexClass;
+  }
+}
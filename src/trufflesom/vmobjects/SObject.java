@@ -32,6 +32,7 @@ import java.util.Arrays;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.nodes.ExplodeLoop;
 
 import trufflesom.interpreter.objectstorage.ObjectLayout;
@@ -45,29 +46,28 @@ public class SObject extends SAbstractObject {
 
   @CompilationFinal protected SClass clazz;
 
-  public static final int NUM_PRIMITIVE_FIELDS = 5;
-  public static final int NUM_OBJECT_FIELDS    = 5;
+  /**
+   * The maximal number of primitive and object fields stored directly in an
+   * object. Further fields go into the extension arrays.
+   */
+  public static final int MAX_INLINE_FIELDS = 16;
 
-  @SuppressWarnings("unused") private long primField1;
-  @SuppressWarnings("unused") private long primField2;
-  @SuppressWarnings("unused") private long primField3;
-  @SuppressWarnings("unused") private long primField4;
-  @SuppressWarnings("unused") private long primField5;
-
-  @SuppressWarnings("unused") private Object field1;
-  @SuppressWarnings("unused") private Object field2;
-  @SuppressWarnings("unused") private Object field3;
-  @SuppressWarnings("unused") private Object field4;
-  @SuppressWarnings("unused") private Object field5;
+  /**
+   * Only the first fields can hold unboxed primitive values, because the
+   * {@link #primitiveUsedMap} has one bit per field.
+   */
+  public static final int MAX_PRIMITIVE_FIELDS = 32;
 
   @CompilationFinal(dimensions = 0) private long[]   extensionPrimFields;
   @CompilationFinal(dimensions = 0) private Object[] extensionObjFields;
 
   // we manage the layout entirely in the class, but need to keep a copy here
-  // to know in case the layout changed that we can update the instances lazily
-  @CompilationFinal private ObjectLayout objectLayout;
+  // to know in case the layout changed that we can update the instances lazily.
+  // It is only changed while holding the lock of the object, and is null while
+  // the fields are transferred to a new layout.
+  private volatile ObjectLayout objectLayout;
 
-  private int primitiveUsedMap;
+  private volatile int primitiveUsedMap;
 
   private final int numberOfFields;
 
@@ -83,15 +83,13 @@ public class SObject extends SAbstractObject {
   }
 
   private void setLayoutInitially(final ObjectLayout layout) {
-    field1 = field2 = field3 = field4 = field5 = Nil.nilObject;
-
     objectLayout = layout;
     // Can't check this cheaply
     // assert objectLayout.getNumberOfFields() == numberOfFields
     // || !Universe.current().isObjectSystemInitialized();
 
-    extensionPrimFields = getExtendedPrimStorage();
-    extensionObjFields = getExtendedObjectStorage();
+    extensionPrimFields = getExtendedPrimStorage(layout, 0);
+    extensionObjFields = getExtendedObjectStorage(layout, 0);
   }
 
   public final int getNumberOfFields() {
@@ -101,9 +99,41 @@ public class SObject extends SAbstractObject {
   public final ObjectLayout getObjectLayout() {
     // TODO: should I really remove it, or should I update the layout?
     // assert clazz.getLayoutForInstances() == objectLayout;
+    ObjectLayout layout = objectLayout;
+    if (layout == null) {
+      return getObjectLayoutAfterTransfer();
+    }
+    return layout;
+  }
+
+  @TruffleBoundary
+  private synchronized ObjectLayout getObjectLayoutAfterTransfer() {
     return objectLayout;
   }
 
+  /**
+   * Field accesses on the fast path are not synchronized, and can race with
+   * another thread transferring the fields to a new layout. A value read with
+   * a storage location of the expected layout is only valid if the object
+   * still has this layout afterwards.
+   */
+  public final boolean hasLayoutAfterRead(final ObjectLayout layout) {
+    StorageLocation.loadFence();
+    return objectLayout == layout;
+  }
+
+  /**
+   * A value written with a storage location of the expected layout is only
+   * seen by a racing transfer to a new layout if the object still has the
+   * expected layout afterwards. Otherwise, the write needs to be redone with
+   * {@link #setField(long, Object)}. Since field i always uses slot i, see
+   * {@link ObjectLayout}, the racing write cannot corrupt another field.
+   */
+  public final boolean hasLayoutAfterWrite(final ObjectLayout layout) {
+    StorageLocation.fullFence();
+    return objectLayout == layout;
+  }
+
   public final long[] getExtendedPrimFields() {
     return extensionPrimFields;
   }
@@ -121,45 +151,51 @@ public class SObject extends SAbstractObject {
     setLayoutInitially(value.getLayoutForInstances());
   }
 
-  private long[] getExtendedPrimStorage() {
-    return new long[objectLayout.getNumberOfUsedExtendedPrimStorageLocations()];
+  // the extension arrays of an object never shrink, so that a racing access
+  // with an outdated layout does not index out of bounds
+  private static long[] getExtendedPrimStorage(final ObjectLayout layout,
+      final int minLength) {
+    return new long[Math.max(
+        layout.getNumberOfUsedExtendedPrimStorageLocations(), minLength)];
   }
 
-  private Object[] getExtendedObjectStorage() {
-    Object[] storage =
-        new Object[objectLayout.getNumberOfUsedExtendedObjectStorageLocations()];
+  private static Object[] getExtendedObjectStorage(final ObjectLayout layout,
+      final int minLength) {
+    Object[] storage = new Object[Math.max(
+        layout.getNumberOfUsedExtendedObjectStorageLocations(), minLength)];
     Arrays.fill(storage, Nil.nilObject);
     return storage;
   }
 
   @ExplodeLoop
-  private Object[] getAllFields() {
+  private Object[] getAllFields(final ObjectLayout layout) {
     Object[] fieldValues = new Object[numberOfFields];
     for (int i = 0; i < numberOfFields; i++) {
-      if (isFieldSet(i)) {
-        fieldValues[i] = getField(i);
+      StorageLocation location = layout.getStorageLocation(i);
+      if (location.isSet(this)) {
+        fieldValues[i] = location.read(this);
       }
     }
     return fieldValues;
   }
 
   @ExplodeLoop
-  private void setAllFields(final Object[] fieldValues) {
-    field1 = field2 = field3 = field4 = field5 = null;
-    primField1 = primField2 = primField3 = primField4 = primField5 = Long.MIN_VALUE;
-
+  private void setAllFields(final ObjectLayout layout, final Object[] fieldValues) {
+    // the number of object storage locations never decreases, so, all inline
+    // object fields that were in use before are overwritten here
     assert fieldValues.length == numberOfFields;
 
     for (int i = 0; i < numberOfFields; i++) {
+      StorageLocation location = layout.getStorageLocation(i);
       if (fieldValues[i] != null) {
-        setField(i, fieldValues[i]);
-      } else if (getLocation(i) instanceof AbstractObjectStorageLocation) {
-        setField(i, Nil.nilObject);
+        location.write(this, fieldValues[i]);
+      } else if (location instanceof AbstractObjectStorageLocation) {
+        location.write(this, Nil.nilObject);
       }
     }
   }
 
-  public final boolean updateLayoutToMatchClass() {
+  public final synchronized boolean updateLayoutToMatchClass() {
     ObjectLayout layoutAtClass = clazz.getLayoutForInstances();
     assert layoutAtClass.getNumberOfFields() == numberOfFields;
 
@@ -173,18 +209,31 @@ public class SObject extends SAbstractObject {
     }
   }
 
+  /**
+   * The new layout is only published after the fields were copied. Until
+   * then, the layout is null, so that racing fast-path accesses notice the
+   * transfer, see {@link #hasLayoutAfterRead(ObjectLayout)}.
+   */
   private void setLayoutAndTransferFields(final ObjectLayout layout) {
     CompilerDirectives.transferToInterpreterAndInvalidate();
 
-    Object[] fieldValues = getAllFields();
+    ObjectLayout oldLayout = objectLayout;
+    // the new layout is at least as general for all fields,
+    // so writing the old values does not start another transfer
+    assert oldLayout != null : "transfers to a new layout do not nest";
 
-    objectLayout = layout;
+    objectLayout = null;
+    StorageLocation.fullFence();
+
+    Object[] fieldValues = getAllFields(oldLayout);
 
     primitiveUsedMap = 0;
-    extensionPrimFields = getExtendedPrimStorage();
-    extensionObjFields = getExtendedObjectStorage();
+    extensionPrimFields = getExtendedPrimStorage(layout, extensionPrimFields.length);
+    extensionObjFields = getExtendedObjectStorage(layout, extensionObjFields.length);
 
-    setAllFields(fieldValues);
+    setAllFields(layout, fieldValues);
+
+    objectLayout = layout;
   }
 
   protected final void updateLayoutWithInitializedField(final long index,
@@ -211,45 +260,302 @@ public class SObject extends SAbstractObject {
     return clazz;
   }
 
+  public final SClass getSOMClass() {
+    return clazz;
+  }
+
   public final long getFieldIndex(final SSymbol fieldName) {
     return clazz.lookupFieldIndex(fieldName);
   }
 
+  /**
+   * Instances are allocated with the smallest of the {@link SObject}
+   * subclasses that has at least one primitive and one object field for each
+   * field of the class. Since a field can hold either kind of value over
+   * time, this avoids the extension arrays for objects of up to
+   * {@link #MAX_INLINE_FIELDS} fields, without wasting slots for small ones.
+   */
   public static final SObject create(final SClass instanceClass) {
-    return new SObject(instanceClass);
+    switch (instanceClass.getLayoutForInstances().getInlineCapacity()) {
+      case 0:
+        return new SObject(instanceClass);
+      case 1:
+        return new SObject1(instanceClass);
+      case 2:
+        return new SObject2(instanceClass);
+      case 3:
+        return new SObject3(instanceClass);
+      case 4:
+        return new SObject4(instanceClass);
+      case 5:
+        return new SObject5(instanceClass);
+      case 6:
+        return new SObject6(instanceClass);
+      case 8:
+        return new SObject8(instanceClass);
+      case 10:
+        return new SObject10(instanceClass);
+      case 12:
+        return new SObject12(instanceClass);
+      default:
+        return new SObject16(instanceClass);
+    }
   }
 
   public static SObject create(final int numFields) {
-    return new SObject(numFields);
+    switch (getInlineCapacity(numFields)) {
+      case 0:
+        return new SObject(numFields);
+      case 1:
+        return new SObject1(numFields);
+      case 2:
+        return new SObject2(numFields);
+      case 3:
+        return new SObject3(numFields);
+      case 4:
+        return new SObject4(numFields);
+      case 5:
+        return new SObject5(numFields);
+      case 6:
+        return new SObject6(numFields);
+      case 8:
+        return new SObject8(numFields);
+      case 10:
+        return new SObject10(numFields);
+      case 12:
+        return new SObject12(numFields);
+      default:
+        return new SObject16(numFields);
+    }
   }
 
-  private static final long FIRST_OBJECT_FIELD_OFFSET = getFirstObjectFieldOffset();
-  private static final long FIRST_PRIM_FIELD_OFFSET   = getFirstPrimFieldOffset();
-  private static final long OBJECT_FIELD_LENGTH       = getObjectFieldLength();
-  private static final long PRIM_FIELD_LENGTH         = getPrimFieldLength();
+  /**
+   * @return the number of primitive and of object fields stored directly in
+   *         objects with the given number of fields
+   */
+  public static int getInlineCapacity(final int numberOfFields) {
+    if (numberOfFields <= 6) {
+      return numberOfFields;
+    } else if (numberOfFields <= 8) {
+      return 8;
+    } else if (numberOfFields <= 10) {
+      return 10;
+    } else if (numberOfFields <= 12) {
+      return 12;
+    }
+    return MAX_INLINE_FIELDS;
+  }
+
+  static class SObject1 extends SObject {
+    @SuppressWarnings("unused") private long   primField1;
+    @SuppressWarnings("unused") private Object field1;
+
+    SObject1(final SClass instanceClass) {
+      super(instanceClass);
+      field1 = Nil.nilObject;
+    }
+
+    SObject1(final int numFields) {
+      super(numFields);
+      field1 = Nil.nilObject;
+    }
+  }
+
+  static class SObject2 extends SObject1 {
+    @SuppressWarnings("unused") private long   primField2;
+    @SuppressWarnings("unused") private Object field2;
+
+    SObject2(final SClass instanceClass) {
+      super(instanceClass);
+      field2 = Nil.nilObject;
+    }
+
+    SObject2(final int numFields) {
+      super(numFields);
+      field2 = Nil.nilObject;
+    }
+  }
+
+  static class SObject3 extends SObject2 {
+    @SuppressWarnings("unused") private long   primField3;
+    @SuppressWarnings("unused") private Object field3;
+
+    SObject3(final SClass instanceClass) {
+      super(instanceClass);
+      field3 = Nil.nilObject;
+    }
+
+    SObject3(final int numFields) {
+      super(numFields);
+      field3 = Nil.nilObject;
+    }
+  }
+
+  static class SObject4 extends SObject3 {
+    @SuppressWarnings("unused") private long   primField4;
+    @SuppressWarnings("unused") private Object field4;
+
+    SObject4(final SClass instanceClass) {
+      super(instanceClass);
+      field4 = Nil.nilObject;
+    }
+
+    SObject4(final int numFields) {
+      super(numFields);
+      field4 = Nil.nilObject;
+    }
+  }
+
+  static class SObject5 extends SObject4 {
+    @SuppressWarnings("unused") private long   primField5;
+    @SuppressWarnings("unused") private Object field5;
+
+    SObject5(final SClass instanceClass) {
+      super(instanceClass);
+      field5 = Nil.nilObject;
+    }
+
+    SObject5(final int numFields) {
+      super(numFields);
+      field5 = Nil.nilObject;
+    }
+  }
+
+  static class SObject6 extends SObject5 {
+    @SuppressWarnings("unused") private long   primField6;
+    @SuppressWarnings("unused") private Object field6;
+
+    SObject6(final SClass instanceClass) {
+      super(instanceClass);
+      field6 = Nil.nilObject;
+    }
+
+    SObject6(final int numFields) {
+      super(numFields);
+      field6 = Nil.nilObject;
+    }
+  }
+
+  static class SObject8 extends SObject6 {
+    @SuppressWarnings("unused") private long   primField7;
+    @SuppressWarnings("unused") private long   primField8;
+    @SuppressWarnings("unused") private Object field7;
+    @SuppressWarnings("unused") private Object field8;
+
+    SObject8(final SClass instanceClass) {
+      super(instanceClass);
+      field7 = field8 = Nil.nilObject;
+    }
+
+    SObject8(final int numFields) {
+      super(numFields);
+      field7 = field8 = Nil.nilObject;
+    }
+  }
+
+  static class SObject10 extends SObject8 {
+    @SuppressWarnings("unused") private long   primField9;
+    @SuppressWarnings("unused") private long   primField10;
+    @SuppressWarnings("unused") private Object field9;
+    @SuppressWarnings("unused") private Object field10;
+
+    SObject10(final SClass instanceClass) {
+      super(instanceClass);
+      field9 = field10 = Nil.nilObject;
+    }
+
+    SObject10(final int numFields) {
+      super(numFields);
+      field9 = field10 = Nil.nilObject;
+    }
+  }
+
+  static class SObject12 extends SObject10 {
+    @SuppressWarnings("unused") private long   primField11;
+    @SuppressWarnings("unused") private long   primField12;
+    @SuppressWarnings("unused") private Object field11;
+    @SuppressWarnings("unused") private Object field12;
+
+    SObject12(final SClass instanceClass) {
+      super(instanceClass);
+      field11 = field12 = Nil.nilObject;
+    }
+
+    SObject12(final int numFields) {
+      super(numFields);
+      field11 = field12 = Nil.nilObject;
+    }
+  }
+
+  /** Also the superclass of {@link SClass}, so that classes can have any layout. */
+  static class SObject16 extends SObject12 {
+    @SuppressWarnings("unused") private long   primField13;
+    @SuppressWarnings("unused") private long   primField14;
+    @SuppressWarnings("unused") private long   primField15;
+    @SuppressWarnings("unused") private long   primField16;
+    @SuppressWarnings("unused") private Object field13;
+    @SuppressWarnings("unused") private Object field14;
+    @SuppressWarnings("unused") private Object field15;
+    @SuppressWarnings("unused") private Object field16;
+
+    SObject16(final SClass instanceClass) {
+      super(instanceClass);
+      field13 = field14 = field15 = field16 = Nil.nilObject;
+    }
+
+    SObject16(final int numFields) {
+      super(numFields);
+      field13 = field14 = field15 = field16 = Nil.nilObject;
+    }
+  }
+
+  // a field declared in a superclass has the same offset in all subclasses
+  @CompilationFinal(dimensions = 1)
+  private static final long[] OBJECT_FIELD_OFFSETS = getFieldOffsets("field");
+
+  @CompilationFinal(dimensions = 1)
+  private static final long[] PRIM_FIELD_OFFSETS = getFieldOffsets("primField");
 
   public static long getObjectFieldOffset(final int fieldIndex) {
-    assert 0 <= fieldIndex && fieldIndex < NUM_OBJECT_FIELDS;
-    return FIRST_OBJECT_FIELD_OFFSET + fieldIndex * OBJECT_FIELD_LENGTH;
+    assert 0 <= fieldIndex && fieldIndex < MAX_INLINE_FIELDS;
+    return OBJECT_FIELD_OFFSETS[fieldIndex];
   }
 
   public static long getPrimitiveFieldOffset(final int fieldIndex) {
-    assert 0 <= fieldIndex && fieldIndex < NUM_PRIMITIVE_FIELDS;
-    return FIRST_PRIM_FIELD_OFFSET + fieldIndex * PRIM_FIELD_LENGTH;
+    assert 0 <= fieldIndex && fieldIndex < MAX_INLINE_FIELDS;
+    return PRIM_FIELD_OFFSETS[fieldIndex];
   }
 
   public static int getPrimitiveFieldMask(final int fieldIndex) {
-    assert 0 <= fieldIndex && fieldIndex < 32; // this limits the number of object fields for
-                                               // the moment...
+    assert 0 <= fieldIndex && fieldIndex < MAX_PRIMITIVE_FIELDS;
     return 1 << fieldIndex;
   }
 
+  private static final long PRIMITIVE_USED_MAP_OFFSET = getPrimitiveUsedMapOffset();
+
+  private static long getPrimitiveUsedMapOffset() {
+    try {
+      return StorageLocation.getFieldOffset(
+          SObject.class.getDeclaredField("primitiveUsedMap"));
+    } catch (NoSuchFieldException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   public final boolean isPrimitiveSet(final int mask) {
     return (primitiveUsedMap & mask) != 0;
   }
 
   public final void markPrimAsSet(final int mask) {
-    primitiveUsedMap |= mask;
+    // racing writes to other primitive fields must not lose their bits
+    int map;
+    do {
+      map = primitiveUsedMap;
+      if ((map & mask) != 0) {
+        return;
+      }
+    } while (!StorageLocation.compareAndSwapInt(
+        this, PRIMITIVE_USED_MAP_OFFSET, map, map | mask));
   }
 
   private StorageLocation getLocation(final long index) {
@@ -258,31 +564,27 @@ public class SObject extends SAbstractObject {
     return location;
   }
 
-  private boolean isFieldSet(final long index) {
-    CompilerAsserts.neverPartOfCompilation("isFieldSet");
-    StorageLocation location = getLocation(index);
-    return location.isSet(this);
-  }
-
-  public final Object getField(final long index) {
+  public final synchronized Object getField(final long index) {
     CompilerAsserts.neverPartOfCompilation("getField");
     StorageLocation location = getLocation(index);
     return location.read(this);
   }
 
-  public final void setUninitializedField(final long index, final Object value) {
+  public final synchronized void setUninitializedField(final long index,
+      final Object value) {
     CompilerAsserts.neverPartOfCompilation("setUninitializedField");
     updateLayoutWithInitializedField(index, value.getClass());
     setFieldAfterLayoutChange(index, value);
   }
 
-  public final void setFieldAndGeneralize(final long index, final Object value) {
+  public final synchronized void setFieldAndGeneralize(final long index,
+      final Object value) {
     CompilerAsserts.neverPartOfCompilation("setFieldAndGeneralize");
     updateLayoutWithGeneralizedField(index);
     setFieldAfterLayoutChange(index, value);
   }
 
-  public final void setField(final long index, final Object value) {
+  public final synchronized void setField(final long index, final Object value) {
     CompilerAsserts.neverPartOfCompilation("setField");
     StorageLocation location = getLocation(index);
 
@@ -296,61 +598,24 @@ public class SObject extends SAbstractObject {
     location.write(this, value);
   }
 
-  private static long getFirstObjectFieldOffset() {
-    CompilerAsserts.neverPartOfCompilation("SObject.getFirstObjectFieldOffset()");
-    try {
-      final Field firstField = SObject.class.getDeclaredField("field1");
-      return StorageLocation.getFieldOffset(firstField);
-    } catch (NoSuchFieldException e) {
-      throw new RuntimeException(e);
-    }
-  }
-
-  private static long getFirstPrimFieldOffset() {
-    CompilerAsserts.neverPartOfCompilation("SObject.getFirstPrimFieldOffset()");
-    try {
-      final Field firstField = SObject.class.getDeclaredField("primField1");
-      return StorageLocation.getFieldOffset(firstField);
-    } catch (NoSuchFieldException e) {
-      throw new RuntimeException(e);
-    }
-  }
-
-  private static long getObjectFieldLength() {
-    CompilerAsserts.neverPartOfCompilation("getObjectFieldLength()");
-
-    try {
-      long dist = getFieldDistance("field1", "field2");
-      // this can go wrong if the VM rearranges fields to fill holes in the
-      // memory layout of the object structure
-      assert dist == 4
-          || dist == 8 : "We expect these fields to be adjecent and either 32 or 64bit appart.";
-      return dist;
-    } catch (NoSuchFieldException | IllegalAccessException e) {
-      throw new RuntimeException(e);
-    }
-  }
-
-  private static long getPrimFieldLength() {
-    CompilerAsserts.neverPartOfCompilation("getPrimFieldLength()");
-
-    try {
-      long dist = getFieldDistance("primField1", "primField2");
-      // this can go wrong if the VM rearranges fields to fill holes in the
-      // memory layout of the object structure
-      assert dist == 8 : "We expect these fields to be adjecent and 64bit appart.";
-      return dist;
-    } catch (NoSuchFieldException | IllegalAccessException e) {
-      throw new RuntimeException(e);
+  private static long[] getFieldOffsets(final String prefix) {
+    CompilerAsserts.neverPartOfCompilation("SObject.getFieldOffsets(..)");
+    long[] offsets = new long[MAX_INLINE_FIELDS];
+    Class<?> declaringClass = SObject16.class;
+    for (int i = MAX_INLINE_FIELDS - 1; i >= 0; i--) {
+      while (true) {
+        try {
+          Field field = declaringClass.getDeclaredField(prefix + (i + 1));
+          offsets[i] = StorageLocation.getFieldOffset(field);
+          break;
+        } catch (NoSuchFieldException e) {
+          declaringClass = declaringClass.getSuperclass();
+          if (declaringClass == SObject.class) {
+            throw new RuntimeException(e);
+          }
+        }
+      }
     }
-  }
-
-  private static long getFieldDistance(final String field1, final String field2)
-      throws NoSuchFieldException,
-      IllegalAccessException {
-    final Field firstField = SObject.class.getDeclaredField(field1);
-    final Field secondField = SObject.class.getDeclaredField(field2);
-    return StorageLocation.getFieldOffset(secondField)
-        - StorageLocation.getFieldOffset(firstField);
+    return offsets;
   }
 }
@@ -0,0 +1,145 @@
+package trufflesom.vmobjects;
+
+import java.util.ArrayDeque;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import trufflesom.vm.Universe;
+
+
+/**
+ * A SOM string that is the result of a concatenation, but has not been
+ * flattened yet.
+ *
+ * <p>
+ * Concatenating strings in a loop would otherwise copy the whole string on
+ * each iteration. Instead, long results are represented as a tree of the
+ * concatenated parts, which are either {@link String}s or other ropes. The
+ * rope is flattened when its characters are needed for the first time, and
+ * the flat string is kept, so that it is computed only once.
+ *
+ * <p>
+ * Primitives that expect a {@link String} get the flattened string via the
+ * implicit cast in {@link trufflesom.interpreter.Types}.
+ *
+ * <p>
+ * A rope may be flattened by several threads at the same time. The flat
+ * string is published before the parts are cleared, and all three fields are
+ * volatile, so that a thread that sees the cleared parts also sees the flat
+ * string.
+ */
+public final class SRope extends SAbstractObject {
+
+  /**
+   * Below this length, a concatenation is done eagerly, because copying is
+   * cheaper than the indirection.
+   */
+  public static final int MIN_ROPE_LENGTH = 64;
+
+  private volatile Object left;
+  private volatile Object right;
+  private volatile String flattened;
+
+  private final int length;
+
+  private SRope(final Object left, final Object right, final int length) {
+    this.left = left;
+    this.right = right;
+    this.length = length;
+  }
+
+  /**
+   * Concatenate two strings, each either a {@link String} or a {@link SRope}.
+   *
+   * @return a {@link String} for short results, a {@link SRope} otherwise
+   */
+  public static Object concat(final Object left, final Object right) {
+    int length = lengthOf(left) + lengthOf(right);
+    if (length < MIN_ROPE_LENGTH) {
+      return concatFlat(left, right);
+    }
+    return new SRope(left, right, length);
+  }
+
+  @TruffleBoundary
+  private static String concatFlat(final Object left, final Object right) {
+    return flat(left).concat(flat(right));
+  }
+
+  private static int lengthOf(final Object str) {
+    if (str instanceof String) {
+      return ((String) str).length();
+    }
+    return ((SRope) str).length;
+  }
+
+  private static String flat(final Object str) {
+    if (str instanceof String) {
+      return (String) str;
+    }
+    return ((SRope) str).flatten();
+  }
+
+  public int length() {
+    return length;
+  }
+
+  /** @return the string represented by this rope */
+  public String flatten() {
+    String result = flattened;
+    if (result != null) {
+      return result;
+    }
+    return flattenParts();
+  }
+
+  @TruffleBoundary
+  private String flattenParts() {
+    // ropes build up in loops are deeply nested, so, avoid recursion
+    StringBuilder sb = new StringBuilder(length);
+    ArrayDeque<Object> todo = new ArrayDeque<>();
+    todo.push(this);
+
+    while (!todo.isEmpty()) {
+      Object current = todo.pop();
+      if (current instanceof String) {
+        sb.append((String) current);
+      } else {
+        SRope rope = (SRope) current;
+        String flat = rope.flattened;
+        if (flat != null) {
+          sb.append(flat);
+          continue;
+        }
+
+        Object l = rope.left;
+        Object r = rope.right;
+        if (l == null || r == null) {
+          // another thread flattened it meanwhile, and cleared the parts
+          sb.append(rope.flattened);
+        } else {
+          todo.push(r);
+          todo.push(l);
+        }
+      }
+    }
+
+    String result = sb.toString();
+    flattened = result;
+
+    // the parts are not needed anymore
+    left = null;
+    right = null;
+    return result;
+  }
+
+  @Override
+  public SClass getSOMClass(final Universe universe) {
+    return universe.stringClass;
+  }
+
+  @Override
+  public String toString() {
+    return flatten();
+  }
+}
@@ -24,17 +24,20 @@
 
 package trufflesom.vmobjects;
 
+import trufflesom.vm.Implementers;
 import trufflesom.vm.Universe;
 
 
 public final class SSymbol extends SAbstractObject {
-  private final String string;
-  private final int    numberOfSignatureArguments;
+  private final String       string;
+  private final int          numberOfSignatureArguments;
+  private final Implementers implementers;
 
   public SSymbol(final String value) {
     super();
     string = value;
     numberOfSignatureArguments = determineNumberOfSignatureArguments();
+    implementers = new Implementers();
   }
 
   @Override
@@ -76,6 +79,11 @@ public final class SSymbol extends SAbstractObject {
     return numberOfSignatureArguments;
   }
 
+  /** @return the classes implementing this symbol as selector */
+  public Implementers getImplementers() {
+    return implementers;
+  }
+
   private boolean isBinarySignature() {
     // Check the individual characters of the string
     for (char c : string.toCharArray()) {
@@ -0,0 +1,84 @@
+package trufflesom.vmobjects;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import trufflesom.vm.Universe;
+import trufflesom.vm.Universe.SomExit;
+import trufflesom.vm.constants.Nil;
+
+
+/**
+ * A SOM thread, which evaluates a block in parallel to the thread that
+ * spawned it.
+ *
+ * <p>
+ * An error in the block, or an exit via {@code system exit:}, ends the
+ * thread. It is rethrown in the thread that joins it, so that it is not lost.
+ */
+public final class SThread extends SAbstractObject {
+  private final SClass threadClass;
+  private final SBlock block;
+
+  private volatile Thread thread;
+
+  private volatile Object    result;
+  private volatile Throwable failure;
+
+  public SThread(final SClass threadClass, final SBlock block) {
+    this.threadClass = threadClass;
+    this.block = block;
+    this.result = Nil.nilObject;
+  }
+
+  @TruffleBoundary
+  public void start(final Universe universe) {
+    thread = universe.getLanguage().createThread(this::run);
+    thread.start();
+  }
+
+  private void run() {
+    try {
+      result = block.getMethod().invoke(new Object[] {block});
+    } catch (SomExit e) {
+      failure = e;
+    } catch (ThreadDeath e) {
+      throw e;
+    } catch (Throwable t) {
+      failure = t;
+      Universe.errorPrintln("Error in thread: " + t.toString());
+    }
+  }
+
+  /**
+   * Wait for the thread to complete, and return the result of the block.
+   * If the block failed, its error is rethrown.
+   */
+  @TruffleBoundary
+  public Object join() {
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    Throwable t = failure;
+    if (t instanceof RuntimeException) {
+      throw (RuntimeException) t;
+    } else if (t instanceof Error) {
+      throw (Error) t;
+    } else if (t != null) {
+      throw new RuntimeException(t);
+    }
+    return result;
+  }
+
+  @TruffleBoundary
+  public boolean isAlive() {
+    return thread.isAlive();
+  }
+
+  @Override
+  public SClass getSOMClass(final Universe universe) {
+    return threadClass;
+  }
+}
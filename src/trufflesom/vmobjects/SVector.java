@@ -0,0 +1,227 @@
+package trufflesom.vmobjects;
+
+import java.util.Arrays;
+
+import trufflesom.vm.Universe;
+import trufflesom.vmobjects.SArray.ArrayType;
+
+
+/**
+ * A growable vector, which uses the same storage strategies as
+ * {@link SArray}.
+ *
+ * <p>
+ * The storage starts out as EMPTY and is specialized to LONG or DOUBLE on
+ * the first append. If a value of a different kind is stored later, the
+ * vector generalizes to OBJECT storage. When the storage is full, its
+ * capacity is doubled, so that appending is amortized constant time.
+ */
+public final class SVector extends SAbstractObject {
+  private static final int DEFAULT_CAPACITY = 8;
+
+  private final SClass vectorClass;
+
+  private ArrayType type;
+  private Object    storage;
+  private int       size;
+
+  public SVector(final SClass vectorClass, final int initialCapacity) {
+    this.vectorClass = vectorClass;
+    this.type = ArrayType.EMPTY;
+    this.storage = Math.max(initialCapacity, 1);
+    this.size = 0;
+  }
+
+  public SVector(final SClass vectorClass) {
+    this(vectorClass, DEFAULT_CAPACITY);
+  }
+
+  public ArrayType getType() {
+    return type;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public boolean isEmptyType() {
+    return type == ArrayType.EMPTY;
+  }
+
+  public boolean isLongType() {
+    return type == ArrayType.LONG;
+  }
+
+  public boolean isDoubleType() {
+    return type == ArrayType.DOUBLE;
+  }
+
+  public boolean isObjectType() {
+    return type == ArrayType.OBJECT;
+  }
+
+  public long[] getLongStorage() {
+    assert type == ArrayType.LONG;
+    return (long[]) storage;
+  }
+
+  public double[] getDoubleStorage() {
+    assert type == ArrayType.DOUBLE;
+    return (double[]) storage;
+  }
+
+  public Object[] getObjectStorage() {
+    assert type == ArrayType.OBJECT;
+    return (Object[]) storage;
+  }
+
+  /** @return true, if the 1-based index is within the bounds of the vector */
+  public boolean isValidIndex(final long idx) {
+    return idx >= 1 && idx <= size;
+  }
+
+  public void append(final long value) {
+    if (type == ArrayType.EMPTY) {
+      storage = new long[(int) storage];
+      type = ArrayType.LONG;
+    } else if (type != ArrayType.LONG) {
+      append((Object) value);
+      return;
+    }
+
+    long[] s = (long[]) storage;
+    if (size == s.length) {
+      s = Arrays.copyOf(s, s.length * 2);
+      storage = s;
+    }
+    s[size] = value;
+    size++;
+  }
+
+  public void append(final double value) {
+    if (type == ArrayType.EMPTY) {
+      storage = new double[(int) storage];
+      type = ArrayType.DOUBLE;
+    } else if (type != ArrayType.DOUBLE) {
+      append((Object) value);
+      return;
+    }
+
+    double[] s = (double[]) storage;
+    if (size == s.length) {
+      s = Arrays.copyOf(s, s.length * 2);
+      storage = s;
+    }
+    s[size] = value;
+    size++;
+  }
+
+  public void append(final Object value) {
+    if (type != ArrayType.OBJECT) {
+      transitionToObject();
+    }
+
+    Object[] s = (Object[]) storage;
+    if (size == s.length) {
+      s = Arrays.copyOf(s, s.length * 2);
+      storage = s;
+    }
+    s[size] = value;
+    size++;
+  }
+
+  /** Store a value at the 1-based index, which needs to be valid. */
+  public void atPut(final long idx, final Object value) {
+    assert isValidIndex(idx);
+    int i = (int) idx - 1;
+
+    if (type == ArrayType.LONG && value instanceof Long) {
+      ((long[]) storage)[i] = (long) value;
+    } else if (type == ArrayType.DOUBLE && value instanceof Double) {
+      ((double[]) storage)[i] = (double) value;
+    } else {
+      if (type != ArrayType.OBJECT) {
+        transitionToObject();
+      }
+      ((Object[]) storage)[i] = value;
+    }
+  }
+
+  /** @return the value at the 1-based index, which needs to be valid */
+  public Object get(final long idx) {
+    assert isValidIndex(idx);
+    int i = (int) idx - 1;
+
+    switch (type) {
+      case LONG:
+        return ((long[]) storage)[i];
+      case DOUBLE:
+        return ((double[]) storage)[i];
+      case OBJECT:
+        return ((Object[]) storage)[i];
+      default:
+        throw new IllegalStateException("Unexpected vector type: " + type);
+    }
+  }
+
+  /** Remove the last element, the vector must not be empty. */
+  public Object removeLast() {
+    assert size > 0;
+    Object last = get(size);
+    size--;
+    if (type == ArrayType.OBJECT) {
+      ((Object[]) storage)[size] = null;
+    }
+    return last;
+  }
+
+  /** @return a new array with the elements of the vector */
+  public SArray asArray() {
+    switch (type) {
+      case EMPTY:
+        return SArray.create(0);
+      case LONG:
+        return SArray.create(Arrays.copyOf((long[]) storage, size));
+      case DOUBLE:
+        return SArray.create(Arrays.copyOf((double[]) storage, size));
+      case OBJECT:
+        return SArray.create(Arrays.copyOf((Object[]) storage, size));
+      default:
+        throw new IllegalStateException("Unexpected vector type: " + type);
+    }
+  }
+
+  private void transitionToObject() {
+    Object[] newStorage;
+
+    switch (type) {
+      case EMPTY:
+        newStorage = new Object[(int) storage];
+        break;
+      case LONG:
+        long[] longs = (long[]) storage;
+        newStorage = new Object[longs.length];
+        for (int i = 0; i < size; i++) {
+          newStorage[i] = longs[i];
+        }
+        break;
+      case DOUBLE:
+        double[] doubles = (double[]) storage;
+        newStorage = new Object[doubles.length];
+        for (int i = 0; i < size; i++) {
+          newStorage[i] = doubles[i];
+        }
+        break;
+      default:
+        throw new IllegalStateException("Unexpected vector type: " + type);
+    }
+
+    storage = newStorage;
+    type = ArrayType.OBJECT;
+  }
+
+  @Override
+  public SClass getSOMClass(final Universe universe) {
+    return vectorClass;
+  }
+}
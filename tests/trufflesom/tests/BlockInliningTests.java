@@ -0,0 +1,54 @@
+package trufflesom.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Context.Builder;
+import org.graalvm.polyglot.Value;
+import org.junit.Test;
+
+import com.oracle.truffle.api.Truffle;
+
+import trufflesom.interpreter.SomLanguage;
+
+
+/**
+ * Checks that a small block, which is called with value: in a compiled loop,
+ * is inlined at the call site, see
+ * {@link trufflesom.interpreter.nodes.dispatch.CachedBlockDispatchNode}.
+ * Compilation needs the Graal compiler, so, the test is skipped without it.
+ */
+public class BlockInliningTests {
+
+  @Test
+  public void testSmallBlockIsInlinedAtValueCallSite() {
+    assumeTrue(Truffle.getRuntime().getName().contains("Graal"));
+
+    ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+    Builder builder = Context.newBuilder();
+    builder.option("som.CLASS_PATH", "Smalltalk:tests/som");
+    builder.option("som.TEST_CLASS", "BlockInlining");
+    builder.option("som.TEST_SELECTOR", "run");
+    builder.option("engine.TraceInlining", "true");
+    builder.logHandler(log);
+
+    try (Context context = builder.build()) {
+      Value result = context.eval(SomLanguage.START);
+      assertEquals(299999995L, result.asLong());
+    }
+
+    boolean inlined = false;
+    for (String line : log.toString().split("\n")) {
+      if (line.contains("Inlined") && line.contains("BlockInlining_class>>#$blockMethod")) {
+        inlined = true;
+      }
+    }
+    assertTrue("Expected the block to be inlined into the loop, but the log was:\n" + log,
+        inlined);
+  }
+}
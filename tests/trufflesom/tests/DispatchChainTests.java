@@ -0,0 +1,79 @@
+package trufflesom.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Context.Builder;
+import org.junit.Test;
+
+import trufflesom.interpreter.SomLanguage;
+
+
+/**
+ * Checks when a send site with more receiver classes than the inline cache
+ * size becomes megamorphic, using the dispatch profile to see its state, and
+ * that the profile reports the method lookup cache of the megamorphic sites.
+ */
+public class DispatchChainTests {
+
+  private static List<String> runAndGetProfile(final String selector, final long expected)
+      throws IOException {
+    File profile = File.createTempFile("dispatch-profile", ".txt");
+    profile.deleteOnExit();
+
+    Builder builder = Context.newBuilder();
+    builder.option("som.CLASS_PATH", "Smalltalk:tests/som");
+    builder.option("som.TEST_CLASS", "DispatchChains");
+    builder.option("som.TEST_SELECTOR", selector);
+    builder.option("som.INLINE_CACHE_SIZE", "2");
+    builder.option("som.MAX_INLINE_CACHE_SIZE", "3");
+    builder.option("som.DISPATCH_PROFILE", "text");
+    builder.option("som.DISPATCH_PROFILE_OUTPUT", profile.getAbsolutePath());
+
+    try (Context context = builder.build()) {
+      assertEquals(expected, context.eval(SomLanguage.START).asLong());
+    }
+
+    return Files.readAllLines(profile.toPath());
+  }
+
+  private static String runAndGetSiteState(final String selector, final long expected)
+      throws IOException {
+    String site = null;
+    for (String line : runAndGetProfile(selector, expected)) {
+      if (line.contains("#dispatchValue")) {
+        site = line;
+      }
+    }
+    assertNotNull("No profile for #dispatchValue", site);
+    return site.trim().split("\\s+")[0];
+  }
+
+  @Test
+  public void testSiteWithoutHitsBecomesMegamorphic() throws IOException {
+    assertEquals("megamorphic", runAndGetSiteState("megamorphic", 250));
+  }
+
+  @Test
+  public void testHotSiteGrowsBeyondInlineCacheSize() throws IOException {
+    assertEquals("polymorphic", runAndGetSiteState("polymorphic", 175));
+  }
+
+  @Test
+  public void testProfileReportsMethodLookupCache() throws IOException {
+    List<String> profile = runAndGetProfile("megamorphic", 250);
+    String summary = profile.get(profile.size() - 1);
+    assertTrue(summary, summary.startsWith("Method lookup cache: "));
+
+    // Method lookup cache: <hits> hits, <misses> misses, hit rate <rate>%
+    long hits = Long.parseLong(summary.split("\\s+")[3]);
+    assertTrue(summary, hits > 0);
+  }
+}
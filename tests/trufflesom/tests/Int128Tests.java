@@ -0,0 +1,183 @@
+package trufflesom.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+
+import org.junit.Test;
+
+import trufflesom.primitives.arithmetic.Int128;
+
+
+public class Int128Tests {
+
+  private static final long[] VALUES = {
+      0, 1, -1, 2, -2, 3, -3,
+      Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE - 1, Long.MIN_VALUE + 1,
+      Integer.MAX_VALUE, Integer.MIN_VALUE,
+      0xFFFFFFFFL, 0x100000000L, -0x100000000L, 0x80000000L, -0x80000000L,
+      1L << 62, -(1L << 62), 0x5555555555555555L, 0xAAAAAAAAAAAAAAAAL,
+      0x123456789ABCDEFL, -0x123456789ABCDEFL, 3037000499L, 3037000500L,
+  };
+
+  private static final BigInteger[] WIDE_VALUES = {
+      BigInteger.ONE.shiftLeft(63), BigInteger.ONE.shiftLeft(63).negate().subtract(big(1)),
+      BigInteger.ONE.shiftLeft(64), BigInteger.ONE.shiftLeft(64).negate(),
+      BigInteger.ONE.shiftLeft(100).add(big(0x123456789ABCDEFL)),
+      BigInteger.ONE.shiftLeft(126), BigInteger.ONE.shiftLeft(126).negate(),
+      BigInteger.ONE.shiftLeft(127).subtract(BigInteger.ONE),
+      BigInteger.ONE.shiftLeft(127).negate(),
+  };
+
+  private static BigInteger big(final long value) {
+    return BigInteger.valueOf(value);
+  }
+
+  private static Int128 int128(final BigInteger value) {
+    return (Int128) Int128.valueOf(value);
+  }
+
+  /**
+   * Check that the result has the expected value, and is a long if it fits,
+   * an Int128 if it fits into 128 bits, and a BigInteger otherwise.
+   */
+  private static void assertResult(final String message, final BigInteger expected,
+      final Object actual) {
+    if (expected.bitLength() < Long.SIZE) {
+      assertEquals(message, expected.longValue(), actual);
+    } else if (expected.bitLength() < 2 * Long.SIZE) {
+      assertTrue(message, actual instanceof Int128);
+      assertEquals(message, expected, ((Int128) actual).toBigInteger());
+    } else {
+      assertEquals(message, expected, actual);
+    }
+  }
+
+  @Test
+  public void testAddAllPairs() {
+    for (long left : VALUES) {
+      for (long right : VALUES) {
+        assertResult(left + " + " + right, big(left).add(big(right)),
+            Int128.add(left, right));
+      }
+    }
+  }
+
+  @Test
+  public void testSubtractAllPairs() {
+    for (long left : VALUES) {
+      for (long right : VALUES) {
+        assertResult(left + " - " + right, big(left).subtract(big(right)),
+            Int128.subtract(left, right));
+      }
+    }
+  }
+
+  @Test
+  public void testMultiplyAllPairs() {
+    for (long left : VALUES) {
+      for (long right : VALUES) {
+        assertResult(left + " * " + right, big(left).multiply(big(right)),
+            Int128.multiply(left, right));
+      }
+    }
+  }
+
+  @Test
+  public void testShiftLeftAllValues() {
+    for (long value : VALUES) {
+      for (int shift = 0; shift <= 130; shift++) {
+        assertResult(value + " << " + shift, big(value).shiftLeft(shift),
+            Int128.shiftLeft(value, shift));
+      }
+    }
+  }
+
+  @Test
+  public void testWideAndLong() {
+    for (BigInteger left : WIDE_VALUES) {
+      for (long right : VALUES) {
+        assertResult(left + " + " + right, left.add(big(right)),
+            Int128.add(int128(left), right));
+        assertResult(left + " - " + right, left.subtract(big(right)),
+            Int128.subtract(int128(left), right));
+        assertResult(right + " - " + left, big(right).subtract(left),
+            Int128.subtract(right, int128(left)));
+        assertResult(left + " * " + right, left.multiply(big(right)),
+            Int128.multiply(int128(left), right));
+      }
+    }
+  }
+
+  @Test
+  public void testWidePairs() {
+    for (BigInteger left : WIDE_VALUES) {
+      for (BigInteger right : WIDE_VALUES) {
+        assertResult(left + " + " + right, left.add(right),
+            Int128.add(int128(left), int128(right)));
+        assertResult(left + " - " + right, left.subtract(right),
+            Int128.subtract(int128(left), int128(right)));
+        assertResult(left + " * " + right, left.multiply(right),
+            Int128.multiply(int128(left), int128(right)));
+      }
+    }
+  }
+
+  @Test
+  public void testCarryIntoHighWord() {
+    // the low words overflow as unsigned values, the high word gets the carry
+    assertEquals(0L, Int128.add(-1, 1));
+    assertEquals(-2L, Int128.add(-1, -1));
+    assertResult("MIN - 1", big(Long.MIN_VALUE).subtract(BigInteger.ONE),
+        Int128.add(Long.MIN_VALUE, -1));
+    assertResult("MAX + 1", big(Long.MAX_VALUE).add(BigInteger.ONE),
+        Int128.add(Long.MAX_VALUE, 1));
+    assertResult("MIN + MIN", big(Long.MIN_VALUE).multiply(big(2)),
+        Int128.add(Long.MIN_VALUE, Long.MIN_VALUE));
+  }
+
+  @Test
+  public void testBorrowFromHighWord() {
+    assertResult("MIN - 1", big(Long.MIN_VALUE).subtract(BigInteger.ONE),
+        Int128.subtract(Long.MIN_VALUE, 1));
+    assertResult("0 - MIN", big(Long.MAX_VALUE).add(BigInteger.ONE),
+        Int128.subtract(0, Long.MIN_VALUE));
+    assertResult("-1 - MAX", big(-1).subtract(big(Long.MAX_VALUE)),
+        Int128.subtract(-1, Long.MAX_VALUE));
+  }
+
+  @Test
+  public void testMultiplyAtSignBoundary() {
+    assertResult("MIN * MIN", BigInteger.ONE.shiftLeft(126),
+        Int128.multiply(Long.MIN_VALUE, Long.MIN_VALUE));
+    assertResult("MIN * -1", BigInteger.ONE.shiftLeft(63),
+        Int128.multiply(Long.MIN_VALUE, -1));
+    assertResult("MIN * MAX", big(Long.MIN_VALUE).multiply(big(Long.MAX_VALUE)),
+        Int128.multiply(Long.MIN_VALUE, Long.MAX_VALUE));
+    assertResult("MAX * MAX", big(Long.MAX_VALUE).multiply(big(Long.MAX_VALUE)),
+        Int128.multiply(Long.MAX_VALUE, Long.MAX_VALUE));
+  }
+
+  @Test
+  public void testShiftLeftAtSignBoundary() {
+    assertResult("1 << 63", BigInteger.ONE.shiftLeft(63), Int128.shiftLeft(1, 63));
+    assertResult("-1 << 127", big(-1).shiftLeft(127), Int128.shiftLeft(-1, 127));
+    assertResult("MIN << 64", big(Long.MIN_VALUE).shiftLeft(64),
+        Int128.shiftLeft(Long.MIN_VALUE, 64));
+    assertResult("MAX << 65", big(Long.MAX_VALUE).shiftLeft(65),
+        Int128.shiftLeft(Long.MAX_VALUE, 65));
+  }
+
+  @Test
+  public void testOverflowBeyond128Bits() {
+    Int128 max = int128(BigInteger.ONE.shiftLeft(127).subtract(BigInteger.ONE));
+    Int128 min = int128(BigInteger.ONE.shiftLeft(127).negate());
+
+    assertEquals(BigInteger.ONE.shiftLeft(127), Int128.add(max, 1));
+    assertEquals(BigInteger.ONE.shiftLeft(127).negate().subtract(BigInteger.ONE),
+        Int128.subtract(min, 1));
+    assertEquals(BigInteger.ONE.shiftLeft(128).negate(), Int128.add(min, min));
+    assertEquals(BigInteger.ONE.shiftLeft(127), Int128.multiply(min, -1));
+  }
+}
@@ -0,0 +1,110 @@
+package trufflesom.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Context.Builder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import trufflesom.interpreter.SomLanguage;
+import trufflesom.vm.MethodLookupCache;
+import trufflesom.vm.Universe;
+import trufflesom.vmobjects.SClass;
+import trufflesom.vmobjects.SInvokable;
+import trufflesom.vmobjects.SSymbol;
+
+
+/**
+ * Checks that the lookups cached by {@link MethodLookupCache} and by the classes
+ * themselves are dropped when a method of a superclass is redefined.
+ */
+public class MethodLookupCacheTests {
+
+  private Context  context;
+  private Universe universe;
+
+  private SClass  lookupSuper;
+  private SClass  lookupSub;
+  private SSymbol value;
+
+  @Before
+  public void setUp() {
+    Builder builder = Context.newBuilder();
+    builder.option("som.CLASS_PATH", "Smalltalk:tests/som");
+    builder.option("som.TEST_CLASS", "LookupSub");
+    builder.option("som.TEST_SELECTOR", "run");
+
+    context = builder.build();
+    assertEquals(1L, context.eval(SomLanguage.START).asLong());
+
+    context.enter();
+    universe = SomLanguage.getCurrentContext();
+    lookupSuper = universe.loadClass(universe.symbolFor("LookupSuper"));
+    lookupSub = universe.loadClass(universe.symbolFor("LookupSub"));
+    value = universe.symbolFor("value");
+  }
+
+  @After
+  public void tearDown() {
+    context.leave();
+    context.close();
+  }
+
+  private SInvokable redefinedValue() {
+    SClass redefinition = universe.loadClass(universe.symbolFor("LookupRedefinition"));
+    return redefinition.lookupInvokable(value);
+  }
+
+  private long sendValue() {
+    SInvokable method = universe.getMethodLookupCache().lookup(lookupSub, value);
+    return (long) method.invoke(new Object[] {Universe.newInstance(lookupSub)});
+  }
+
+  @Test
+  public void testRedefinitionInSuperclass() {
+    SInvokable original = lookupSuper.lookupInvokable(value);
+    assertSame(original, universe.getMethodLookupCache().lookup(lookupSub, value));
+    assertSame(original, lookupSub.lookupInvokable(value));
+    assertEquals(1L, sendValue());
+
+    SInvokable redefined = redefinedValue();
+    lookupSuper.addInstanceInvokable(redefined);
+
+    assertSame(redefined, universe.getMethodLookupCache().lookup(lookupSub, value));
+    assertSame(redefined, lookupSub.lookupInvokable(value));
+    assertEquals(2L, sendValue());
+  }
+
+  @Test
+  public void testOverrideInSubclass() {
+    assertSame(lookupSuper.lookupInvokable(value),
+        universe.getMethodLookupCache().lookup(lookupSub, value));
+
+    SInvokable override = redefinedValue();
+    lookupSub.addInstanceInvokable(override);
+
+    assertSame(override, universe.getMethodLookupCache().lookup(lookupSub, value));
+    assertSame(override, lookupSub.lookupInvokable(value));
+    assertEquals(2L, sendValue());
+  }
+
+  /** Each universe has its own cache, so the first lookup misses. */
+  @Test
+  public void testCountsHitsAndMisses() {
+    MethodLookupCache cache = universe.getMethodLookupCache();
+    long hits = cache.getHits();
+    long misses = cache.getMisses();
+
+    cache.lookup(lookupSub, value);
+    cache.lookup(lookupSub, value);
+    assertEquals(misses + 1, cache.getMisses());
+    assertEquals(hits + 1, cache.getHits());
+
+    lookupSuper.addInstanceInvokable(redefinedValue());
+    cache.lookup(lookupSub, value);
+    assertEquals(misses + 2, cache.getMisses());
+  }
+}
@@ -0,0 +1,288 @@
+package trufflesom.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Context.Builder;
+import org.graalvm.polyglot.Value;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import trufflesom.interpreter.SomLanguage;
+import trufflesom.vmobjects.SClass;
+import trufflesom.vmobjects.SSymbol;
+
+
+/**
+ * Runs the SOM tests in {@code tests/som} for the optimizations of the
+ * interpreter, for instance, ropes, inlined loops, and dispatch chains.
+ * Each test is a method on the class side that returns its result. The
+ * {@code Concurrency} directory is on the class path for the thread tests,
+ * and the {@code Collections} directory for the native collection tests.
+ */
+@RunWith(Parameterized.class)
+public class OptimizationTests {
+
+  @Parameters(name = "{0}.{1} [{index}]")
+  public static Iterable<Object[]> data() {
+    return Arrays.asList(new Object[][] {
+        {"Ropes", "testLength", 200, Long.class},
+        {"Ropes", "testEquals", 1, Long.class},
+        {"Ropes", "testNotEquals", 0, Long.class},
+        {"Ropes", "testConcatRopes", 1, Long.class},
+        {"Ropes", "testAsSymbol", 1, Long.class},
+        {"Ropes", "testHashcode", 1, Long.class},
+
+        {"Threads", "testSpawnAndJoin", 42, Long.class},
+        {"Threads", "testIsAliveAfterJoin", 0, Long.class},
+        {"Threads", "testNumberOfCores", 1, Long.class},
+        {"Threads", "testCriticalSection", 4000, Long.class},
+        {"Threads", "testCriticalReturnsBlockValue", 42, Long.class},
+        {"Threads", "testLockAndUnlock", 1, Long.class},
+        {"Threads", "testCondition", 42, Long.class},
+        {"Threads", "testConcurrentFieldWrites", 1000000, Long.class},
+
+        {"ParallelArrays", "testParallelDo", 25005000, Long.class},
+        {"ParallelArrays", "testParallelDoSmall", 110, Long.class},
+        {"ParallelArrays", "testParallelCollect", 25005000, Long.class},
+        {"ParallelArrays", "testParallelCollectDoubles", 18753750.0, Double.class},
+        {"ParallelArrays", "testParallelCollectSmall", 110, Long.class},
+        {"ParallelArrays", "testParallelInject", 12502500, Long.class},
+        {"ParallelArrays", "testParallelInjectMax", 5000, Long.class},
+        {"ParallelArrays", "testParallelInjectSmall", 55, Long.class},
+        {"ParallelArrays", "testNested", 67125248, Long.class},
+
+        {"NativeCollections", "testAppendInts", 200, Long.class},
+        {"NativeCollections", "testAppendDoubles", 4.0, Double.class},
+        {"NativeCollections", "testGeneralizeToObjects", 4, Long.class},
+        {"NativeCollections", "testAtPut", 42, Long.class},
+        {"NativeCollections", "testAtPutGeneralizes", 2, Long.class},
+        {"NativeCollections", "testRemoveLast", 32, Long.class},
+        {"NativeCollections", "testRemoveLastEmpty", 1, Long.class},
+        {"NativeCollections", "testAsArray", 1055, Long.class},
+        {"NativeCollections", "testAtOutOfBounds", 1, Long.class},
+        {"NativeCollections", "testAtOutOfBoundsEmpty", 1, Long.class},
+        {"NativeCollections", "testAtPutOutOfBounds", 1, Long.class},
+        {"NativeCollections", "testIntegerKeys", 200, Long.class},
+        {"NativeCollections", "testMissingKey", 1, Long.class},
+        {"NativeCollections", "testMixedKeys", 1142, Long.class},
+        {"NativeCollections", "testIntegerAndDoubleKeys", 220, Long.class},
+        {"NativeCollections", "testDoubleAndIntegerObjectKeys", 220, Long.class},
+        {"NativeCollections", "testStringAndSymbolKeys", 12, Long.class},
+        {"NativeCollections", "testRopeKeys", 12, Long.class},
+        {"NativeCollections", "testLargeIntegerKeys", 12, Long.class},
+        {"NativeCollections", "testRemoveKey", 50050, Long.class},
+        {"NativeCollections", "testRemoveObjectKeys", 50050, Long.class},
+        {"NativeCollections", "testKeysAndValues", 10, Long.class},
+
+        {"ArrayStrategies", "testCopyBytes", 1, Long.class},
+        {"ArrayStrategies", "testCopyInts", 1, Long.class},
+        {"ArrayStrategies", "testCopyLongs", 1, Long.class},
+        {"ArrayStrategies", "testCopyDoubles", 1, Long.class},
+        {"ArrayStrategies", "testCopyBooleans", 1, Long.class},
+        {"ArrayStrategies", "testCopyObjects", 1, Long.class},
+        {"ArrayStrategies", "testCopyFromToBytes", 1, Long.class},
+        {"ArrayStrategies", "testCopyFromToInts", 1, Long.class},
+        {"ArrayStrategies", "testCopyFromToLongs", 1, Long.class},
+        {"ArrayStrategies", "testCopyFromToDoubles", 1, Long.class},
+        {"ArrayStrategies", "testCopyFromToBooleans", 1, Long.class},
+        {"ArrayStrategies", "testCopyFromToObjects", 1, Long.class},
+        {"ArrayStrategies", "testCopyOfCopy", 117, Long.class},
+        {"ArrayStrategies", "testCopyFromToRangeBytes", 10716, Long.class},
+        {"ArrayStrategies", "testCopyFromToRangeInts", 300001, Long.class},
+        {"ArrayStrategies", "testCopyFromToRangeLongs", 1, Long.class},
+        {"ArrayStrategies", "testCopyFromToRangeDoubles", 5.25, Double.class},
+        {"ArrayStrategies", "testWidenBytesToInts", 100005, Long.class},
+        {"ArrayStrategies", "testWidenIntsToLongs", 600000, Long.class},
+        {"ArrayStrategies", "testWidenBytesToIntsToLongs", 11001, Long.class},
+        {"ArrayStrategies", "testByteBoundaries", 125848, Long.class},
+        {"ArrayStrategies", "testIntBoundaries", -9, Long.class},
+        {"ArrayStrategies", "testWidenBytesToObjects", 8, Long.class},
+        {"ArrayStrategies", "testWidenIntsToDoubles", 100000.5, Double.class},
+        {"ArrayStrategies", "testSparse", 98012, Long.class},
+        {"ArrayStrategies", "testSparseDoubles", 1.75, Double.class},
+        {"ArrayStrategies", "testSparseBooleans", 1011, Long.class},
+        {"ArrayStrategies", "testResetToNil", 109, Long.class},
+        {"ArrayStrategies", "testSetTwice", 5, Long.class},
+        {"ArrayStrategies", "testResetObjectToNil", 104, Long.class},
+        {"ArrayStrategies", "testMixedTypes", 18.5, Double.class},
+        {"ArrayStrategies", "testFirstDoubleThenLong", 3.5, Double.class},
+        {"ArrayStrategies", "testFullBytes", 3484, Long.class},
+        {"ArrayStrategies", "testFullInts", 100000, Long.class},
+        {"ArrayStrategies", "testFullLongs", 1, Long.class},
+        {"ArrayStrategies", "testFullDoubles", 1243.0, Double.class},
+        {"ArrayStrategies", "testFullBooleans", 36, Long.class},
+        {"ArrayStrategies", "testFullInReverse", 2485, Long.class},
+        {"ArrayStrategies", "testCopyPartial", 7, Long.class},
+        {"ArrayStrategies", "testCopyFromToPartial", 6, Long.class},
+        {"ArrayStrategies", "testSlice", 1801, Long.class},
+        {"ArrayStrategies", "testSliceWrites", 203, Long.class},
+        {"ArrayStrategies", "testSliceOfSlice", 225, Long.class},
+        {"ArrayStrategies", "testSliceSum", 400400, Long.class},
+        {"ArrayStrategies", "testSliceCopy", 1501, Long.class},
+        {"ArrayStrategies", "testSliceWiden", 902, Long.class},
+        {"ArrayStrategies", "testSliceDoubles", 148.5, Double.class},
+
+        {"BulkArrays", "testCollectBytes", 1012, Long.class},
+        {"BulkArrays", "testCollectInts", 600000, Long.class},
+        {"BulkArrays", "testCollectToLongs", 3, Long.class},
+        {"BulkArrays", "testCollectDoubles", 9.0, Double.class},
+        {"BulkArrays", "testCollectBooleans", 3, Long.class},
+        {"BulkArrays", "testCollectMixed", 5.5, Double.class},
+        {"BulkArrays", "testCollectPartial", 25, Long.class},
+        {"BulkArrays", "testCollectEmpty", 21, Long.class},
+        {"BulkArrays", "testInjectBytes", 81, Long.class},
+        {"BulkArrays", "testInjectInts", 300000, Long.class},
+        {"BulkArrays", "testInjectLongs", 3, Long.class},
+        {"BulkArrays", "testInjectDoubles", 2.0, Double.class},
+        {"BulkArrays", "testInjectBooleans", 3, Long.class},
+        {"BulkArrays", "testInjectObjects", 6, Long.class},
+        {"BulkArrays", "testInjectEmpty", 3, Long.class},
+        {"BulkArrays", "testInjectPartial", 24, Long.class},
+        {"BulkArrays", "testIndexOfBytes", 4, Long.class},
+        {"BulkArrays", "testIndexOfBytesOutOfRange", 1, Long.class},
+        {"BulkArrays", "testIndexOfInts", 3, Long.class},
+        {"BulkArrays", "testIndexOfLongs", 5, Long.class},
+        {"BulkArrays", "testIndexOfDoubles", 2, Long.class},
+        {"BulkArrays", "testIndexOfNotFound", 1, Long.class},
+        {"BulkArrays", "testIndexOfIntegerInDoubles", 3, Long.class},
+        {"BulkArrays", "testIndexOfObjects", 2, Long.class},
+        {"BulkArrays", "testIndexOfStringInBytes", 1, Long.class},
+        {"BulkArrays", "testIndexOfNil", 2, Long.class},
+        {"BulkArrays", "testReplaceSameType", 1714, Long.class},
+        {"BulkArrays", "testReplaceShared", 1103, Long.class},
+        {"BulkArrays", "testReplaceLongsWithBytes", 7, Long.class},
+        {"BulkArrays", "testReplaceLongsWithInts", 200001, Long.class},
+        {"BulkArrays", "testReplaceBytesWithInts", 200001, Long.class},
+        {"BulkArrays", "testReplaceBytesWithLongs", 3, Long.class},
+        {"BulkArrays", "testReplaceBytesWithObjects", 5, Long.class},
+        {"BulkArrays", "testReplaceEmptyRange", 123, Long.class},
+        {"BulkArrays", "testReplaceWithItself", 12345, Long.class},
+        {"BulkArrays", "testReplaceWithItselfShifted", 11234, Long.class},
+        {"BulkArrays", "testReplacePartialWithItselfShifted", 11230, Long.class},
+
+        {"Closures", "testEscapedBlock", 7, Long.class},
+        {"Closures", "testEscapedBlocksAreIndependent", 406, Long.class},
+        {"Closures", "testEscapedSelf", 1, Long.class},
+        {"Closures", "testNested", 1321, Long.class},
+        {"Closures", "testNestedWithoutArguments", 1007, Long.class},
+        {"Closures", "testOuterBlockArgument", 8, Long.class},
+        {"Closures", "testWithLocal", 13, Long.class},
+        {"Closures", "testInIfTrue", 6, Long.class},
+        {"Closures", "testInIfNotNil", 8, Long.class},
+        {"Closures", "testInToDo", 36, Long.class},
+        {"Closures", "testInToDoEscaping", 60, Long.class},
+        {"Closures", "testNonLocalReturn", 6, Long.class},
+
+        {"InlinedLoops", "testToDo", 55, Long.class},
+        {"InlinedLoops", "testToDoEmpty", 0, Long.class},
+        {"InlinedLoops", "testToDoSingle", 5, Long.class},
+        {"InlinedLoops", "testToDoNegative", -3, Long.class},
+        {"InlinedLoops", "testToDoDoubleLimit", 6, Long.class},
+        {"InlinedLoops", "testToDoNegativeDoubleLimit", -12, Long.class},
+        {"InlinedLoops", "testToDoBigIntegers", 3, Long.class},
+        {"InlinedLoops", "testToDoFallbackAfterIntegers", 58, Long.class},
+        {"InlinedLoops", "testToDoUserClass", 42, Long.class},
+        {"InlinedLoops", "testToByDo", 22, Long.class},
+        {"InlinedLoops", "testToByDoNegativeStep", 100602, Long.class},
+        {"InlinedLoops", "testToByDoEmpty", 0, Long.class},
+        {"InlinedLoops", "testToByDoDoubleLimit", 616, Long.class},
+        {"InlinedLoops", "testToByDoUserClass", 7, Long.class},
+        {"InlinedLoops", "testDownToDo", 321, Long.class},
+        {"InlinedLoops", "testDownToDoEmpty", 0, Long.class},
+        {"InlinedLoops", "testDownToDoDoubleLimit", 12, Long.class},
+        {"InlinedLoops", "testDownToDoUserClass", 9, Long.class},
+        {"InlinedLoops", "testTimesRepeat", 5, Long.class},
+        {"InlinedLoops", "testTimesRepeatZero", 0, Long.class},
+        {"InlinedLoops", "testTimesRepeatUserClass", 2, Long.class},
+        {"InlinedLoops", "testIfNotNilWithParameter", 6, Long.class},
+        {"InlinedLoops", "testIfNotNilWithoutParameter", 5, Long.class},
+        {"InlinedLoops", "testIfNil", 7, Long.class},
+        {"InlinedLoops", "testIfNilIfNotNilInLoop", 104, Long.class},
+        {"InlinedLoops", "testIfNotNilParameterInBlock", 30, Long.class},
+
+        {"NonLocalReturns", "testTaken", 6, Long.class},
+        {"NonLocalReturns", "testNotTaken", 0, Long.class},
+        {"NonLocalReturns", "testTakenRepeatedly", 18, Long.class},
+        {"NonLocalReturns", "testReturnThroughFrameWithoutMarker", 42, Long.class},
+        {"NonLocalReturns", "testEscapedBlock", 99, Long.class},
+        {"NonLocalReturns", "testEscapedBlockAfterTakenReturn", 99, Long.class},
+        {"NonLocalReturns", "testEscapedBlockNotReturning", 0, Long.class},
+
+        {"TrivialMethods", "testGetter", 9, Long.class},
+        {"TrivialMethods", "testGetterUninitialized", 1, Long.class},
+        {"TrivialMethods", "testSetterReturnsSelf", 6, Long.class},
+        {"TrivialMethods", "testSetterReturnsValue", 120, Long.class},
+        {"TrivialMethods", "testSetterGeneralizesField", 0.5, Double.class},
+        {"TrivialMethods", "testConstant", 126, Long.class},
+        {"TrivialMethods", "testConstantString", 14, Long.class},
+        {"TrivialMethods", "testConstantSymbol", "trivial", SSymbol.class},
+        {"TrivialMethods", "testConstantDouble", 5.0, Double.class},
+        {"TrivialMethods", "testPolymorphic", 552, Long.class},
+        {"TrivialMethods", "testOverrideConstantInSubclass", 1294, Long.class},
+        {"TrivialMethods", "testOverrideGetterInSubclass", 61, Long.class},
+    });
+  }
+
+  private final String   testClass;
+  private final String   testSelector;
+  private final Object   expectedResult;
+  private final Class<?> resultType;
+
+  public OptimizationTests(final String testClass, final String testSelector,
+      final Object expectedResult, final Class<?> resultType) {
+    this.testClass = testClass;
+    this.testSelector = testSelector;
+    this.expectedResult = expectedResult;
+    this.resultType = resultType;
+  }
+
+  private void assertEqualsSOMValue(final Object expectedResult, final Object actualResult) {
+    if (resultType == Long.class) {
+      long expected = (int) expectedResult;
+      long actual = (long) actualResult;
+      assertEquals(expected, actual);
+      return;
+    }
+
+    if (resultType == Double.class) {
+      double expected = (double) expectedResult;
+      double actual = (double) actualResult;
+      assertEquals(expected, actual, 1e-15);
+      return;
+    }
+
+    if (resultType == SClass.class) {
+      String expected = (String) expectedResult;
+      String actual = ((SClass) actualResult).getName().getString();
+      assertEquals(expected, actual);
+      return;
+    }
+
+    if (resultType == SSymbol.class) {
+      String expected = (String) expectedResult;
+      String actual = ((SSymbol) actualResult).getString();
+      assertEquals(expected, actual);
+      return;
+    }
+    fail("SOM Value handler missing");
+  }
+
+  @Test
+  public void testOptimization() {
+    Builder builder = Context.newBuilder();
+    builder.option("som.CLASS_PATH", "Smalltalk:Concurrency:Collections:tests/som");
+    builder.option("som.TEST_CLASS", testClass);
+    builder.option("som.TEST_SELECTOR", testSelector);
+
+    try (Context context = builder.build()) {
+      Value actualResult = context.eval(SomLanguage.START);
+      assertEqualsSOMValue(expectedResult, actualResult.as(Object.class));
+    }
+  }
+}
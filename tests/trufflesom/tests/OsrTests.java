@@ -0,0 +1,47 @@
+package trufflesom.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Context.Builder;
+import org.graalvm.polyglot.Value;
+import org.junit.Test;
+
+import com.oracle.truffle.api.Truffle;
+
+import trufflesom.interpreter.SomLanguage;
+
+
+/**
+ * Checks that a loop with 10^8 iterations, which runs only once, is compiled
+ * with on-stack replacement while it runs. Compilation needs the Graal
+ * compiler, so, the test is skipped without it.
+ */
+public class OsrTests {
+
+  @Test
+  public void testOneShotLoopIsCompiled() {
+    assumeTrue(Truffle.getRuntime().getName().contains("Graal"));
+
+    ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+    Builder builder = Context.newBuilder();
+    builder.option("som.CLASS_PATH", "Smalltalk:tests/som");
+    builder.option("som.TEST_CLASS", "OsrLoop");
+    builder.option("som.TEST_SELECTOR", "run");
+    builder.option("engine.TraceCompilation", "true");
+    builder.logHandler(log);
+
+    try (Context context = builder.build()) {
+      Value result = context.eval(SomLanguage.START);
+      assertEquals(299999995L, result.asLong());
+    }
+
+    assertTrue("Expected an OSR compilation of the loop, but the log was:\n" + log,
+        log.toString().contains("OSR"));
+  }
+}
@@ -0,0 +1,117 @@
+package trufflesom.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import trufflesom.vmobjects.SRope;
+
+
+public class SRopeTests {
+
+  private static String repeat(final char c, final int n) {
+    StringBuilder sb = new StringBuilder(n);
+    for (int i = 0; i < n; i++) {
+      sb.append(c);
+    }
+    return sb.toString();
+  }
+
+  @Test
+  public void testShortConcatenationIsFlat() {
+    Object result = SRope.concat("abc", "def");
+    assertEquals("abcdef", result);
+  }
+
+  @Test
+  public void testLongConcatenationIsRope() {
+    String a = repeat('a', SRope.MIN_ROPE_LENGTH);
+    Object result = SRope.concat(a, "b");
+
+    assertTrue(result instanceof SRope);
+    assertEquals(SRope.MIN_ROPE_LENGTH + 1, ((SRope) result).length());
+    assertEquals(a + "b", ((SRope) result).flatten());
+  }
+
+  @Test
+  public void testRopeOfRopes() {
+    String a = repeat('a', SRope.MIN_ROPE_LENGTH);
+    String b = repeat('b', SRope.MIN_ROPE_LENGTH);
+    Object ab = SRope.concat(a, b);
+    Object ba = SRope.concat(b, a);
+
+    SRope abba = (SRope) SRope.concat(ab, ba);
+    assertEquals(a + b + b + a, abba.flatten());
+    assertEquals(4 * SRope.MIN_ROPE_LENGTH, abba.length());
+
+    // flattening again, and flattening the parts, gives the same strings
+    assertEquals(a + b + b + a, abba.flatten());
+    assertEquals(a + b, ((SRope) ab).flatten());
+    assertEquals(b + a, ((SRope) ba).flatten());
+  }
+
+  @Test
+  public void testFlattenedPartIsReused() {
+    String a = repeat('a', SRope.MIN_ROPE_LENGTH);
+    SRope part = (SRope) SRope.concat(a, "x");
+    assertEquals(a + "x", part.flatten());
+
+    SRope whole = (SRope) SRope.concat("y", part);
+    assertEquals("y" + a + "x", whole.flatten());
+  }
+
+  @Test
+  public void testDeeplyNestedRopeDoesNotOverflowStack() {
+    Object str = repeat('a', SRope.MIN_ROPE_LENGTH);
+    int n = 100_000;
+    for (int i = 0; i < n; i++) {
+      str = SRope.concat(str, "b");
+    }
+
+    String flat = ((SRope) str).flatten();
+    assertEquals(SRope.MIN_ROPE_LENGTH + n, flat.length());
+    assertEquals('b', flat.charAt(flat.length() - 1));
+  }
+
+  @Test
+  public void testConcurrentFlattening() throws Exception {
+    String a = repeat('a', SRope.MIN_ROPE_LENGTH);
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      for (int round = 0; round < 100; round++) {
+        // ropes that are not flattened yet, and which the threads flatten
+        // directly and as parts of other ropes at the same time
+        Object mid = a;
+        for (int i = 0; i < 500; i++) {
+          mid = SRope.concat(mid, "s");
+        }
+        Object shared = mid;
+        for (int i = 0; i < 500; i++) {
+          shared = SRope.concat(shared, "s");
+        }
+
+        String expected = a + repeat('s', 1000);
+        List<Future<String>> results = new ArrayList<>();
+        results.add(pool.submit(((SRope) mid)::flatten));
+        results.add(pool.submit(((SRope) shared)::flatten));
+        results.add(pool.submit(((SRope) SRope.concat(shared, "x"))::flatten));
+        results.add(pool.submit(((SRope) SRope.concat("y", shared))::flatten));
+
+        assertEquals(expected.substring(0, SRope.MIN_ROPE_LENGTH + 500),
+            results.get(0).get());
+        assertEquals(expected, results.get(1).get());
+        assertEquals(expected + "x", results.get(2).get());
+        assertEquals("y" + expected, results.get(3).get());
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
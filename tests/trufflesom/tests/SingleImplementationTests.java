@@ -0,0 +1,125 @@
+package trufflesom.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Context.Builder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.source.SourceSection;
+
+import trufflesom.interpreter.SomLanguage;
+import trufflesom.primitives.Primitives;
+import trufflesom.vm.Implementers;
+import trufflesom.vm.Universe;
+import trufflesom.vmobjects.SClass;
+import trufflesom.vmobjects.SInvokable;
+import trufflesom.vmobjects.SSymbol;
+
+
+/**
+ * Checks that a send bound to the only implementation of a selector, see
+ * {@link Implementers}, is dropped when a subclass overrides the method, or
+ * when the method is replaced by a primitive.
+ */
+public class SingleImplementationTests {
+
+  private Context  context;
+  private Universe universe;
+
+  private SClass       single;
+  private SClass       subA;
+  private SClass       subB;
+  private SSymbol      implementedOnce;
+  private Implementers implementers;
+  private SInvokable   original;
+
+  @Before
+  public void setUp() {
+    Builder builder = Context.newBuilder();
+    builder.option("som.CLASS_PATH", "Smalltalk:tests/som");
+    builder.option("som.TEST_CLASS", "SingleImplementation");
+    builder.option("som.TEST_SELECTOR", "run");
+
+    context = builder.build();
+    assertEquals(1L, context.eval(SomLanguage.START).asLong());
+
+    context.enter();
+    universe = SomLanguage.getCurrentContext();
+    single = universe.loadClass(universe.symbolFor("SingleImplementation"));
+    subA = universe.loadClass(universe.symbolFor("SingleImplementationA"));
+    subB = universe.loadClass(universe.symbolFor("SingleImplementationB"));
+    implementedOnce = universe.symbolFor("implementedOnce");
+    implementers = implementedOnce.getImplementers();
+    original = single.lookupInvokable(implementedOnce);
+  }
+
+  @After
+  public void tearDown() {
+    context.leave();
+    context.close();
+  }
+
+  /** Sends #implementedOnce to an instance of the class, always from the same site. */
+  private Object send(final SClass rcvrClass) {
+    SClass singleClass = single.getSOMClass(universe);
+    SInvokable send = singleClass.lookupInvokable(universe.symbolFor("send:"));
+    return send.invoke(new Object[] {single, Universe.newInstance(rcvrClass)});
+  }
+
+  /**
+   * Make the send site polymorphic, so that its second entry is bound to the
+   * single implementation.
+   */
+  private Assumption bindSingleImplementation() {
+    assertEquals(1L, send(subA));
+    assertEquals(1L, send(subB));
+
+    Assumption assumption = implementers.assumeSingleImplementation(original);
+    assertNotNull(assumption);
+    assertTrue(assumption.isValid());
+    return assumption;
+  }
+
+  @Test
+  public void testOverrideInLoadedSubclass() {
+    Assumption assumption = bindSingleImplementation();
+
+    SClass override = universe.loadClass(universe.symbolFor("SingleImplementationOverride"));
+
+    assertFalse(assumption.isValid());
+    assertNull(implementers.assumeSingleImplementation(original));
+
+    // the entry for the single implementation would have matched the subclass
+    assertEquals(2L, send(override));
+    assertEquals(1L, send(subB));
+    assertEquals(1L, send(subA));
+  }
+
+  @Test
+  public void testReplacementByPrimitive() {
+    Assumption assumption = bindSingleImplementation();
+
+    SourceSection source =
+        SomLanguage.getSyntheticSource("primitive", "implementedOnce").createSection(1);
+    SInvokable primitive = Primitives.constructEmptyPrimitive(
+        implementedOnce, universe.getLanguage(), source);
+    single.addInstanceInvokable(primitive);
+
+    assertFalse(assumption.isValid());
+    assertNull(implementers.assumeSingleImplementation(original));
+    assertSame(primitive, subA.lookupInvokable(implementedOnce));
+
+    Assumption forPrimitive = implementers.assumeSingleImplementation(primitive);
+    assertNotNull(forPrimitive);
+    assertTrue(forPrimitive.isValid());
+  }
+}